@@ -0,0 +1,196 @@
+package com.robotgui;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Rewrites an uncompressed BMP (8-bit palette, 24-bit or 32-bit) as a PNG, one row at a
+ * time, so converting the robot's map never holds more than a row in memory.
+ *
+ * BitmapRegionDecoder cannot open BMP files; the PNG it writes can be. Palettes that are
+ * all gray, as in Slamtec maps, produce an 8-bit grayscale PNG, anything else RGB.
+ */
+public final class BmpPngTranscoder {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int IDAT_SIZE = 64 * 1024;
+
+    private BmpPngTranscoder() {
+    }
+
+    /** The parts of a BMP header needed to address its rows. */
+    static final class Header {
+        final int width;
+        final int height;
+        final int bitsPerPixel;
+        final int pixelOffset;
+        final int stride;
+        final boolean topDown;
+        // B, G, R, reserved per entry; null unless 8-bit
+        final byte[] palette;
+        final int colors;
+
+        private Header(RandomAccessFile in) throws IOException {
+            byte[] header = new byte[54];
+            in.seek(0);
+            in.readFully(header);
+            if (header[0] != 'B' || header[1] != 'M') {
+                throw new IOException("Not a BMP file");
+            }
+            pixelOffset = le32(header, 10);
+            int dibSize = le32(header, 14);
+            width = le32(header, 18);
+            int rawHeight = le32(header, 22);
+            bitsPerPixel = le16(header, 28);
+            int compression = le32(header, 30);
+            int colorsUsed = le32(header, 46);
+            topDown = rawHeight < 0;
+            height = Math.abs(rawHeight);
+            // BI_BITFIELDS with 32 bits is BGRA in practice
+            if (compression != 0 && !(compression == 3 && bitsPerPixel == 32)) {
+                throw new IOException("Unsupported BMP compression " + compression);
+            }
+            if (bitsPerPixel != 8 && bitsPerPixel != 24 && bitsPerPixel != 32) {
+                throw new IOException("Unsupported BMP: " + bitsPerPixel + " bits per pixel");
+            }
+            if (width <= 0 || height == 0) {
+                throw new IOException("Invalid BMP size " + width + "x" + rawHeight);
+            }
+            stride = ((width * bitsPerPixel + 31) / 32) * 4;
+            if (bitsPerPixel == 8) {
+                colors = colorsUsed > 0 ? Math.min(colorsUsed, 256) : 256;
+                palette = new byte[256 * 4];
+                in.seek(14 + dibSize);
+                in.readFully(palette, 0, colors * 4);
+            } else {
+                colors = 0;
+                palette = null;
+            }
+        }
+
+        static Header read(RandomAccessFile in) throws IOException {
+            return new Header(in);
+        }
+
+        /** File offset of image row y, counted from the top. */
+        long rowOffset(int y) {
+            return pixelOffset + (long) (topDown ? y : height - 1 - y) * stride;
+        }
+
+        boolean isGray() {
+            if (palette == null) {
+                return false;
+            }
+            for (int i = 0; i < colors; i++) {
+                if (palette[i * 4] != palette[i * 4 + 1] || palette[i * 4 + 1] != palette[i * 4 + 2]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Transcodes bmp into png. Returns {width, height}. */
+    public static int[] transcode(File bmp, File png) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(bmp, "r");
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(png), IDAT_SIZE)) {
+            Header header = Header.read(in);
+            int width = header.width;
+            int height = header.height;
+            byte[] palette = header.palette;
+            boolean gray = header.isGray();
+            int bytesPerPixel = header.bitsPerPixel / 8;
+            int channels = gray ? 1 : 3;
+            byte[] bmpRow = new byte[header.stride];
+            // Each PNG row starts with its filter type; 0 (none) keeps this a straight copy
+            byte[] pngRow = new byte[1 + width * channels];
+
+            DataOutputStream data = new DataOutputStream(out);
+            data.write(PNG_SIGNATURE);
+            byte[] ihdr = new byte[13];
+            be32(ihdr, 0, width);
+            be32(ihdr, 4, height);
+            ihdr[8] = 8;
+            ihdr[9] = (byte) (gray ? 0 : 2);
+            writeChunk(data, "IHDR", ihdr, ihdr.length);
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            byte[] deflated = new byte[IDAT_SIZE];
+            try {
+                for (int y = 0; y < height; y++) {
+                    in.seek(header.rowOffset(y));
+                    in.readFully(bmpRow);
+                    int p = 1;
+                    for (int x = 0, i = 0; x < width; x++, i += bytesPerPixel) {
+                        if (palette != null) {
+                            int index = (bmpRow[i] & 0xff) * 4;
+                            pngRow[p++] = palette[index + 2];
+                            if (!gray) {
+                                pngRow[p++] = palette[index + 1];
+                                pngRow[p++] = palette[index];
+                            }
+                        } else {
+                            pngRow[p++] = bmpRow[i + 2];
+                            pngRow[p++] = bmpRow[i + 1];
+                            pngRow[p++] = bmpRow[i];
+                        }
+                    }
+                    deflater.setInput(pngRow);
+                    while (!deflater.needsInput()) {
+                        flushIdat(data, deflater, deflated);
+                    }
+                }
+                deflater.finish();
+                while (!deflater.finished()) {
+                    flushIdat(data, deflater, deflated);
+                }
+            } finally {
+                deflater.end();
+            }
+            writeChunk(data, "IEND", new byte[0], 0);
+            data.flush();
+            return new int[] {width, height};
+        }
+    }
+
+    private static void flushIdat(DataOutputStream data, Deflater deflater, byte[] deflated) throws IOException {
+        int n = deflater.deflate(deflated);
+        if (n > 0) {
+            writeChunk(data, "IDAT", deflated, n);
+        }
+    }
+
+    private static void writeChunk(DataOutputStream data, String type, byte[] body, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(body, 0, length);
+        data.writeInt(length);
+        data.write(typeBytes);
+        data.write(body, 0, length);
+        data.writeInt((int) crc.getValue());
+    }
+
+    private static int le32(byte[] b, int offset) {
+        return (b[offset] & 0xff) | (b[offset + 1] & 0xff) << 8 | (b[offset + 2] & 0xff) << 16 | b[offset + 3] << 24;
+    }
+
+    private static int le16(byte[] b, int offset) {
+        return (b[offset] & 0xff) | (b[offset + 1] & 0xff) << 8;
+    }
+
+    private static void be32(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+}
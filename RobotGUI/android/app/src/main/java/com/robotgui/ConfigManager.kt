@@ -30,6 +30,18 @@ object ConfigManager {
         return getNestedValue(path)?.toString() ?: defaultValue
     }
 
+    fun getNestedInt(path: String, defaultValue: Int = 0): Int {
+        return getNestedValue(path)?.toString()?.toIntOrNull() ?: defaultValue
+    }
+
+    fun getNestedDouble(path: String, defaultValue: Double = 0.0): Double {
+        return getNestedValue(path)?.toString()?.toDoubleOrNull() ?: defaultValue
+    }
+
+    fun getNestedBoolean(path: String, defaultValue: Boolean = false): Boolean {
+        return getNestedValue(path)?.toString()?.toBooleanStrictOrNull() ?: defaultValue
+    }
+
     fun getDoubleArray(key: String): DoubleArray? {
         val value = getNestedValue(key)
         return (value as? List<*>)?.mapNotNull { 
@@ -0,0 +1,198 @@
+package com.robotgui;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Downloaded domain data by metadata id, so data that has not changed since the last
+ * download is read from disk instead of fetched again.
+ *
+ * Each entry records the version of the data it holds, built from the metadata fields that
+ * change when the data does (see {@link #version}); a lookup with any other version misses.
+ * Bodies are streamed to domain_data/{id}.bin in the app folder as they arrive, never held
+ * whole in memory, and domain_data/index.json lists the entries. At most
+ * domain_data.max_entries are kept, the least recently used dropped first.
+ */
+public final class DomainDataCache {
+
+    private static final String DATA_DIR = "domain_data";
+    private static final String INDEX_FILE = "index.json";
+    private static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private static DomainDataCache sharedInstance;
+
+    /** One cached body. */
+    public static final class Entry {
+        public final String id;
+        public final String version;
+        public final File file;
+        public final long size;
+
+        Entry(String id, String version, File file, long size) {
+            this.id = id;
+            this.version = version;
+            this.file = file;
+            this.size = size;
+        }
+
+        /** The body as text; for entries small enough to hand over whole. */
+        public String readText() throws IOException {
+            return MapCache.readUtf8(file);
+        }
+    }
+
+    private final File dir;
+    private final File indexFile;
+    private final int maxEntries;
+    // Access ordered, least recently used first
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    DomainDataCache(File appDir, int maxEntries) {
+        this.dir = new File(appDir, DATA_DIR);
+        this.indexFile = new File(dir, INDEX_FILE);
+        this.maxEntries = maxEntries;
+        load();
+    }
+
+    public static synchronized DomainDataCache getInstance(File appDir) {
+        if (sharedInstance == null) {
+            sharedInstance = new DomainDataCache(appDir,
+                ConfigManager.INSTANCE.getNestedInt("domain_data.max_entries", DEFAULT_MAX_ENTRIES));
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Version of the data a metadata record describes: its created_at, plus updated_at,
+     * size and hash where the domain server reports them, since data rewritten in place
+     * keeps its id and created_at.
+     */
+    public static String version(JSONObject metadata) {
+        return metadata.optString("created_at", "")
+            + "|" + metadata.optString("updated_at", "")
+            + "|" + metadata.optString("size", "")
+            + "|" + metadata.optString("hash", "");
+    }
+
+    /** The cached body of id at version, or null. */
+    public synchronized Entry get(String id, String version) {
+        Entry entry = entries.get(id);
+        if (entry == null || !entry.version.equals(version) || !entry.file.exists()) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Streams body to disk as the entry for id at version, replacing any older one. The
+     * caller closes body.
+     */
+    public Entry store(String id, String version, InputStream body) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        // Written outside the lock, so a slow download holds up no lookups
+        File tmp = File.createTempFile("data", ".tmp", dir);
+        long size = 0;
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = body.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                size += n;
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        synchronized (this) {
+            File file = new File(dir, fileName(id));
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Cannot replace " + file.getName());
+            }
+            Entry entry = new Entry(id, version, file, size);
+            entries.put(id, entry);
+            evict();
+            saveQuietly();
+            return entry;
+        }
+    }
+
+    /** Drops the entry for id, after the data was rewritten from here. */
+    public synchronized void invalidate(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            entry.file.delete();
+            saveQuietly();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            eldest.file.delete();
+        }
+    }
+
+    // Ids come from the server; keep only what is safe in a file name
+    private static String fileName(String id) {
+        return id.replaceAll("[^A-Za-z0-9._-]", "_") + ".bin";
+    }
+
+    private void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        try {
+            JSONArray list = new JSONObject(MapCache.readUtf8(indexFile)).getJSONArray("entries");
+            for (int i = 0; i < list.length(); i++) {
+                JSONObject entry = list.getJSONObject(i);
+                String id = entry.getString("id");
+                File file = new File(dir, fileName(id));
+                if (file.exists()) {
+                    entries.put(id, new Entry(id, entry.getString("version"), file, file.length()));
+                }
+            }
+        } catch (Exception e) {
+            // Unreadable; bodies are downloaded again and the index rebuilt
+            entries.clear();
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            // The index is rewritten whole on the next store or invalidate
+        }
+    }
+
+    private void save() throws IOException {
+        String json;
+        try {
+            JSONArray list = new JSONArray();
+            for (Entry entry : entries.values()) {
+                list.put(new JSONObject()
+                    .put("id", entry.id)
+                    .put("version", entry.version));
+            }
+            json = new JSONObject().put("entries", list).toString();
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode " + INDEX_FILE, e);
+        }
+        MapCache.writeUtf8(indexFile, json);
+    }
+}
@@ -0,0 +1,340 @@
+package com.robotgui;
+
+import android.content.SharedPreferences;
+import android.util.Base64;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Keeps the domain session, the domain access token and server from the domain auth, valid
+ * without logging in more often than the tokens require.
+ *
+ * A domain token takes three steps: posemesh user login, then the DDS access token, then
+ * the domain auth. Each token's expiry is read from its JWT exp claim and a step is repeated
+ * only once its token has expired, so a refresh usually costs the domain auth alone.
+ * {@link #session} hands out the stored session without a request until it expires, and a
+ * background refresh renews it auth.refresh_margin_s before then. Concurrent refreshes
+ * collapse into one: callers arriving while it runs wait for it and share its result.
+ *
+ * Tokens and domain info stay in the DomainAuth preferences under the keys the module
+ * always used, so getDomainInfo keeps reading the current session.
+ */
+public final class DomainSessionManager {
+
+    private static final String TAG = "DomainSessionManager";
+    private static final String LOGIN_URL = "https://api.auki.network/user/login";
+    private static final String DDS_TOKEN_URL = "https://api.auki.network/service/domains-access-token";
+    private static final String DOMAIN_AUTH_URL = "https://dds.auki.network/api/v1/domains/%s/auth";
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private static final String POSEMESH_TOKEN = "posemesh_token";
+    private static final String DDS_TOKEN = "dds_token";
+    private static final String DOMAIN_INFO = "domain_info";
+    private static final String DOMAIN_INFO_AT = "domain_info_at";
+
+    // A token this close to its expiry counts as expired, for clock skew and request time
+    private static final long EXPIRY_SKEW_MS = 10_000;
+    private static final long RETRY_DELAY_MS = 30_000;
+    private static final int DEFAULT_REFRESH_MARGIN_S = 120;
+    private static final int DEFAULT_UNKNOWN_EXPIRY_S = 600;
+
+    private static DomainSessionManager sharedInstance;
+
+    /** The domain session from one domain auth. */
+    public static final class Session {
+        public final String accessToken;
+        public final String domainServerUrl;
+        public final String domainId;
+        /** The domain auth response as received. */
+        public final String domainInfo;
+        /** When the access token expires, in epoch milliseconds. */
+        public final long expiresAt;
+
+        Session(String accessToken, String domainServerUrl, String domainId, String domainInfo, long expiresAt) {
+            this.accessToken = accessToken;
+            this.domainServerUrl = domainServerUrl;
+            this.domainId = domainId;
+            this.domainInfo = domainInfo;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final SharedPreferences preferences;
+    private final OkHttpClient client;
+    private final long refreshMarginMs;
+    // Lifetime assumed for a domain token whose expiry cannot be read
+    private final long unknownExpiryMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "domain-session-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Held for the whole three-step chain, so only one refresh runs at a time
+    private final Object refreshLock = new Object();
+
+    private volatile Session current;
+    private ScheduledFuture<?> pendingRefresh;
+    private boolean started;
+
+    DomainSessionManager(SharedPreferences preferences, OkHttpClient client, long refreshMarginMs, long unknownExpiryMs) {
+        this.preferences = preferences;
+        this.client = client;
+        this.refreshMarginMs = refreshMarginMs;
+        this.unknownExpiryMs = unknownExpiryMs;
+    }
+
+    public static synchronized DomainSessionManager getInstance(SharedPreferences preferences, OkHttpClient client) {
+        if (sharedInstance == null) {
+            ConfigManager config = ConfigManager.INSTANCE;
+            sharedInstance = new DomainSessionManager(preferences, client,
+                config.getNestedInt("auth.refresh_margin_s", DEFAULT_REFRESH_MARGIN_S) * 1000L,
+                config.getNestedInt("auth.unknown_expiry_s", DEFAULT_UNKNOWN_EXPIRY_S) * 1000L);
+        }
+        return sharedInstance;
+    }
+
+    /** Restores the stored session and schedules its renewal; later calls do nothing. */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        String domainInfo = preferences.getString(DOMAIN_INFO, null);
+        if (domainInfo == null) {
+            return;
+        }
+        try {
+            current = parse(domainInfo, preferences.getLong(DOMAIN_INFO_AT, 0));
+            scheduleRefresh(current);
+        } catch (IOException e) {
+            Log.w(TAG, "Stored domain info unusable, the next request logs in: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The current session, without a request unless it has expired (or belongs to another
+     * domain than the stored domain id), in which case this waits for a refresh.
+     */
+    public Session session() throws IOException {
+        Session session = current;
+        if (usable(session)) {
+            return session;
+        }
+        return refresh(session);
+    }
+
+    /** A session from a new domain auth, or the one a refresh already under way returns. */
+    public Session refresh() throws IOException {
+        return refresh(current);
+    }
+
+    /** Runs all three steps with the given credentials and makes the result the session. */
+    public Session login(String email, String password, String domainId) throws IOException {
+        synchronized (refreshLock) {
+            return store(authenticate(email, password, domainId, false));
+        }
+    }
+
+    /** Drops the session if it still uses accessToken, after the server rejected it. */
+    public void invalidate(String accessToken) {
+        Session session = current;
+        if (session != null && session.accessToken.equals(accessToken)) {
+            Log.w(TAG, "Domain token rejected, refreshing on next use");
+            current = null;
+        }
+    }
+
+    /** Forgets the session, as when the stored credentials are cleared. */
+    public synchronized void clear() {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+            pendingRefresh = null;
+        }
+        current = null;
+    }
+
+    // Single flight: the first caller refreshes, callers waiting on the lock get its session
+    private Session refresh(Session stale) throws IOException {
+        synchronized (refreshLock) {
+            Session session = current;
+            if (session != stale && usable(session)) {
+                return session;
+            }
+            String email = preferences.getString("email", "");
+            String password = preferences.getString("password", "");
+            String domainId = preferences.getString("domain_id", "");
+            if (isEmpty(email) || isEmpty(password) || isEmpty(domainId)) {
+                throw new IOException("Missing stored credentials for token refresh");
+            }
+            return store(authenticate(email, password, domainId, true));
+        }
+    }
+
+    /*
+     * The three-step chain. With reuseTokens, the posemesh and DDS tokens are kept while
+     * they are valid, and if a step fails after reusing one the whole chain runs again.
+     */
+    private String authenticate(String email, String password, String domainId, boolean reuseTokens)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        String posemeshToken = reuseTokens ? preferences.getString(POSEMESH_TOKEN, null) : null;
+        String ddsToken = reuseTokens ? preferences.getString(DDS_TOKEN, null) : null;
+        boolean reused = false;
+        try {
+            if (valid(ddsToken, now)) {
+                reused = true;
+            } else {
+                if (valid(posemeshToken, now)) {
+                    reused = true;
+                } else {
+                    JSONObject credentials = new JSONObject()
+                        .put("email", email)
+                        .put("password", password);
+                    posemeshToken = accessToken(post(LOGIN_URL, null, credentials, "posemesh account"), "posemesh account");
+                    preferences.edit().putString(POSEMESH_TOKEN, posemeshToken).apply();
+                }
+                ddsToken = accessToken(post(DDS_TOKEN_URL, posemeshToken, null, "domain dds"), "domain dds");
+                preferences.edit().putString(DDS_TOKEN, ddsToken).apply();
+            }
+            return post(String.format(DOMAIN_AUTH_URL, domainId), ddsToken, null, "domain access");
+        } catch (JSONException e) {
+            throw new IOException("Invalid login request: " + e.getMessage(), e);
+        } catch (IOException e) {
+            if (!reused) {
+                throw e;
+            }
+            Log.w(TAG, "Authentication with stored tokens failed, logging in again: " + e.getMessage());
+            return authenticate(email, password, domainId, false);
+        }
+    }
+
+    private String post(String url, String bearer, JSONObject body, String step) throws IOException {
+        // The DDS and domain auth steps take no body
+        RequestBody requestBody = body == null
+            ? RequestBody.create(new byte[0], null)
+            : RequestBody.create(body.toString().getBytes(StandardCharsets.UTF_8), JSON);
+        Request.Builder request = new Request.Builder()
+            .url(url)
+            .post(requestBody)
+            .header("Accept", "application/json");
+        if (bearer != null) {
+            request.header("Authorization", "Bearer " + bearer);
+        }
+        try (Response response = client.newCall(request.build()).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to authenticate " + step + ": " + response.code());
+            }
+            return response.body() != null ? response.body().string() : "";
+        }
+    }
+
+    private static String accessToken(String response, String step) throws IOException {
+        try {
+            return new JSONObject(response).getString("access_token");
+        } catch (JSONException e) {
+            throw new IOException("No access token from " + step, e);
+        }
+    }
+
+    private Session store(String domainInfo) throws IOException {
+        long obtainedAt = System.currentTimeMillis();
+        Session session = parse(domainInfo, obtainedAt);
+        preferences.edit()
+            .putString(DOMAIN_INFO, domainInfo)
+            .putLong(DOMAIN_INFO_AT, obtainedAt)
+            .apply();
+        current = session;
+        scheduleRefresh(session);
+        return session;
+    }
+
+    private Session parse(String domainInfo, long obtainedAt) throws IOException {
+        try {
+            JSONObject info = new JSONObject(domainInfo);
+            String accessToken = info.getString("access_token");
+            long expiresAt = expiry(accessToken);
+            if (expiresAt == 0) {
+                expiresAt = obtainedAt + unknownExpiryMs;
+            }
+            return new Session(accessToken,
+                info.getJSONObject("domain_server").getString("url"),
+                info.optString("id", preferences.getString("domain_id", "")),
+                domainInfo,
+                expiresAt);
+        } catch (JSONException e) {
+            throw new IOException("Invalid domain info: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean usable(Session session) {
+        if (session == null || session.expiresAt - EXPIRY_SKEW_MS <= System.currentTimeMillis()) {
+            return false;
+        }
+        // A session for a domain other than the one now configured is no use
+        String domainId = preferences.getString("domain_id", "");
+        return isEmpty(domainId) || domainId.equals(session.domainId);
+    }
+
+    private synchronized void scheduleRefresh(Session session) {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+        }
+        long remaining = session.expiresAt - System.currentTimeMillis();
+        // Tokens that live less than the margin are renewed halfway, not back to back
+        long delay = Math.max(remaining - refreshMarginMs, remaining / 2);
+        pendingRefresh = scheduler.schedule(() -> refreshInBackground(session), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshInBackground(Session stale) {
+        try {
+            refresh(stale);
+            Log.d(TAG, "Domain session renewed ahead of expiry");
+        } catch (IOException e) {
+            Log.w(TAG, "Background token refresh failed: " + e.getMessage());
+            // Retry while the old token lasts; after that the next caller refreshes
+            synchronized (this) {
+                if (current == stale && System.currentTimeMillis() + RETRY_DELAY_MS < stale.expiresAt) {
+                    pendingRefresh = scheduler.schedule(() -> refreshInBackground(stale),
+                        RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    private static boolean valid(String token, long now) {
+        return token != null && expiry(token) - EXPIRY_SKEW_MS > now;
+    }
+
+    /** Expiry of a JWT from its exp claim in epoch milliseconds, 0 if it cannot be read. */
+    static long expiry(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) {
+            return 0;
+        }
+        try {
+            byte[] payload = Base64.decode(parts[1], Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
+            return new JSONObject(new String(payload, StandardCharsets.UTF_8)).optLong("exp", 0) * 1000;
+        } catch (IllegalArgumentException | JSONException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
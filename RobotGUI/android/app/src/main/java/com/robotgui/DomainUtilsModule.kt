@@ -4,10 +4,10 @@ import android.content.Context
 import android.util.Log
 import com.facebook.react.bridge.*
 import kotlinx.coroutines.*
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 import org.json.JSONObject
 import org.json.JSONArray
-import java.net.HttpURLConnection
-import java.net.URL
 import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import android.graphics.Color
@@ -16,7 +16,6 @@ import okhttp3.*
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.RequestBody.Companion.toRequestBody
 import org.yaml.snakeyaml.Yaml
-import android.util.Base64
 import android.os.Environment
 import android.Manifest
 import android.content.pm.PackageManager
@@ -24,7 +23,6 @@ import androidx.core.app.ActivityCompat
 import androidx.core.content.ContextCompat
 import android.app.Activity
 import android.content.Intent
-import java.util.regex.Pattern
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.io.FileWriter
@@ -33,41 +31,74 @@ import okhttp3.MultipartBody
 import android.net.wifi.WifiManager
 import java.net.NetworkInterface
 import java.util.UUID
+import com.facebook.react.modules.core.DeviceEventManagerModule
 
 class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaModule(reactContext) {
     private val TAG = "DomainUtilsModule"
     private val scope = CoroutineScope(Dispatchers.IO + Job())
     private val sharedPreferences = reactContext.getSharedPreferences("DomainAuth", Context.MODE_PRIVATE)
     private val STORAGE_PERMISSION_CODE = 1001
+    private val MAP_DOWNLOAD_PROGRESS_EVENT = "MapDownloadProgress"
+    private val MAP_UPLOAD_PROGRESS_EVENT = "MapUploadProgress"
+    private val DOMAIN_DEPLOY_OPTIONS = MapDeploymentPipeline.Options("/api/core/artifact/v1/pois", true)
     //private val baseUrl = "https://dds.posemesh.org/api/v1/domains"
     private val baseUrl = "https://dds.auki.network/api/v1/domains"
     // Flag to prevent concurrent map downloads
     private val isDownloadingMap = AtomicBoolean(false)
 
     // Add singleton OkHttpClient at the top of the class
-    private val httpClient: OkHttpClient by lazy { OkHttpClient() }
+    private val httpClient: OkHttpClient by lazy {
+        OkHttpClient.Builder()
+            .eventListenerFactory(TransportMetrics.getInstance().eventListenerFactory("domain", true))
+            .build()
+    }
+
+    // Shared keep-alive transport for the robot's SLAM REST API
+    private val slamClient: SlamtecHttpClient by lazy { SlamtecHttpClient.getInstance() }
+
+    // App folder in Downloads, next to debug_log.txt
+    private val appDir: File by lazy {
+        val downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS)
+        val appDirName = if (reactApplicationContext.resources.getString(R.string.app_variant) == "gotu") "GoTu" else "CactusAssistant"
+        File(downloadsDir, appDirName)
+    }
+
+    // Downloaded maps by content hash, and which one the robot holds
+    private val mapCache: MapCache by lazy { MapCache.getInstance(appDir) }
+
+    // Which map resolution to deploy and prefetch for the domain's size
+    private val resolutionPolicy: MapResolutionPolicy by lazy { MapResolutionPolicy.fromConfig() }
+    private val isPrefetchingMaps = AtomicBoolean(false)
+
+    // Restrict-to-navmesh answers per target, for the map the robot holds
+    private val navmeshCache: NavmeshCache by lazy { NavmeshCache.getInstance(appDir) }
+
+    // Domain data bodies by metadata id, downloaded again only when the metadata changes
+    private val dataCache: DomainDataCache by lazy { DomainDataCache.getInstance(appDir) }
 
-    private var posemeshToken: String?
-        get() = sharedPreferences.getString("posemesh_token", null)
-        set(value) = sharedPreferences.edit().putString("posemesh_token", value).apply()
+    // Domain lighthouses by short_id, for QR lookups
+    private val lighthouses: LighthouseIndex by lazy { LighthouseIndex.getInstance(appDir, httpClient) }
 
-    private var ddsToken: String?
-        get() = sharedPreferences.getString("dds_token", null)
-        set(value) = sharedPreferences.edit().putString("dds_token", value).apply()
+    // Stamps launch time so the first request in a coroutine reports its dispatcher wait
+    private fun queuedAt() = TransportMetrics.QUEUED_AT.asContextElement(TransportMetrics.queuedNow())
 
-    private var domainInfo: String?
+    // Written by the session manager on each domain auth
+    private val domainInfo: String?
         get() = sharedPreferences.getString("domain_info", null)
-        set(value) = sharedPreferences.edit().putString("domain_info", value).apply()
+
+    // Domain token kept valid ahead of expiry, one login at a time
+    private val sessions: DomainSessionManager by lazy { DomainSessionManager.getInstance(sharedPreferences, httpClient) }
 
     override fun getName(): String = "DomainUtils"
 
     override fun initialize() {
         super.initialize()
+        sessions.start()
     }
 
     @ReactMethod
     fun getDomainData(promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 // Example domain data
                 val response = Arguments.createMap().apply {
@@ -119,127 +150,14 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun refreshToken(promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 logToFile("Starting token refresh...")
-                
-                // Get stored credentials
-                val email = sharedPreferences.getString("email", "") ?: ""
-                val password = sharedPreferences.getString("password", "") ?: ""
-                val domainId = sharedPreferences.getString("domain_id", "") ?: ""
-                
-                logToFile("Refreshing token with email: $email, domainId: $domainId")
-                
-                if (email.isEmpty() || password.isEmpty() || domainId.isEmpty()) {
-                    val errorMsg = "Missing stored credentials for token refresh"
-                    logToFile(errorMsg)
-                    throw Exception(errorMsg)
-                }
-                
-                // Perform full re-authentication flow (same as testTokenValidity and authenticate)
-                
-                // 1. Authenticate with Posemesh
-                //val url1 = URL("https://api.posemesh.org/user/login")
-                val url1 = URL("https://api.auki.network/user/login")
-                logToFile("Posemesh user login URL: $url1")
-                
-                val connection1 = url1.openConnection() as HttpURLConnection
-                
-                val body1 = JSONObject().apply {
-                    put("email", email)
-                    put("password", password)
-                }
-
-                connection1.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Content-Type", "application/json")
-                    setRequestProperty("Accept", "application/json")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                    doOutput = true
-                    outputStream.write(body1.toString().toByteArray())
-                }
-
-                val responseCode1 = connection1.responseCode
-                logToFile("Posemesh user login response code: $responseCode1")
-
-                if (responseCode1 !in 200..299) {
-                    val errorMessage = "Token refresh: Failed to authenticate posemesh account: $responseCode1"
-                    logToFile(errorMessage)
-                    throw Exception(errorMessage)
-                }
 
-                val response1 = connection1.inputStream.bufferedReader().readText()
-                logToFile("Posemesh user login response: ${response1.take(200)}${if (response1.length > 200) "..." else ""}")
-                
-                val repJson1 = JSONObject(response1)
-                val posemeshTokenValue = repJson1.getString("access_token")
-                posemeshToken = posemeshTokenValue
-                logToFile("Posemesh token received (first 10 chars): ${posemeshTokenValue.take(10)}...")
-
-                // 2. Auth DDS
-                //val url2 = URL("https://api.posemesh.org/service/domains-access-token")
-                val url2 = URL("https://api.auki.network/service/domains-access-token")
-                logToFile("DDS authentication URL: $url2")
-                
-                val connection2 = url2.openConnection() as HttpURLConnection
-                
-                connection2.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Accept", "application/json")
-                    setRequestProperty("Authorization", "Bearer $posemeshToken")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                }
-
-                val responseCode2 = connection2.responseCode
-                logToFile("DDS authentication response code: $responseCode2")
-
-                if (responseCode2 !in 200..299) {
-                    val errorMessage = "Token refresh: Failed to authenticate domain dds: $responseCode2"
-                    logToFile(errorMessage)
-                    throw Exception(errorMessage)
-                }
-
-                val response2 = connection2.inputStream.bufferedReader().readText()
-                logToFile("DDS authentication response: $response2")
-                
-                val repJson2 = JSONObject(response2)
-                val ddsTokenValue = repJson2.getString("access_token")
-                ddsToken = ddsTokenValue
-                logToFile("DDS token received (first 10 chars): ${ddsTokenValue.take(10)}...")
-
-                // 3. Auth Domain
-                //val url3 = URL("https://dds.posemesh.org/api/v1/domains/$domainId/auth")
-                val url3 = URL("https://dds.auki.network/api/v1/domains/$domainId/auth")
-                logToFile("Domain authentication URL: $url3")
-                
-                val connection3 = url3.openConnection() as HttpURLConnection
-                
-                connection3.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Accept", "application/json")
-                    setRequestProperty("Authorization", "Bearer $ddsToken")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                }
-
-                val responseCode3 = connection3.responseCode
-                logToFile("Domain authentication response code: $responseCode3")
-
-                if (responseCode3 !in 200..299) {
-                    val errorMessage = "Token refresh: Failed to authenticate domain access: $responseCode3"
-                    logToFile(errorMessage)
-                    throw Exception(errorMessage)
-                }
-
-                val response3 = connection3.inputStream.bufferedReader().readText()
-                logToFile("Domain authentication response: ${response3.take(200)}${if (response3.length > 200) "..." else ""}")
-                
-                // Update stored domain info
-                domainInfo = response3
-                logToFile("Updated domain info after token refresh")
-                
-                // Return the updated domain info
-                logToFile("Token refresh completed successfully")
-                promise.resolve(domainInfo)
+                // New domain token; login and DDS steps only run again if their tokens expired
+                val session = sessions.refresh()
+                logToFile("Token refresh completed successfully, valid until ${Date(session.expiresAt)}")
+                promise.resolve(session.domainInfo)
             } catch (e: Exception) {
                 Log.e(TAG, "Token refresh failed", e)
                 logToFile("Token refresh failed: ${e.message}")
@@ -250,129 +168,13 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun testTokenValidity(promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 logToFile("Starting token validation...")
-                
-                // Check if we have domain info
-                val domainInfoStr = domainInfo ?: throw Exception("No domain info available")
-                logToFile("Domain info from storage: $domainInfoStr")
-                
-                // Instead of testing existing token validity, try a re-authentication approach
-                // This mimics what the ConfigScreen does
-                val email = sharedPreferences.getString("email", "") ?: ""
-                val password = sharedPreferences.getString("password", "") ?: ""
-                val domainId = sharedPreferences.getString("domain_id", "") ?: ""
-                
-                logToFile("Re-authenticating with email: $email, domainId: $domainId")
-                
-                if (email.isEmpty() || password.isEmpty() || domainId.isEmpty()) {
-                    val errorMsg = "Missing stored credentials for token validation"
-                    logToFile(errorMsg)
-                    throw Exception(errorMsg)
-                }
-                
-                // 1. Re-authenticate with Posemesh
-                //val url1 = URL("https://api.posemesh.org/user/login")
-                val url1 = URL("https://api.auki.network/user/login")
-                logToFile("Posemesh user login URL: $url1")
-                
-                val connection1 = url1.openConnection() as HttpURLConnection
-                
-                val body1 = JSONObject().apply {
-                    put("email", email)
-                    put("password", password)
-                }
-
-                connection1.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Content-Type", "application/json")
-                    setRequestProperty("Accept", "application/json")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                    doOutput = true
-                    outputStream.write(body1.toString().toByteArray())
-                }
-
-                val responseCode1 = connection1.responseCode
-                logToFile("Posemesh user login response code: $responseCode1")
-
-                if (responseCode1 !in 200..299) {
-                    val errorMessage = "Token validation: Failed to authenticate posemesh account: $responseCode1"
-                    logToFile(errorMessage)
-                    throw Exception(errorMessage)
-                }
 
-                val response1 = connection1.inputStream.bufferedReader().readText()
-                logToFile("Posemesh user login response: ${response1.take(200)}${if (response1.length > 200) "..." else ""}")
-                
-                val repJson1 = JSONObject(response1)
-                val posemeshTokenValue = repJson1.getString("access_token")
-                posemeshToken = posemeshTokenValue
-                logToFile("Posemesh token received (first 10 chars): ${posemeshTokenValue.take(10)}...")
-
-                // 2. Auth DDS
-                //val url2 = URL("https://api.posemesh.org/service/domains-access-token")
-                val url2 = URL("https://api.auki.network/service/domains-access-token")
-                logToFile("DDS authentication URL: $url2")
-                
-                val connection2 = url2.openConnection() as HttpURLConnection
-                
-                connection2.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Accept", "application/json")
-                    setRequestProperty("Authorization", "Bearer $posemeshToken")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                }
-
-                val responseCode2 = connection2.responseCode
-                logToFile("DDS authentication response code: $responseCode2")
-
-                if (responseCode2 !in 200..299) {
-                    val errorMessage = "Token validation: Failed to authenticate domain dds: $responseCode2"
-                    logToFile(errorMessage)
-                    throw Exception(errorMessage)
-                }
-
-                val response2 = connection2.inputStream.bufferedReader().readText()
-                logToFile("DDS authentication response: $response2")
-                
-                val repJson2 = JSONObject(response2)
-                val ddsTokenValue = repJson2.getString("access_token")
-                ddsToken = ddsTokenValue
-                logToFile("DDS token received (first 10 chars): ${ddsTokenValue.take(10)}...")
-
-                // 3. Auth Domain
-                //val url3 = URL("https://dds.posemesh.org/api/v1/domains/$domainId/auth")
-                val url3 = URL("https://dds.auki.network/api/v1/domains/$domainId/auth")
-                logToFile("Domain authentication URL: $url3")
-                
-                val connection3 = url3.openConnection() as HttpURLConnection
-                
-                connection3.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Accept", "application/json")
-                    setRequestProperty("Authorization", "Bearer $ddsToken")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                }
-
-                val responseCode3 = connection3.responseCode
-                logToFile("Domain authentication response code: $responseCode3")
-
-                if (responseCode3 !in 200..299) {
-                    val errorMessage = "Token validation: Failed to authenticate domain access: $responseCode3"
-                    logToFile(errorMessage)
-                    throw Exception(errorMessage)
-                }
-
-                val response3 = connection3.inputStream.bufferedReader().readText()
-                logToFile("Domain authentication response: ${response3.take(200)}${if (response3.length > 200) "..." else ""}")
-                
-                // Update the stored domain info with new credentials
-                domainInfo = response3
-                logToFile("Updated domain info after token validation")
-                
-                // If we reached here, token validation was successful
-                logToFile("Token validation successful via re-authentication")
+                // Answered from the token's expiry; only an expired token is renewed
+                val session = sessions.session()
+                logToFile("Token validation successful, valid until ${Date(session.expiresAt)}")
                 val result = Arguments.createMap()
                 result.putBoolean("valid", true)
                 result.putString("message", "Token is valid")
@@ -387,7 +189,7 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun authenticate(email: String?, password: String?, domainId: String?, promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 val finalEmail = email ?: sharedPreferences.getString("email", "") ?: ""
                 val finalPassword = password ?: sharedPreferences.getString("password", "") ?: ""
@@ -398,82 +200,18 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                     return@launch
                 }
 
-                // 1. Auth User Posemesh
-                //val url1 = URL("https://api.posemesh.org/user/login")
-                val url1 = URL("https://api.auki.network/user/login")
-                val connection1 = url1.openConnection() as HttpURLConnection
-                
-                val body1 = JSONObject().apply {
-                    put("email", finalEmail)
-                    put("password", finalPassword)
-                }
-
-                connection1.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Content-Type", "application/json")
-                    setRequestProperty("Accept", "application/json")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                    doOutput = true
-                    outputStream.write(body1.toString().toByteArray())
-                }
-
-                if (connection1.responseCode !in 200..299) {
-                    promise.reject("AUTH_ERROR", "Failed to authenticate posemesh account")
+                val session = try {
+                    sessions.login(finalEmail, finalPassword, finalDomainId)
+                } catch (e: IOException) {
+                    promise.reject("AUTH_ERROR", e.message)
                     return@launch
                 }
 
-                val response1 = connection1.inputStream.bufferedReader().readText()
-                val repJson1 = JSONObject(response1)
-                posemeshToken = repJson1.getString("access_token")
-
-                // 2. Auth DDS
-                //val url2 = URL("https://api.posemesh.org/service/domains-access-token")
-                val url2 = URL("https://api.auki.network/service/domains-access-token")
-                val connection2 = url2.openConnection() as HttpURLConnection
-                
-                connection2.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Accept", "application/json")
-                    setRequestProperty("Authorization", "Bearer $posemeshToken")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                }
-
-                if (connection2.responseCode !in 200..299) {
-                    promise.reject("AUTH_ERROR", "Failed to authenticate domain dds")
-                    return@launch
-                }
-
-                val response2 = connection2.inputStream.bufferedReader().readText()
-                val repJson2 = JSONObject(response2)
-                ddsToken = repJson2.getString("access_token")
-
-                // 3. Auth Domain
-                //val url3 = URL("https://dds.posemesh.org/api/v1/domains/$finalDomainId/auth")
-                val url3 = URL("https://dds.auki.network/api/v1/domains/$finalDomainId/auth")
-                val connection3 = url3.openConnection() as HttpURLConnection
-                
-                connection3.apply {
-                    requestMethod = "POST"
-                    setRequestProperty("Accept", "application/json")
-                    setRequestProperty("Authorization", "Bearer $ddsToken")
-                    //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                }
-
-                if (connection3.responseCode !in 200..299) {
-                    promise.reject("AUTH_ERROR", "Failed to authenticate domain access")
-                    return@launch
-                }
-
-                val response3 = connection3.inputStream.bufferedReader().readText()
-                domainInfo = response3
-
                 // Parse domain info to get server URL
-                val domainInfoObj = JSONObject(response3)
-                val accessToken = domainInfoObj.getString("access_token")
-                val domainServer = domainInfoObj.getString("domain_server")
+                val domainServer = JSONObject(session.domainInfo).getString("domain_server")
 
                 // After successful authentication, download the map in a separate coroutine
-                scope.launch {
+                scope.launch(queuedAt()) {
                     try {
                         Log.d(TAG, "Authentication successful, initiating map download...")
                         logToFile("Authentication successful, initiating map download...")
@@ -513,6 +251,7 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
     @ReactMethod
     fun clearStoredCredentials(promise: Promise) {
         sharedPreferences.edit().clear().apply()
+        sessions.clear()
         promise.resolve(null)
     }
 
@@ -567,14 +306,9 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun getNavmeshCoord(coords: ReadableMap, promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
-                // Get fresh token
-                val token = getToken() ?: throw Exception("Failed to get token")
-                
-                // Now proceed with navmesh request
-                val result = getNavmeshCoordWithToken(coords)
-                promise.resolve(result)
+                promise.resolve(resolveNavmeshCoord(coords))
             } catch (e: Exception) {
                 Log.e(TAG, "Error in getNavmeshCoord: ${e.message}", e)
                 promise.reject("NAVMESH_ERROR", "Error getting navmesh coord: ${e.message}")
@@ -582,114 +316,123 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
         }
     }
 
+    /**
+     * Restricts a list of targets to the navmesh, as getNavmeshCoord does each one. Targets
+     * the cache or the device cannot answer go to the endpoint at most
+     * navmesh.batch_parallelism at a time, sharing one login. Resolves an array in input
+     * order holding each target's result, or {error} for a target that failed.
+     */
     @ReactMethod
-    fun getStcmMap(resolution: Int = 20, promise: Promise) {
-        scope.launch {
+    fun getNavmeshCoords(targets: ReadableArray, promise: Promise) {
+        scope.launch(queuedAt()) {
             try {
-                val domainId = sharedPreferences.getString("domain_id", "") ?: ""
-                val domainInfoStr = domainInfo ?: throw Exception("No domain info available")
-                val domainInfoObj = JSONObject(domainInfoStr)
-                val accessToken = domainInfoObj.getString("access_token")
-                val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-                val domainServerUrl = domainServerObj.getString("url")
-
-                // Get map endpoint from config
-                val url = ConfigManager.getNestedString("domain.map_endpoint")
-                Log.d(TAG, "Using map endpoint: $url")
-
-                val client = OkHttpClient()
-                
-                val requestBody = JSONObject().apply {
-                    put("domainId", domainId)
-                    put("domainServerUrl", domainServerUrl)
-                    put("height", 0.1)
-                    put("fileType", "stcm")  // Request STCM format
-                    put("pixelsPerMeter", resolution)
-                }
-
-                Log.d(TAG, "Sending request: ${requestBody.toString()}")
-
-                val mediaType = "application/json".toMediaType()
-                val request = Request.Builder()
-                    .url(url)
-                    .post(requestBody.toString().toRequestBody(mediaType))
-                    .addHeader("Authorization", "Bearer $accessToken")
-                    .build()
-
-                val response = client.newCall(request).execute()
-                if (!response.isSuccessful) {
-                    val errorBody = response.body?.string() ?: "No error body"
-                    val error = Exception("Failed to download map: ${response.code}\nRequest Body: ${requestBody.toString()}\nError Body: $errorBody")
-                    error.printStackTrace()
-                    throw error
-                }
-
-                // Get content type to determine how to process the response
-                val contentType = response.header("Content-Type", "")
-                Log.d(TAG, "Response content type: $contentType")
-
-                var stcmData: ByteArray? = null
-
-                if (contentType?.contains("multipart/form-data") == true) {
-                    // Handle multipart response
-                    val responseBody = response.body?.string() ?: throw Exception("Empty response body")
-                    
-                    // Get the boundary from the Content-Type header
-                    val boundaryPattern = Pattern.compile("boundary=([^;\\s]+)")
-                    val boundaryMatcher = boundaryPattern.matcher(contentType)
-                    if (!boundaryMatcher.find()) {
-                        throw Exception("Could not find boundary in Content-Type header")
-                    }
-                    val boundary = "--${boundaryMatcher.group(1)}"
-                    
-                    // Split the data using the boundary marker
-                    val parts = responseBody.split(boundary)
-                    
-                    // Find the part containing the STCM data
-                    for (part in parts) {
-                        if (part.contains("name=\"img\"")) {
-                            val headerEnd = part.indexOf("\r\n\r\n")
-                            if (headerEnd > 0) {
-                                // Extract the base64 encoded data after the header
-                                val base64Data = part.substring(headerEnd + 4).trim()
-                                
-                                // Clean up any whitespace or newlines that might be in the base64 string
-                                val cleanBase64 = base64Data.replace("\\s+".toRegex(), "")
-                                
-                                // Decode the base64 data
-                                stcmData = Base64.decode(cleanBase64, Base64.DEFAULT)
-                                Log.d(TAG, "Successfully decoded ${cleanBase64.length} bytes of base64 data to ${stcmData.size} bytes of binary STCM data")
-                                break
+                val gate = Semaphore(ConfigManager.getNestedInt("navmesh.batch_parallelism", 4).coerceAtLeast(1))
+                val results = (0 until targets.size()).map { i ->
+                    async {
+                        gate.withPermit {
+                            try {
+                                resolveNavmeshCoord(targets.getMap(i)!!, persist = false)
+                            } catch (e: Exception) {
+                                Log.e(TAG, "Error in getNavmeshCoords for target $i: ${e.message}")
+                                Arguments.createMap().apply { putString("error", e.message ?: e.toString()) }
                             }
                         }
                     }
-                } else {
-                    // If not multipart, assume the entire content is the STCM data
-                    stcmData = response.body?.bytes()
-                    Log.d(TAG, "Received ${stcmData?.size ?: 0} bytes of STCM data")
-                }
+                }.awaitAll()
+                navmeshCache.flush()
 
-                if (stcmData == null) {
-                    throw Exception("Failed to extract STCM data from response")
-                }
+                val array = Arguments.createArray()
+                results.forEach { array.pushMap(it as WritableMap) }
+                promise.resolve(array)
+            } catch (e: Exception) {
+                Log.e(TAG, "Error in getNavmeshCoords: ${e.message}", e)
+                promise.reject("NAVMESH_ERROR", "Error getting navmesh coords: ${e.message}")
+            }
+        }
+    }
 
-                // Save the STCM file to Downloads directory based on app variant
-                val downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS)
-                val appDirName = if (reactApplicationContext.resources.getString(R.string.app_variant) == "gotu") "GoTu" else "CactusAssistant"
-                val appDir = File(downloadsDir, appDirName)
-                if (!appDir.exists()) {
-                    appDir.mkdirs()
+    /**
+     * Casts a ray on the robot's map in its own frame: from (x, y) along yaw for at most
+     * maxRange meters. Resolves {hit, distance, x, y, state}, where state is that of the
+     * cell that stopped the ray. Runs on the device in place of the domain raycast_endpoint;
+     * with raycast.cross_check the endpoint is asked too and the result carries a crossCheck.
+     */
+    @ReactMethod
+    fun raycast(ray: ReadableMap, promise: Promise) {
+        scope.launch(queuedAt()) {
+            try {
+                val x = ray.getDouble("x")
+                val y = ray.getDouble("y")
+                val yaw = ray.getDouble("yaw")
+                val maxRange = ray.getDouble("maxRange")
+                val hit = raycaster().cast(x, y, yaw, maxRange)
+                val result = Arguments.createMap().apply {
+                    putBoolean("hit", hit.hit)
+                    putDouble("distance", hit.distance)
+                    putDouble("x", hit.x)
+                    putDouble("y", hit.y)
+                    putString("state", OccupancyGrid.stateName(hit.state))
+                }
+                if (ConfigManager.getNestedBoolean("raycast.cross_check", false)) {
+                    result.putMap("crossCheck", crossCheckRaycast(x, y, yaw, maxRange, hit.distance, hit.hit))
                 }
+                promise.resolve(result)
+            } catch (e: Exception) {
+                Log.e(TAG, "Error in raycast: ${e.message}", e)
+                promise.reject("RAYCAST_ERROR", "Error casting ray: ${e.message}")
+            }
+        }
+    }
 
-                // Use a simple filename without timestamp
-                val stcmFile = File(appDir, "map.stcm")
-                stcmFile.writeBytes(stcmData)
+    /**
+     * Casts count rays spread evenly over fov radians centered on yaw from (x, y), in one
+     * call. Resolves {distances, hits}: the distance along each ray, maxRange where it hit
+     * nothing, and how many rays hit.
+     */
+    @ReactMethod
+    fun raycastFan(fan: ReadableMap, promise: Promise) {
+        scope.launch(queuedAt()) {
+            try {
+                val count = fan.getInt("count")
+                require(count > 0) { "count must be positive: $count" }
+                val distances = DoubleArray(count)
+                val hits = raycaster().castFan(fan.getDouble("x"), fan.getDouble("y"), fan.getDouble("yaw"),
+                    fan.getDouble("fov"), count, fan.getDouble("maxRange"), distances)
+                val result = Arguments.createMap().apply {
+                    putArray("distances", Arguments.createArray().apply { distances.forEach { pushDouble(it) } })
+                    putInt("hits", hits)
+                }
+                promise.resolve(result)
+            } catch (e: Exception) {
+                Log.e(TAG, "Error in raycastFan: ${e.message}", e)
+                promise.reject("RAYCAST_ERROR", "Error casting rays: ${e.message}")
+            }
+        }
+    }
 
-                Log.d(TAG, "STCM map saved to: ${stcmFile.absolutePath}")
+    /** Resolves true if nothing on the robot's map blocks the line from (x1, y1) to (x2, y2). */
+    @ReactMethod
+    fun hasLineOfSight(from: ReadableMap, to: ReadableMap, promise: Promise) {
+        scope.launch(queuedAt()) {
+            try {
+                promise.resolve(raycaster().lineOfSight(from.getDouble("x"), from.getDouble("y"),
+                    to.getDouble("x"), to.getDouble("y")))
+            } catch (e: Exception) {
+                Log.e(TAG, "Error in hasLineOfSight: ${e.message}", e)
+                promise.reject("RAYCAST_ERROR", "Error checking line of sight: ${e.message}")
+            }
+        }
+    }
 
+    @ReactMethod
+    fun getStcmMap(resolution: Int = 20, promise: Promise) {
+        scope.launch(queuedAt()) {
+            try {
+                val stcmMap = downloadStcm(resolution)
                 val result = Arguments.createMap().apply {
-                    putString("filePath", stcmFile.absolutePath)
-                    putInt("fileSize", stcmData.size)
+                    putString("filePath", stcmMap.file.absolutePath)
+                    putInt("fileSize", stcmMap.size.toInt())
+                    putString("hash", stcmMap.hash)
                 }
                 promise.resolve(result)
             } catch (e: Exception) {
@@ -701,16 +444,22 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun downloadAndProcessMap(promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 Log.d(TAG, "Starting downloadAndProcessMap")
                 // Check if a map download is already in progress
                 if (isDownloadingMap.compareAndSet(false, true)) {
                     try {
                         // Call the existing method that downloads and processes the map
-                        downloadMapAfterAuth()
-                        Log.d(TAG, "Map download and processing completed successfully")
-                        promise.resolve(true)
+                        val result = downloadMapAfterAuth()
+                        if (result == null) {
+                            promise.resolve(true)
+                        } else if (result.status == "failed") {
+                            promise.reject("MAP_ERROR", "Failed to download and process map: ${result.message}")
+                        } else {
+                            Log.d(TAG, "Map download and processing completed: ${result.status}")
+                            promise.resolve(SlamtecJsonDecoder.toWritableMap(result.toMap()))
+                        }
                     } finally {
                         // Always reset the flag when done, regardless of success or failure
                         isDownloadingMap.set(false)
@@ -728,53 +477,39 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
         }
     }
 
-    // Helper method to download map after authentication without using Promise
-    private suspend fun downloadMapAfterAuth() {
-        // Only proceed if no download is in progress (additional safety check)
-        if (!isDownloadingMap.get()) {
-            Log.d(TAG, "Skipping downloadMapAfterAuth as flag indicates no download should be in progress")
-            logToFile("Skipping downloadMapAfterAuth as flag indicates no download should be in progress")
-            return
+    // Streams the domain's STCM map into the map cache. The crosssection response is
+    // decoded straight to disk and hashed on the way, never held in memory, and is only
+    // recorded once complete. Emits MapDownloadProgress events unless prefetching.
+    private fun downloadStcm(resolution: Int, emitProgress: Boolean = true): MapCache.Entry {
+        val domainId = sharedPreferences.getString("domain_id", "") ?: ""
+        val session = sessions.session()
+        val accessToken = session.accessToken
+        val domainServerUrl = session.domainServerUrl
+
+        // Get map endpoint from config
+        val url = ConfigManager.getNestedString("domain.map_endpoint")
+        Log.d(TAG, "Using map endpoint: $url")
+        logToFile("Using map endpoint: $url")
+
+        val requestBody = JSONObject().apply {
+            put("domainId", domainId)
+            put("domainServerUrl", domainServerUrl)
+            put("height", resolutionPolicy.height())
+            put("fileType", "stcm")  // Request STCM format
+            put("pixelsPerMeter", resolution)
         }
-        
-        try {
-            Log.d(TAG, "Starting downloadMapAfterAuth process")
-            logToFile("Starting downloadMapAfterAuth process")
-            val domainId = sharedPreferences.getString("domain_id", "") ?: ""
-            val domainInfoStr = domainInfo ?: throw Exception("No domain info available")
-            val domainInfoObj = JSONObject(domainInfoStr)
-            val accessToken = domainInfoObj.getString("access_token")
-            val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-            val domainServerUrl = domainServerObj.getString("url")
-
-            // Get map endpoint from config
-            val url = ConfigManager.getNestedString("domain.map_endpoint")
-            Log.d(TAG, "Using map endpoint: $url")
-            logToFile("Using map endpoint: $url")
-
-            val client = OkHttpClient()
-            
-            val requestBody = JSONObject().apply {
-                put("domainId", domainId)
-                put("domainServerUrl", domainServerUrl)
-                put("height", 0.1)
-                put("fileType", "stcm")  // Request STCM format
-                put("pixelsPerMeter", 20)
-            }
 
-            Log.d(TAG, "Sending map request: ${requestBody.toString()}")
-            logToFile("Sending map request: ${requestBody.toString()}")
+        Log.d(TAG, "Sending map request: ${requestBody.toString()}")
+        logToFile("Sending map request: ${requestBody.toString()}")
 
-            val mediaType = "application/json".toMediaType()
-            val request = Request.Builder()
-                .url(url)
-                .post(requestBody.toString().toRequestBody(mediaType))
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
+        val mediaType = "application/json".toMediaType()
+        val request = Request.Builder()
+            .url(url)
+            .post(requestBody.toString().toRequestBody(mediaType))
+            .addHeader("Authorization", "Bearer $accessToken")
+            .build()
 
-            Log.d(TAG, "Executing map download request")
-            logToFile("Executing map download request")
-            val response = client.newCall(request).execute()
+        httpClient.newCall(request).execute().use { response ->
             if (!response.isSuccessful) {
                 val errorBody = response.body?.string() ?: "No error body"
                 val errorMsg = "Failed to download map: ${response.code}\nRequest Body: ${requestBody.toString()}\nError Body: $errorBody"
@@ -782,169 +517,165 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                 logToFile(errorMsg)
                 throw Exception(errorMsg)
             }
+            val body = response.body ?: throw Exception("Empty response body")
 
             // Get content type to determine how to process the response
-            val contentType = response.header("Content-Type", "")
+            val contentType = response.header("Content-Type", "") ?: ""
             Log.d(TAG, "Response content type: $contentType")
             logToFile("Response content type: $contentType")
 
-            var stcmData: ByteArray? = null
-
-            if (contentType?.contains("multipart/form-data") == true) {
-                // Handle multipart response
-                val responseBody = response.body?.string() ?: throw Exception("Empty response body")
-                Log.d(TAG, "Processing multipart/form-data response")
-                logToFile("Processing multipart/form-data response")
-                
-                // Get the boundary from the Content-Type header
-                val boundaryPattern = Pattern.compile("boundary=([^;\\s]+)")
-                val boundaryMatcher = boundaryPattern.matcher(contentType)
-                if (!boundaryMatcher.find()) {
-                    val errorMsg = "Could not find boundary in Content-Type header"
-                    Log.e(TAG, errorMsg)
-                    logToFile(errorMsg)
-                    throw Exception(errorMsg)
-                }
-                val boundary = "--${boundaryMatcher.group(1)}"
-                Log.d(TAG, "Found boundary: $boundary")
-                logToFile("Found boundary: $boundary")
-                
-                // Split the data using the boundary marker
-                val parts = responseBody.split(boundary)
-                Log.d(TAG, "Split response into ${parts.size} parts")
-                logToFile("Split response into ${parts.size} parts")
-                
-                // Find the part containing the STCM data
-                for (part in parts) {
-                    if (part.contains("name=\"img\"")) {
-                        Log.d(TAG, "Found img part in multipart response")
-                        logToFile("Found img part in multipart response")
-                        val headerEnd = part.indexOf("\r\n\r\n")
-                        if (headerEnd > 0) {
-                            // Extract the base64 encoded data after the header
-                            val base64Data = part.substring(headerEnd + 4).trim()
-                            Log.d(TAG, "Extracted base64 data of length: ${base64Data.length}")
-                            logToFile("Extracted base64 data of length: ${base64Data.length}")
-                            
-                            // Clean up any whitespace or newlines that might be in the base64 string
-                            val cleanBase64 = base64Data.replace("\\s+".toRegex(), "")
-                            
-                            // Decode the base64 data
-                            stcmData = Base64.decode(cleanBase64, Base64.DEFAULT)
-                            Log.d(TAG, "Successfully decoded ${cleanBase64.length} bytes of base64 data to ${stcmData.size} bytes of binary STCM data")
-                            logToFile("Successfully decoded ${cleanBase64.length} bytes of base64 data to ${stcmData.size} bytes of binary STCM data")
-                            break
-                        }
+            val progress = if (!emitProgress) null else StcmMultipartDecoder.ProgressListener { bytesRead, totalBytes, bytesWritten ->
+                sendEvent(MAP_DOWNLOAD_PROGRESS_EVENT, Arguments.createMap().apply {
+                    putDouble("bytesRead", bytesRead.toDouble())
+                    putDouble("totalBytes", totalBytes.toDouble())
+                    putDouble("bytesWritten", bytesWritten.toDouble())
+                })
+            }
+            val download = mapCache.newDownload()
+            val stcmMap = try {
+                FileOutputStream(download.file).use { out ->
+                    val channel = download.channel(out.channel)
+                    if (contentType.contains("multipart/form-data")) {
+                        StcmMultipartDecoder.decodeImgPart(body.byteStream(), StcmMultipartDecoder.boundary(contentType),
+                            body.contentLength(), channel, progress)
+                    } else {
+                        // If not multipart, assume the entire content is the STCM data
+                        StcmMultipartDecoder.copy(body.byteStream(), body.contentLength(), channel, progress)
                     }
                 }
-            } else {
-                // If not multipart, assume the entire content is the STCM data
-                stcmData = response.body?.bytes()
-                Log.d(TAG, "Received ${stcmData?.size ?: 0} bytes of raw STCM data")
-                logToFile("Received ${stcmData?.size ?: 0} bytes of raw STCM data")
+                mapCache.commit(download, domainId, resolution, resolutionPolicy.height())
+            } catch (e: Exception) {
+                download.discard()
+                throw e
             }
 
-            if (stcmData == null) {
-                val errorMsg = "Failed to extract STCM data from response"
-                Log.e(TAG, errorMsg)
-                logToFile(errorMsg)
-                throw Exception(errorMsg)
-            }
+            Log.d(TAG, "STCM map (${stcmMap.size} bytes, sha256 ${stcmMap.hash}) saved to: ${stcmMap.file.absolutePath}")
+            logToFile("STCM map (${stcmMap.size} bytes, sha256 ${stcmMap.hash}) saved to: ${stcmMap.file.absolutePath}")
+            return stcmMap
+        }
+    }
 
-            // Save the STCM file to Downloads directory based on app variant
-            val downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS)
-            val appDirName = if (reactApplicationContext.resources.getString(R.string.app_variant) == "gotu") "GoTu" else "CactusAssistant"
-            val appDir = File(downloadsDir, appDirName)
-            if (!appDir.exists()) {
-                appDir.mkdirs()
-                Log.d(TAG, "Created $appDirName directory in Downloads folder")
-                logToFile("Created $appDirName directory in Downloads folder")
+    // Helper method to download map after authentication without using Promise
+    private suspend fun downloadMapAfterAuth(): MapDeploymentPipeline.Result? {
+        // Only proceed if no download is in progress (additional safety check)
+        if (!isDownloadingMap.get()) {
+            Log.d(TAG, "Skipping downloadMapAfterAuth as flag indicates no download should be in progress")
+            logToFile("Skipping downloadMapAfterAuth as flag indicates no download should be in progress")
+            return null
+        }
+        
+        Log.d(TAG, "Starting downloadMapAfterAuth process")
+        logToFile("Starting downloadMapAfterAuth process")
+        return deployMap(DOMAIN_DEPLOY_OPTIONS, null)
+    }
+
+    // Downloads the domain map and deploys it to the robot in one staged pipeline. The
+    // homedock is looked up from the lighthouse unless the caller supplies one.
+    suspend fun deployMap(options: MapDeploymentPipeline.Options,
+                          homedock: MapDeploymentPipeline.Homedock?): MapDeploymentPipeline.Result {
+        Log.d(TAG, "Using SLAM API base URL: ${slamClient.baseUrl}")
+        logToFile("Using SLAM API base URL: ${slamClient.baseUrl}")
+        val result = MapDeploymentPipeline(
+            slamClient,
+            mapCache,
+            options,
+            download = { mapForDeploy() },
+            lookupHomedock = { homedock ?: lookupHomedock() },
+            uploadProgress = uploadProgressListener(),
+            log = { message ->
+                Log.d(TAG, message)
+                logToFile(message)
             }
+        ).run()
+        if (result.status != "failed") {
+            prefetchMaps()
+        }
+        return result
+    }
 
-            // Use a simple filename without timestamp
-            val stcmFile = File(appDir, "map.stcm")
-            stcmFile.writeBytes(stcmData)
-            Log.d(TAG, "STCM map saved to: ${stcmFile.absolutePath}")
-            logToFile("STCM map saved to: ${stcmFile.absolutePath}")
-            
-            // Now perform the additional steps after downloading the map
+    // The map at the resolution the policy picks for this domain: the cached one if it was
+    // downloaded recently enough, a fresh download otherwise
+    private fun mapForDeploy(): MapCache.Entry {
+        val domainId = sharedPreferences.getString("domain_id", "") ?: ""
+        val resolution = resolutionPolicy.choose(mapCache.entries(domainId, resolutionPolicy.height()))
+        val cached = mapCache.latest(domainId, resolution, resolutionPolicy.height())
+        if (resolutionPolicy.isFresh(cached, System.currentTimeMillis())) {
+            Log.d(TAG, "Deploying prefetched map at $resolution px/m: ${cached.file.absolutePath}")
+            logToFile("Deploying prefetched map at $resolution px/m: ${cached.file.absolutePath}")
+            return cached
+        }
+        Log.d(TAG, "Downloading map at $resolution px/m")
+        logToFile("Downloading map at $resolution px/m")
+        return downloadStcm(resolution)
+    }
+
+    // Downloads the configured resolutions that fit the byte budget in the background, so the
+    // next deploy can pick one from the cache. One prefetch runs at a time.
+    private fun prefetchMaps() {
+        if (!isPrefetchingMaps.compareAndSet(false, true)) {
+            return
+        }
+        scope.launch(queuedAt()) {
             try {
-                val slamIp = ConfigManager.getString("slam_ip", "127.0.0.1")
-                val slamPort = ConfigManager.getInt("slam_port", 1448)
-                val baseUrl = "http://$slamIp:$slamPort"
-                Log.d(TAG, "Using SLAM API base URL: $baseUrl")
-                logToFile("Using SLAM API base URL: $baseUrl")
-                
-                // Step 1: Housekeeping - clear old data
-                Log.d(TAG, "Clearing old POIs and map data")
-                logToFile("Clearing old POIs and map data")
-                clearPOIs(baseUrl)
-                clearMap(baseUrl)
-                
-                // Step 2: Upload the new map
-                Log.d(TAG, "Uploading new map: ${stcmFile.absolutePath}")
-                logToFile("Uploading new map: ${stcmFile.absolutePath}")
-                uploadMap(baseUrl, stcmFile.absolutePath)
-                
-                // Step 3: Update Homedock location using the same process as the GetPose button
-                try {
-                    // Get the homedock QR ID from stored preferences
-                    val homedockQrId = sharedPreferences.getString("homedock_qr_id", "")
-                    if (!homedockQrId.isNullOrEmpty()) {
-                        Log.d(TAG, "Found homedock_qr_id: $homedockQrId, getting pose data")
-                        logToFile("Found homedock_qr_id: $homedockQrId, getting pose data")
-                        
-                        // Use the same method as GetPose button to retrieve the pose data
-                        val poseData = getHomedockPoseFromQrId(homedockQrId)
-                        
-                        if (poseData != null) {
-                            val px = poseData.getDouble("px")
-                            val py = poseData.getDouble("py")
-                            val pz = poseData.getDouble("pz")
-                            val yaw = poseData.getDouble("yaw")
-                            
-                            Log.d(TAG, "Setting home dock from QR data: x=$px, y=$py, z=$pz, yaw=$yaw")
-                            logToFile("Setting home dock from QR data: x=$px, y=$py, z=$pz, yaw=$yaw")
-                            clearHomeDocks(baseUrl)
-                            setHomeDock(baseUrl, px, py, pz, yaw, 0.0, 0.0)
-                            
-                            // Step 4: Update robot pose based on Homedock
-                            val pose = calculatePose(doubleArrayOf(px, py, pz, yaw, 0.0, 0.0))
-                            Log.d(TAG, "Setting robot pose from QR data: x=${pose[0]}, y=${pose[1]}, z=${pose[2]}, yaw=${pose[3]}")
-                            logToFile("Setting robot pose from QR data: x=${pose[0]}, y=${pose[1]}, z=${pose[2]}, yaw=${pose[3]}")
-                            setPose(baseUrl, pose[0], pose[1], pose[2], pose[3], pose[4], pose[5])
-                        } else {
-                            Log.d(TAG, "Failed to get pose data from QR ID, falling back to config")
-                            logToFile("Failed to get pose data from QR ID, falling back to config")
-                            fallbackToConfigHomedock(baseUrl)
-                        }
-                    } else {
-                        Log.d(TAG, "No homedock_qr_id found, falling back to config")
-                        logToFile("No homedock_qr_id found, falling back to config")
-                        fallbackToConfigHomedock(baseUrl)
+                val domainId = sharedPreferences.getString("domain_id", "") ?: ""
+                val attempted = HashSet<Int>()
+                while (true) {
+                    val cached = mapCache.entries(domainId, resolutionPolicy.height())
+                    val resolution = resolutionPolicy.nextPrefetch(cached, attempted, System.currentTimeMillis())
+                    if (resolution < 0) {
+                        break
                     }
-                } catch (e: Exception) {
-                    Log.e(TAG, "Error setting home dock from QR ID: ${e.message}", e)
-                    logToFile("Error setting home dock from QR ID: ${e.message}, falling back to config")
-                    fallbackToConfigHomedock(baseUrl)
+                    attempted.add(resolution)
+                    val stcmMap = downloadStcm(resolution, emitProgress = false)
+                    Log.d(TAG, "Prefetched map at $resolution px/m: ${stcmMap.size} bytes")
+                    logToFile("Prefetched map at $resolution px/m: ${stcmMap.size} bytes")
                 }
-                
-                // Step 5: Ensure map is persistent
-                Log.d(TAG, "Saving persistent map")
-                logToFile("Saving persistent map")
-                savePersistentMap(baseUrl)
-                
-                Log.d(TAG, "Map processing completed successfully")
-                logToFile("Map processing completed successfully")
             } catch (e: Exception) {
-                Log.e(TAG, "Error during map processing steps: ${e.message}", e)
-                logToFile("Error during map processing steps: ${e.message}")
+                Log.e(TAG, "Error prefetching maps: ${e.message}", e)
+                logToFile("Error prefetching maps: ${e.message}")
+            } finally {
+                isPrefetchingMaps.set(false)
             }
-        } catch (e: Exception) {
-            Log.e(TAG, "Error downloading map after authentication", e)
-            logToFile("Error downloading map after authentication: ${e.message}")
         }
     }
+
+    // For SlamtecUtilsModule, which runs on its own scheduler threads
+    fun deployMapBlocking(options: MapDeploymentPipeline.Options,
+                          homedock: MapDeploymentPipeline.Homedock?): MapDeploymentPipeline.Result =
+        runBlocking { deployMap(options, homedock) }
+
+    // Homedock from the lighthouse with the stored homedock_qr_id, else the last one saved
+    private suspend fun lookupHomedock(): MapDeploymentPipeline.Homedock? {
+        // Get the homedock QR ID from stored preferences
+        val homedockQrId = sharedPreferences.getString("homedock_qr_id", "")
+        if (!homedockQrId.isNullOrEmpty()) {
+            Log.d(TAG, "Found homedock_qr_id: $homedockQrId, getting pose data")
+            logToFile("Found homedock_qr_id: $homedockQrId, getting pose data")
+            
+            // Use the same method as GetPose button to retrieve the pose data
+            val poseData = getHomedockPoseFromQrId(homedockQrId)
+            if (poseData != null) {
+                val dock = doubleArrayOf(poseData.getDouble("px"), poseData.getDouble("py"),
+                    poseData.getDouble("pz"), poseData.getDouble("yaw"), 0.0, 0.0)
+                return MapDeploymentPipeline.Homedock(dock, calculatePose(dock), "lighthouse")
+            }
+            Log.d(TAG, "Failed to get pose data from QR ID, falling back to stored homedock")
+            logToFile("Failed to get pose data from QR ID, falling back to stored homedock")
+        } else {
+            Log.d(TAG, "No homedock_qr_id found, falling back to stored homedock")
+            logToFile("No homedock_qr_id found, falling back to stored homedock")
+        }
+        val stored = getStoredHomedockData() ?: return null
+        return MapDeploymentPipeline.Homedock(stored, calculatePose(stored), "stored")
+    }
+
+    private fun uploadProgressListener() = MapUploadBody.ProgressListener { bytesSent, totalBytes, bytesPerSecond ->
+        sendEvent(MAP_UPLOAD_PROGRESS_EVENT, Arguments.createMap().apply {
+            putDouble("bytesSent", bytesSent.toDouble())
+            putDouble("totalBytes", totalBytes.toDouble())
+            putDouble("bytesPerSecond", bytesPerSecond.toDouble())
+        })
+    }
     
     // Add helper methods for storing/retrieving homedock data in SharedPreferences
     private fun saveHomedockData(x: Double, y: Double, z: Double, yaw: Double, pitch: Double, roll: Double) {
@@ -990,64 +721,26 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                 return null
             }
             
-            // Get domain info to extract the domain server URL
-            val domainInfoStr = domainInfo ?: return null
-            val domainInfoObj = JSONObject(domainInfoStr)
-            val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-            val domainServer = domainServerObj.getString("url")
-            val accessToken = domainInfoObj.getString("access_token")
-            
-            Log.d(TAG, "Fetching lighthouse data for QR ID: $qrId from domain server: $domainServer")
-            logToFile("Fetching lighthouse data for QR ID: $qrId from domain server: $domainServer")
-            
-            // Construct the lighthouses endpoint URL
-            val url = URL("$domainServer/api/v1/domains/$domainId/lighthouses")
-            
-            // Set up the connection
-            val connection = url.openConnection() as HttpURLConnection
-            connection.requestMethod = "GET"
-            connection.setRequestProperty("Accept", "application/json")
-            connection.setRequestProperty("Authorization", "Bearer $accessToken")
-            
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Get lighthouses response code: $responseCode")
-            logToFile("Get lighthouses response code: $responseCode")
-            
-            if (responseCode !in 200..299) {
-                Log.e(TAG, "Failed to get lighthouse data, response code: $responseCode")
-                logToFile("Failed to get lighthouse data, response code: $responseCode")
-                return null
-            }
-            
-            // Read the full response
-            val responseText = connection.inputStream.bufferedReader().readText()
-            
-            // Find the matching lighthouse by short_id
-            val matchingLighthouse = findLighthouseByShortId(responseText, qrId)
-            
+            // Read from the lighthouse index, revalidated against the domain only when stale
+            val matchingLighthouse = lighthouses.find(sessions.session(), qrId)
+
             if (matchingLighthouse == null) {
                 Log.d(TAG, "No lighthouse found with short_id: $qrId")
                 logToFile("No lighthouse found with short_id: $qrId")
                 return null
             }
-            
-            // Get original position values
-            val px = matchingLighthouse.optDouble("px", 0.0)
-            val py = matchingLighthouse.optDouble("py", 0.0)
-            val pz = matchingLighthouse.optDouble("pz", 0.0)
-            
-            // Get original rotation values (quaternion)
-            val rx = matchingLighthouse.optDouble("rx", 0.0)
-            val ry = matchingLighthouse.optDouble("ry", 0.0)
-            val rz = matchingLighthouse.optDouble("rz", 0.0)
-            val rw = matchingLighthouse.optDouble("rw", 0.0)
-            
-            // Step 1 & 2: Swap py and pz, then invert the new py (which was pz)
-            val transformedPy = -pz  // Swap and invert
-            val transformedPz = py   // Just swap
-            
-            // Step 3: Convert quaternion to yaw
-            val yaw = quaternionToYaw(rx, ry, rz, rw)
+
+            // Pose already transformed: py and pz swapped, the new py inverted, yaw from the quaternion
+            val px = matchingLighthouse.px
+            val py = matchingLighthouse.originalPy
+            val pz = matchingLighthouse.originalPz
+            val transformedPy = matchingLighthouse.py
+            val transformedPz = matchingLighthouse.pz
+            val yaw = matchingLighthouse.yaw
+            val rx = matchingLighthouse.rx
+            val ry = matchingLighthouse.ry
+            val rz = matchingLighthouse.rz
+            val rw = matchingLighthouse.rw
             
             // Log the transformation
             Log.d(TAG, "Transformed coordinates: Original (px=$px, py=$py, pz=$pz) -> Transformed (px=$px, py=$transformedPy, pz=$transformedPz)")
@@ -1075,193 +768,6 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
         }
     }
     
-    // Update fallbackToConfigHomedock to use SharedPreferences instead of config.yaml
-    private fun fallbackToConfigHomedock(baseUrl: String) {
-        try {
-            // Try to get homedock from SharedPreferences
-            val storedHomedock = getStoredHomedockData()
-            
-            if (storedHomedock != null) {
-                // Use stored homedock from SharedPreferences
-                Log.d(TAG, "Setting home dock from stored preferences: x=${storedHomedock[0]}, y=${storedHomedock[1]}, z=${storedHomedock[2]}, yaw=${storedHomedock[3]}")
-                logToFile("Setting home dock from stored preferences: x=${storedHomedock[0]}, y=${storedHomedock[1]}, z=${storedHomedock[2]}, yaw=${storedHomedock[3]}")
-                clearHomeDocks(baseUrl)
-                setHomeDock(baseUrl, storedHomedock[0], storedHomedock[1], storedHomedock[2], storedHomedock[3], storedHomedock[4], storedHomedock[5])
-                
-                // Update robot pose based on Homedock
-                val pose = calculatePose(storedHomedock)
-                Log.d(TAG, "Setting robot pose from stored prefs: x=${pose[0]}, y=${pose[1]}, z=${pose[2]}, yaw=${pose[3]}")
-                logToFile("Setting robot pose from stored prefs: x=${pose[0]}, y=${pose[1]}, z=${pose[2]}, yaw=${pose[3]}")
-                setPose(baseUrl, pose[0], pose[1], pose[2], pose[3], pose[4], pose[5])
-            } else {
-                Log.e(TAG, "No valid homedock data available in preferences")
-                logToFile("No valid homedock data available in preferences")
-            }
-        } catch (e: Exception) {
-            Log.e(TAG, "Error setting homedock from stored data", e)
-            logToFile("Error setting homedock from stored data")
-        }
-    }
-
-    private fun clearPOIs(baseUrl: String) {
-        try {
-            val url = URL("$baseUrl/api/core/artifact/v1/pois")
-            val connection = url.openConnection() as HttpURLConnection
-            connection.requestMethod = "DELETE"
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Clear POIs response code: $responseCode")
-            logToFile("Clear POIs response code: $responseCode")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error clearing POIs: ${e.message}", e)
-            logToFile("Error clearing POIs: ${e.message}")
-        }
-    }
-    
-    private fun clearMap(baseUrl: String) {
-        try {
-            val url = URL("$baseUrl/api/core/slam/v1/maps")
-            val connection = url.openConnection() as HttpURLConnection
-            connection.requestMethod = "DELETE"
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Clear map response code: $responseCode")
-            logToFile("Clear map response code: $responseCode")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error clearing map: ${e.message}", e)
-            logToFile("Error clearing map: ${e.message}")
-        }
-    }
-    
-    private fun uploadMap(baseUrl: String, filePath: String) {
-        try {
-            val file = File(filePath)
-            if (!file.exists()) {
-                Log.e(TAG, "Map file does not exist: $filePath")
-                logToFile("Map file does not exist: $filePath")
-                return
-            }
-            
-            val url = URL("$baseUrl/api/core/slam/v1/maps/stcm")
-            val connection = url.openConnection() as HttpURLConnection
-            connection.requestMethod = "PUT"
-            connection.setRequestProperty("Content-Type", "application/octet-stream")
-            connection.doOutput = true
-            
-            FileInputStream(file).use { input ->
-                connection.outputStream.use { output ->
-                    val buffer = ByteArray(4096)
-                    var bytesRead: Int
-                    var totalBytes = 0
-                    while (input.read(buffer).also { bytesRead = it } != -1) {
-                        output.write(buffer, 0, bytesRead)
-                        totalBytes += bytesRead
-                    }
-                    Log.d(TAG, "Uploaded $totalBytes bytes")
-                    logToFile("Uploaded $totalBytes bytes")
-                }
-            }
-            
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Upload map response code: $responseCode")
-            logToFile("Upload map response code: $responseCode")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error uploading map: ${e.message}", e)
-            logToFile("Error uploading map: ${e.message}")
-        }
-    }
-    
-    private fun clearHomeDocks(baseUrl: String) {
-        try {
-            val url = URL("$baseUrl/api/core/slam/v1/homedocks")
-            val connection = url.openConnection() as HttpURLConnection
-            connection.requestMethod = "DELETE"
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Clear home docks response code: $responseCode")
-            logToFile("Clear home docks response code: $responseCode")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error clearing home docks: ${e.message}", e)
-            logToFile("Error clearing home docks: ${e.message}")
-        }
-    }
-    
-    private fun setHomeDock(baseUrl: String, x: Double, y: Double, z: Double, yaw: Double, pitch: Double, roll: Double) {
-        try {
-            val url = URL("$baseUrl/api/core/slam/v1/homepose")
-            val connection = url.openConnection() as HttpURLConnection
-            
-            val body = JSONObject().apply {
-                put("x", x)
-                put("y", y)
-                put("z", z)
-                put("yaw", yaw)
-                put("pitch", pitch)
-                put("roll", roll)
-            }
-            
-            connection.requestMethod = "PUT"
-            connection.setRequestProperty("Content-Type", "application/json")
-            connection.doOutput = true
-            
-            connection.outputStream.use { os ->
-                os.write(body.toString().toByteArray())
-            }
-            
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Set home dock response code: $responseCode")
-            logToFile("Set home dock response code: $responseCode")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error setting home dock: ${e.message}", e)
-            logToFile("Error setting home dock: ${e.message}")
-        }
-    }
-    
-    private fun setPose(baseUrl: String, x: Double, y: Double, z: Double, yaw: Double, pitch: Double, roll: Double) {
-        try {
-            val url = URL("$baseUrl/api/core/slam/v1/localization/pose")
-            val connection = url.openConnection() as HttpURLConnection
-            
-            val body = JSONObject().apply {
-                put("x", x)
-                put("y", y)
-                put("z", z)
-                put("yaw", yaw)
-                put("pitch", pitch)
-                put("roll", roll)
-            }
-            
-            connection.requestMethod = "PUT"
-            connection.setRequestProperty("Content-Type", "application/json")
-            connection.doOutput = true
-            
-            connection.outputStream.use { os ->
-                os.write(body.toString().toByteArray())
-            }
-            
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Set pose response code: $responseCode")
-            logToFile("Set pose response code: $responseCode")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error setting pose: ${e.message}", e)
-            logToFile("Error setting pose: ${e.message}")
-        }
-    }
-    
-    private fun savePersistentMap(baseUrl: String) {
-        try {
-            // Updated endpoint and method based on Python example
-            val url = URL("$baseUrl/api/multi-floor/map/v1/stcm/:save")
-            val connection = url.openConnection() as HttpURLConnection
-            connection.requestMethod = "POST"
-            connection.setRequestProperty("Content-Type", "application/octet-stream")
-            
-            val responseCode = connection.responseCode
-            Log.d(TAG, "Save persistent map response code: $responseCode")
-            logToFile("Save persistent map response code: $responseCode")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error saving persistent map: ${e.message}", e)
-            logToFile("Error saving persistent map: ${e.message}")
-        }
-    }
-    
     private fun calculatePose(homedock: DoubleArray, distanceInMeters: Double = 0.2): DoubleArray {
         val x = homedock[0]
         val y = homedock[1]
@@ -1299,174 +805,128 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
         ))
     }
 
-    private suspend fun getToken(): String? {
-        try {
-            val email = sharedPreferences.getString("email", "") ?: ""
-            val password = sharedPreferences.getString("password", "") ?: ""
-            val domainId = sharedPreferences.getString("domain_id", "") ?: ""
-
-            if (email.isEmpty() || password.isEmpty() || domainId.isEmpty()) {
-                Log.e(TAG, "Missing credentials")
-                return null
-            }
-
-            // 1. Auth User Posemesh
-            //val url1 = URL("https://api.posemesh.org/user/login")
-            val url1 = URL("https://api.auki.network/user/login")
-            val connection1 = url1.openConnection() as HttpURLConnection
-            
-            val body1 = JSONObject().apply {
-                put("email", email)
-                put("password", password)
-            }
-
-            connection1.apply {
-                requestMethod = "POST"
-                setRequestProperty("Content-Type", "application/json")
-                setRequestProperty("Accept", "application/json")
-                //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-                doOutput = true
-                outputStream.write(body1.toString().toByteArray())
-            }
-
-            if (connection1.responseCode !in 200..299) {
-                Log.e(TAG, "Failed to authenticate posemesh account")
-                return null
-            }
-
-            val response1 = connection1.inputStream.bufferedReader().readText()
-            val repJson1 = JSONObject(response1)
-            val posemeshToken = repJson1.getString("access_token")
-
-            // 2. Auth DDS
-            //val url2 = URL("https://api.posemesh.org/service/domains-access-token")
-            val url2 = URL("https://api.auki.network/service/domains-access-token")
-            val connection2 = url2.openConnection() as HttpURLConnection
-            
-            connection2.apply {
-                requestMethod = "POST"
-                setRequestProperty("Accept", "application/json")
-                setRequestProperty("Authorization", "Bearer $posemeshToken")
-                //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-            }
-
-            if (connection2.responseCode !in 200..299) {
-                Log.e(TAG, "Failed to authenticate domain dds")
-                return null
-            }
-
-            val response2 = connection2.inputStream.bufferedReader().readText()
-            val repJson2 = JSONObject(response2)
-            val ddsToken = repJson2.getString("access_token")
-
-            // 3. Auth Domain
-            //val url3 = URL("https://dds.posemesh.org/api/v1/domains/$domainId/auth")
-            val url3 = URL("https://dds.auki.network/api/v1/domains/$domainId/auth")
-            val connection3 = url3.openConnection() as HttpURLConnection
-            
-            connection3.apply {
-                requestMethod = "POST"
-                setRequestProperty("Accept", "application/json")
-                setRequestProperty("Authorization", "Bearer $ddsToken")
-                //setRequestProperty("posemesh-client-id", getUniqueDeviceId())
-            }
-
-            if (connection3.responseCode !in 200..299) {
-                Log.e(TAG, "Failed to authenticate domain access")
-                return null
+    /**
+     * The cached answer for coords if there is one; else the answer computed on the device
+     * while the robot's map is current, or by the domain, which is then cached (and saved
+     * unless persist is false, for callers that flush once).
+     */
+    private fun resolveNavmeshCoord(coords: ReadableMap, persist: Boolean = true): ReadableMap {
+        val domainId = sharedPreferences.getString("domain_id", "") ?: ""
+        val mapRevision = mapCache.robotMapHash()
+        val x = coords.getDouble("x")
+        val z = coords.getDouble("z")
+        navmeshCache.get(domainId, mapRevision, x, z)?.let { cached ->
+            return Arguments.createMap().apply {
+                putDouble("x", cached.x)
+                putDouble("z", cached.z)
+                putDouble("yaw", cached.yaw)
+                putString("source", cached.source)
+                putBoolean("cached", true)
             }
-
-            val response3 = connection3.inputStream.bufferedReader().readText()
-            domainInfo = response3
-
-            // Parse domain info to get access token
-            val domainInfoObj = JSONObject(response3)
-            return domainInfoObj.getString("access_token")
-        } catch (e: Exception) {
-            Log.e(TAG, "Error getting token: ${e.message}")
-            return null
         }
-    }
 
-    private fun getNavmeshCoordWithToken(coords: ReadableMap): ReadableMap {
-        val domainInfoStr = domainInfo ?: throw Exception("Domain info not found")
-        val domainInfoObj = JSONObject(domainInfoStr)
-        val accessToken = domainInfoObj.getString("access_token")
-        val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-        val domainServer = domainServerObj.getString("url")
-        val domainId = sharedPreferences.getString("domain_id", "") ?: throw Exception("Domain ID not found")
+        val result = localNavmeshCoord(coords) ?: getNavmeshCoordWithToken(coords, sessions.session())
+        navmeshCache.put(domainId, mapRevision, x, z, NavmeshCache.Result(
+            result.getDouble("x"), result.getDouble("z"), result.getDouble("yaw"), result.getString("source") ?: "remote"),
+            persist)
+        return result
+    }
 
+    private fun getNavmeshCoordWithToken(coords: ReadableMap, session: DomainSessionManager.Session): ReadableMap {
         // Get input coordinates and transform Z
         val inputX = coords.getDouble("x")
         var inputZ = coords.getDouble("z")
-        inputZ = if (inputZ > 0) -Math.abs(inputZ) else Math.abs(inputZ)
-
-        val url = URL(ConfigManager.getNestedString("domain.navmesh_endpoint"))
-        val connection = url.openConnection() as HttpURLConnection
+        inputZ = NavmeshMath.flipZ(inputZ)
 
         val body = JSONObject().apply {
-            put("domainId", domainId)
-            put("domainServerUrl", domainServer)
+            put("domainId", session.domainId)
+            put("domainServerUrl", session.domainServerUrl)
             put("target", JSONObject().apply {
                 put("x", inputX)
                 put("y", 0)
                 put("z", inputZ)
             })
-            put("radius", 0.5)
+            put("radius", navmeshRadius())
         }
 
-        connection.apply {
-            requestMethod = "POST"
-            setRequestProperty("Content-Type", "application/json")
-            setRequestProperty("Authorization", "Bearer $accessToken")
-            setRequestProperty("Accept", "application/json")
-            doOutput = true
-            outputStream.write(body.toString().toByteArray())
+        // Shared client, so batched lookups reuse its pooled connections
+        val request = Request.Builder()
+            .url(ConfigManager.getNestedString("domain.navmesh_endpoint"))
+            .post(body.toString().toRequestBody("application/json".toMediaType()))
+            .addHeader("Authorization", "Bearer ${session.accessToken}")
+            .addHeader("Accept", "application/json")
+            .build()
+
+        httpClient.newCall(request).execute().use { response ->
+            if (!response.isSuccessful) {
+                if (response.code == 401) sessions.invalidate(session.accessToken)
+                val errorResponse = response.body?.string() ?: "No error details available"
+                Log.e(TAG, "Navmesh validation failed: ${response.code}\nError: $errorResponse")
+                throw Exception("Failed to get navmesh coord: ${response.code}\nError: $errorResponse")
+            }
+
+            val responseJson = JSONObject(response.body?.string() ?: "")
+            val restrictedCoords = responseJson.getJSONObject("restricted")
+
+            return navmeshResult(coords, inputX, inputZ, restrictedCoords.getDouble("x"), restrictedCoords.getDouble("z"), "remote")
         }
+    }
 
-        val responseCode = connection.responseCode
-        if (responseCode !in 200..299) {
-            val errorStream = connection.errorStream
-            val errorResponse = errorStream?.bufferedReader()?.readText() ?: "No error details available"
-            Log.e(TAG, "Navmesh validation failed: $responseCode\nError: $errorResponse")
-            throw Exception("Failed to get navmesh coord: $responseCode\nError: $errorResponse")
+    /**
+     * Restrict-to-navmesh on the occupancy grid of the robot's map, or null if the map image
+     * may not show the deployed map: nothing deployed is on record, or the image was
+     * downloaded before the last deploy. Same input transform and yaw as the endpoint.
+     */
+    private fun localNavmeshCoord(coords: ReadableMap): ReadableMap? {
+        if (!ConfigManager.getNestedBoolean("navmesh.local", true)) return null
+        val deployedAt = mapCache.robotDeployedAt()
+        val mapImage = File(SlamtecUtilsModule.mapImageDir(), "map.bmp")
+        if (deployedAt == 0L || mapImage.lastModified() < deployedAt) {
+            Log.d(TAG, "Robot map image predates the last deploy, using the navmesh endpoint")
+            return null
         }
+        return try {
+            val solver = NavmeshSolver.forGrid(SlamtecUtilsModule.occupancyGrid(), navmeshRadius())
+            val inputX = coords.getDouble("x")
+            val inputZ = NavmeshMath.flipZ(coords.getDouble("z"))
+            // Solved in the robot map frame, answered in the endpoint's frame
+            val restricted = DoubleArray(2)
+            if (!solver.restrictTarget(inputX, coords.getDouble("z"), restricted)) {
+                Log.w(TAG, "No walkable cell on the robot's map, using the navmesh endpoint")
+                return null
+            }
+            navmeshResult(coords, inputX, inputZ, restricted[0], restricted[1], "local")
+        } catch (e: Exception) {
+            Log.w(TAG, "Local navmesh unavailable, using the navmesh endpoint: ${e.message}")
+            null
+        }
+    }
 
-        val response = connection.inputStream.bufferedReader().readText()
-        val responseJson = JSONObject(response)
-        val restrictedCoords = responseJson.getJSONObject("restricted")
+    // Robot radius the navmesh is inflated by, locally and in the endpoint request
+    private fun navmeshRadius() = ConfigManager.getNestedDouble("navmesh.radius", 0.5)
 
+    // Result of a restrict-to-navmesh query, from the target and restricted point in the navmesh frame
+    private fun navmeshResult(coords: ReadableMap, inputX: Double, inputZ: Double,
+                              restrictedX: Double, restrictedZ: Double, source: String): ReadableMap {
         // Get coordinates exactly as in Python
         val x1 = inputX
         val z1 = inputZ
-        val x2 = restrictedCoords.getDouble("x")
-        var z2 = restrictedCoords.getDouble("z")
+        val x2 = restrictedX
+        var z2 = restrictedZ
 
         // Calculate deltas exactly as in Python
         val deltaX = x1 - x2
         val deltaZ = z1 - z2
 
-        // Transform z2 exactly as in Python
-        z2 = if (z2 > 0) -Math.abs(z2) else Math.abs(z2)
-
-        // Calculate yaw exactly as in Python
-        var yaw = Math.atan2(deltaZ, deltaX)
-        yaw = Math.round(yaw * 100.0) / 100.0  // Round to 2 decimal places first
-        yaw = if (yaw > 0) -Math.abs(yaw) else Math.abs(yaw)  // Then negate if positive
-        
-        // Reverse yaw by 180 degrees (π radians)
-        yaw += Math.PI
-        // Normalize yaw to [-π, π]
-        if (yaw > Math.PI) {
-            yaw -= 2 * Math.PI
-        } else if (yaw < -Math.PI) {
-            yaw += 2 * Math.PI
-        }
+        // Yaw from the untransformed z2, then transform z2 exactly as in Python
+        val yaw = NavmeshMath.navmeshYaw(x1, z1, x2, z2)
+        z2 = NavmeshMath.flipZ(z2)
 
         return Arguments.createMap().apply {
             putDouble("x", x2)
             putDouble("z", z2)
             putDouble("yaw", yaw)
+            putString("source", source)
             // Add debug information
             putMap("debug", Arguments.createMap().apply {
                 putMap("productCoords", Arguments.createMap().apply {
@@ -1488,6 +948,85 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
         }
     }
 
+    // Raycaster over the occupancy grid of the map last downloaded from the robot
+    private fun raycaster() = MapRaycaster(
+        SlamtecUtilsModule.occupancyGrid(),
+        ConfigManager.getNestedBoolean("raycast.unknown_blocks", true)
+    )
+
+    // Asks raycast_endpoint the same question as a local raycast and reports whether they agree
+    private fun crossCheckRaycast(x: Double, y: Double, yaw: Double, maxRange: Double,
+                                  localDistance: Double, localHit: Boolean): WritableMap {
+        val check = Arguments.createMap()
+        try {
+            val remote = remoteRaycast(x, y, yaw, maxRange)
+            val tolerance = ConfigManager.getNestedDouble("raycast.cross_check_tolerance", 0.1)
+            val agree = if (remote == null) !localHit else localHit && Math.abs(remote - localDistance) <= tolerance
+            check.putBoolean("agree", agree)
+            if (remote != null) check.putDouble("remoteDistance", remote)
+            if (!agree) {
+                val message = "Raycast cross-check mismatch from ($x, $y) yaw $yaw: local " +
+                    (if (localHit) localDistance.toString() else "no hit") + ", remote " + (remote ?: "no hit")
+                Log.w(TAG, message)
+                logToFile(message)
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "Raycast cross-check failed: ${e.message}")
+            check.putString("error", e.message ?: e.javaClass.simpleName)
+        }
+        return check
+    }
+
+    // Distance to the remote hit within maxRange, or null for none. The request is in the
+    // domain frame, like the navmesh one: robot map y is negated into domain z.
+    private fun remoteRaycast(x: Double, y: Double, yaw: Double, maxRange: Double): Double? {
+        val session = sessions.session()
+        val originZ = NavmeshMath.flipZ(y)
+
+        val body = JSONObject().apply {
+            put("domainId", session.domainId)
+            put("domainServerUrl", session.domainServerUrl)
+            put("origin", JSONObject().apply {
+                put("x", x)
+                put("y", 0)
+                put("z", originZ)
+            })
+            put("direction", JSONObject().apply {
+                put("x", Math.cos(yaw))
+                put("y", 0)
+                put("z", NavmeshMath.flipZ(Math.sin(yaw)))
+            })
+            put("maxDistance", maxRange)
+        }
+
+        val request = Request.Builder()
+            .url(ConfigManager.getNestedString("domain.raycast_endpoint"))
+            .post(body.toString().toRequestBody("application/json".toMediaType()))
+            .addHeader("Authorization", "Bearer ${session.accessToken}")
+            .addHeader("Accept", "application/json")
+            .build()
+
+        httpClient.newCall(request).execute().use { response ->
+            if (!response.isSuccessful) {
+                if (response.code == 401) sessions.invalidate(session.accessToken)
+                val errorResponse = response.body?.string() ?: "No error details available"
+                throw Exception("Raycast failed: ${response.code}\nError: $errorResponse")
+            }
+            val responseJson = JSONObject(response.body?.string() ?: "")
+            if (responseJson.has("distance") && !responseJson.isNull("distance")) {
+                return responseJson.getDouble("distance").takeIf { it <= maxRange }
+            }
+            val point = responseJson.optJSONObject("hit") ?: responseJson.optJSONObject("point") ?: return null
+            return Math.hypot(point.getDouble("x") - x, point.getDouble("z") - originZ).takeIf { it <= maxRange }
+        }
+    }
+
+    private fun sendEvent(eventName: String, params: WritableMap) {
+        reactApplicationContext
+            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
+            .emit(eventName, params)
+    }
+
     // Add this helper method for logging to file
     private fun logToFile(message: String) {
         try {
@@ -1518,29 +1057,20 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun getRobotPose(promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
-                // Get base URL and config for the robot
-                val slamIp = ConfigManager.getString("slam_ip", "127.0.0.1")
-                val slamPort = ConfigManager.getInt("slam_port", 1448)
-                val baseUrl = "http://$slamIp:$slamPort"
-                
-                logToFile("Fetching robot pose data from $baseUrl")
+                logToFile("Fetching robot pose data from ${slamClient.baseUrl}")
                 
                 // 1. Get robot pose information from SLAM API
-                val url = URL("$baseUrl/api/core/slam/v1/localization/pose")
-                val connection = url.openConnection() as HttpURLConnection
-                connection.requestMethod = "GET"
-                connection.setRequestProperty("Accept", "application/json")
-                
-                val responseCode = connection.responseCode
-                logToFile("Get robot pose response code: $responseCode")
-                
-                if (responseCode !in 200..299) {
-                    throw Exception("Failed to get robot pose, response code: $responseCode")
+                val responseText = slamClient.get("/api/core/slam/v1/localization/pose").use { connection ->
+                    val responseCode = connection.code()
+                    logToFile("Get robot pose response code: $responseCode")
+                    
+                    if (responseCode !in 200..299) {
+                        throw Exception("Failed to get robot pose, response code: $responseCode")
+                    }
+                    connection.bodyString()
                 }
-                
-                val responseText = connection.inputStream.bufferedReader().readText()
                 logToFile("FULL RESPONSE: $responseText")
                 
                 // 2. Parse the response JSON
@@ -1555,33 +1085,30 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                     // or derive it from other data. For this example, we'll use a placeholder approach
                     
                     // Attempt to get QR ID from home dock information
-                    val homedockUrl = URL("$baseUrl/api/core/slam/v1/homepose")
-                    val homedockConnection = homedockUrl.openConnection() as HttpURLConnection
-                    homedockConnection.requestMethod = "GET"
-                    homedockConnection.setRequestProperty("Accept", "application/json")
-                    
-                    val homedockResponseCode = homedockConnection.responseCode
-                    logToFile("Get homedock response code: $homedockResponseCode")
+                    slamClient.get("/api/core/slam/v1/homepose").use { homedockConnection ->
+                        val homedockResponseCode = homedockConnection.code()
+                        logToFile("Get homedock response code: $homedockResponseCode")
                     
-                    if (homedockResponseCode in 200..299) {
-                        val homedockResponse = homedockConnection.inputStream.bufferedReader().readText()
-                        logToFile("FULL HOMEDOCK RESPONSE: $homedockResponse")
+                        if (homedockResponseCode in 200..299) {
+                            val homedockResponse = homedockConnection.bodyString()
+                            logToFile("FULL HOMEDOCK RESPONSE: $homedockResponse")
                         
-                        val homedockJson = JSONObject(homedockResponse)
-                        if (homedockJson.has("qr_id")) {
-                            homedockJson.getString("qr_id")
+                            val homedockJson = JSONObject(homedockResponse)
+                            if (homedockJson.has("qr_id")) {
+                                homedockJson.getString("qr_id")
+                            } else {
+                                // Generate a placeholder QR ID based on the home dock position
+                                // This is just for demo purposes - in a real implementation, you would
+                                // get this from the proper API or database
+                                val x = homedockJson.optDouble("x", 0.0).toString().replace(".", "")
+                                val y = homedockJson.optDouble("y", 0.0).toString().replace(".", "")
+                                "QR${x}${y}"
+                            }
                         } else {
-                            // Generate a placeholder QR ID based on the home dock position
-                            // This is just for demo purposes - in a real implementation, you would
-                            // get this from the proper API or database
-                            val x = homedockJson.optDouble("x", 0.0).toString().replace(".", "")
-                            val y = homedockJson.optDouble("y", 0.0).toString().replace(".", "")
-                            "QR${x}${y}"
+                            // A fallback if we can't get the home dock info either
+                            val storedQrId = sharedPreferences.getString("homedock_qr_id", "")
+                            storedQrId ?: ""
                         }
-                    } else {
-                        // A fallback if we can't get the home dock info either
-                        val storedQrId = sharedPreferences.getString("homedock_qr_id", "")
-                        storedQrId ?: ""
                     }
                 }
                 
@@ -1617,7 +1144,7 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun getPoseDataByQrId(qrId: String, promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 // Get the domain ID and domain server from stored credentials/auth
                 val domainId = sharedPreferences.getString("domain_id", "") ?: ""
@@ -1625,68 +1152,25 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                     throw Exception("Missing domain ID. Please authenticate first.")
                 }
                 
-                // Get domain info to extract the domain server URL
-                val domainInfoStr = domainInfo ?: throw Exception("No domain info available. Please authenticate first.")
-                val domainInfoObj = JSONObject(domainInfoStr)
-                val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-                val domainServer = domainServerObj.getString("url")
-                val accessToken = domainInfoObj.getString("access_token")
-                
-                logToFile("Fetching lighthouse data for QR ID (short_id): $qrId from domain server: $domainServer")
-                
-                // Construct the lighthouses endpoint URL
-                val url = URL("$domainServer/api/v1/domains/$domainId/lighthouses")
-                logToFile("Lighthouses endpoint URL: $url")
-                
-                // Set up the connection
-                val connection = url.openConnection() as HttpURLConnection
-                connection.requestMethod = "GET"
-                connection.setRequestProperty("Accept", "application/json")
-                connection.setRequestProperty("Authorization", "Bearer $accessToken")
-                
-                val responseCode = connection.responseCode
-                
-                if (responseCode !in 200..299) {
-                    val errorMessage = if (responseCode == 404) {
-                        "Lighthouse data not found (404). Domain ID may be incorrect."
-                    } else {
-                        "Failed to get lighthouse data, response code: $responseCode"
-                    }
-                    throw Exception(errorMessage)
-                }
-                
-                // Read the full response
-                val responseText = connection.inputStream.bufferedReader().readText()
-                
-                // Find the matching lighthouse by short_id
-                val matchingLighthouse = findLighthouseByShortId(responseText, qrId)
+                // Read from the lighthouse index, revalidated against the domain only when stale
+                val matchingLighthouse = lighthouses.find(sessions.session(), qrId)
                 
                 // Create the result object
                 val result = Arguments.createMap().apply {
                     putBoolean("found", matchingLighthouse != null)
                     
                     if (matchingLighthouse != null) {
-                        // Get original position values
-                        val px = matchingLighthouse.optDouble("px", 0.0)
-                        val py = matchingLighthouse.optDouble("py", 0.0)
-                        val pz = matchingLighthouse.optDouble("pz", 0.0)
-                        
-                        // Get original rotation values (quaternion)
-                        val rx = matchingLighthouse.optDouble("rx", 0.0)
-                        val ry = matchingLighthouse.optDouble("ry", 0.0)
-                        val rz = matchingLighthouse.optDouble("rz", 0.0)
-                        val rw = matchingLighthouse.optDouble("rw", 0.0)
-                        
-                        // Step 1 & 2: Swap py and pz, then invert the new py (which was pz)
-                        val transformedPy = -pz  // Swap and invert
-                        val transformedPz = py   // Just swap
-                        
-                        // Step 3: Convert quaternion to yaw
-                        val yaw = quaternionToYaw(rx, ry, rz, rw)
-                        
-                        // Log the transformation
-                        logToFile("Transforming coordinates: Original (px=$px, py=$py, pz=$pz) -> Transformed (px=$px, py=$transformedPy, pz=$transformedPz)")
-                        logToFile("Converting quaternion (rx=$rx, ry=$ry, rz=$rz, rw=$rw) -> yaw=$yaw")
+                        // Pose already transformed: py and pz swapped, the new py inverted, yaw from the quaternion
+                        val px = matchingLighthouse.px
+                        val py = matchingLighthouse.originalPy
+                        val pz = matchingLighthouse.originalPz
+                        val transformedPy = matchingLighthouse.py
+                        val transformedPz = matchingLighthouse.pz
+                        val yaw = matchingLighthouse.yaw
+                        val rx = matchingLighthouse.rx
+                        val ry = matchingLighthouse.ry
+                        val rz = matchingLighthouse.rz
+                        val rw = matchingLighthouse.rw
                         
                         // Include the transformed lighthouse data
                         putDouble("px", px)
@@ -1704,8 +1188,8 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                         putDouble("original_rw", rw)
                         
                         // Include additional lighthouse information
-                        putString("id", matchingLighthouse.optString("id", ""))
-                        putString("short_id", matchingLighthouse.optString("short_id", ""))
+                        putString("id", matchingLighthouse.id)
+                        putString("short_id", matchingLighthouse.shortId)
                     } else {
                         // Include default values if no match found
                         putDouble("px", 0.0)
@@ -1716,9 +1200,6 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                     
                     // Include the QR ID we searched for
                     putString("qrId", qrId)
-                    
-                    // Include the raw response data
-                    putString("rawData", responseText)
                 }
                 
                 // Log the filtered result
@@ -1740,95 +1221,6 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
         }
     }
     
-    // Helper function to convert quaternion to yaw (-π to π)
-    private fun quaternionToYaw(x: Double, y: Double, z: Double, w: Double): Double {
-        // Rotation order Z (yaw), X (pitch), Y (roll)
-
-        val sinp = 2.0 * (w * x - y * z)
-        val pitch = if (Math.abs(sinp) >= 1)
-            Math.copySign(Math.PI / 2, sinp)
-        else
-            Math.asin(sinp)
-
-        val sinr_cosp = 2.0 * (w * y + x * z)
-        val cosr_cosp = 1.0 - 2.0 * (x * x + y * y)
-        val roll = Math.atan2(sinr_cosp, cosr_cosp)
-
-        val siny_cosp = 2.0 * (w * z + y * x)
-        val cosy_cosp = 1.0 - 2.0 * (z * z + x * x)
-        var yaw = Math.atan2(siny_cosp, cosy_cosp)
-
-        // Rotate yaw by 180 degrees (PI radians)
-        yaw += Math.PI
-
-        // Normalize to [-π, π]
-        while (yaw > Math.PI) yaw -= 2 * Math.PI
-        while (yaw < -Math.PI) yaw += 2 * Math.PI
-
-        // Round to 2 decimal places
-        yaw = Math.round(yaw * 100.0) / 100.0
-        Math.round(pitch * 100.0) / 100.0
-        Math.round(roll * 100.0) / 100.0
-
-        logToFile("Yaw: $yaw, Pitch: $pitch, Roll: $roll")
-
-        return yaw
-    }
-    
-    // Helper method to find a lighthouse by short_id in the JSON response
-    private fun findLighthouseByShortId(responseJson: String, shortId: String): JSONObject? {
-        try {
-            val responseObj = JSONObject(responseJson)
-            
-            // Check if it's a direct array or an object with poses field
-            if (responseObj.has("poses")) {
-                // Handle object with poses array
-                val posesArray = responseObj.getJSONArray("poses")
-                logToFile("Found 'poses' field with ${posesArray.length()} items")
-                
-                for (i in 0 until posesArray.length()) {
-                    val lighthouse = posesArray.getJSONObject(i)
-                    val lighthouseShortId = lighthouse.optString("short_id", "")
-                    
-                    if (lighthouseShortId.equals(shortId, ignoreCase = true)) {
-                        logToFile("Found matching lighthouse with short_id: $shortId")
-                        return lighthouse
-                    }
-                }
-                
-                logToFile("No lighthouse found with matching short_id in 'poses' array")
-            } else {
-                // Try parsing as direct array
-                try {
-                    val lighthousesArray = JSONArray(responseJson)
-                    logToFile("Response contains an array of ${lighthousesArray.length()} lighthouses")
-                    
-                    // Iterate through all lighthouses to find matching short_id
-                    for (i in 0 until lighthousesArray.length()) {
-                        val lighthouse = lighthousesArray.getJSONObject(i)
-                        val lighthouseShortId = lighthouse.optString("short_id", "")
-                        
-                        if (lighthouseShortId.equals(shortId, ignoreCase = true)) {
-                            logToFile("Found matching lighthouse with short_id: $shortId")
-                            return lighthouse
-                        }
-                    }
-                    
-                    logToFile("No lighthouse found with matching short_id in array")
-                } catch (e: Exception) {
-                    logToFile("Response is not an array and does not contain a 'poses' field")
-                }
-            }
-            
-            return null
-            
-        } catch (e: Exception) {
-            Log.e(TAG, "Error parsing lighthouse data", e)
-            logToFile("Error parsing lighthouse data")
-            return null
-        }
-    }
-
     @ReactMethod
     fun getRobotCall(promise: Promise) {
         // Convenience method to fetch robot_call data
@@ -1837,15 +1229,13 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun writeRobotCall(jsonData: String, method: String = "PUT", dataId: String? = null, promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 logToFile("Starting writeRobotCall with method: $method, dataId: $dataId")
-                val domainInfoStr = domainInfo ?: throw Exception("No domain info available")
-                val domainInfoObj = JSONObject(domainInfoStr)
-                val accessToken = domainInfoObj.getString("access_token")
-                val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-                val domainServerUrl = domainServerObj.getString("url")
-                val domainId = domainInfoObj.getString("id")
+                val session = sessions.session()
+                val accessToken = session.accessToken
+                val domainServerUrl = session.domainServerUrl
+                val domainId = session.domainId
                 
                 Log.d(TAG, "Writing robot call data with method: $method, data: $jsonData")
                 //logToFile("Writing robot call data with method: $method, data: $jsonData")
@@ -1890,6 +1280,8 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                 
                 val responseBody = response.body?.string()
                 logToFile("Robot call write response: $responseBody")
+                // The cached copy no longer matches what was written
+                dataId?.let { dataCache.invalidate(it) }
                 
                 // Parse the response and create a map
                 val responseObj = JSONObject(responseBody ?: "{}")
@@ -1930,16 +1322,20 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
         promise.resolve(domainInfo)
     }
 
+    /**
+     * Latest domain data with name and dataType. Resolves {metadata, cached} plus the body as
+     * data, or for bodies over domain_data.inline_max_bytes as path (a file in the app
+     * folder, kept until the cache drops it) and size. A body already downloaded at the same
+     * metadata version is read from the cache.
+     */
     @ReactMethod
     fun fetchDomainData(name: String, dataType: String, promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
-                val domainInfoStr = domainInfo ?: throw Exception("No domain info available")
-                val domainInfoObj = JSONObject(domainInfoStr)
-                val accessToken = domainInfoObj.getString("access_token")
-                val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-                val domainServerUrl = domainServerObj.getString("url")
-                val domainId = domainInfoObj.getString("id")
+                val session = sessions.session()
+                val accessToken = session.accessToken
+                val domainServerUrl = session.domainServerUrl
+                val domainId = session.domainId
                 
                 // Step 1: Get metadata
                 val metadataUrl = "$domainServerUrl/api/v1/domains/$domainId/data?name=$name&data_type=$dataType"
@@ -1950,6 +1346,7 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                     .build()
                 val metadataResponse = client.newCall(metadataRequest).execute()
                 if (!metadataResponse.isSuccessful) {
+                    if (metadataResponse.code == 401) sessions.invalidate(accessToken)
                     throw Exception("Failed to get metadata: ${metadataResponse.code}")
                 }
                 val metadataJson = JSONObject(metadataResponse.body?.string() ?: "")
@@ -1959,18 +1356,26 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                 }
                 val metadata = dataArray.getJSONObject(0)
                 val metadataId = metadata.getString("id")
-                // Step 2: Get actual data using metadata ID
-                val dataUrl = "$domainServerUrl/api/v1/domains/$domainId/data/$metadataId?raw=1"
-                val dataRequest = okhttp3.Request.Builder()
-                    .url(dataUrl)
-                    .addHeader("Authorization", "Bearer $accessToken")
-                    .addHeader("Accept", "multipart/form-data")
-                    .build()
-                val dataResponse = client.newCall(dataRequest).execute()
-                if (!dataResponse.isSuccessful) {
-                    throw Exception("Failed to get data: ${dataResponse.code}")
+                // Step 2: Get actual data using metadata ID, unless this version is cached
+                val version = DomainDataCache.version(metadata)
+                var cached = true
+                val entry = dataCache.get(metadataId, version) ?: run {
+                    cached = false
+                    val dataUrl = "$domainServerUrl/api/v1/domains/$domainId/data/$metadataId?raw=1"
+                    val dataRequest = okhttp3.Request.Builder()
+                        .url(dataUrl)
+                        .addHeader("Authorization", "Bearer $accessToken")
+                        .addHeader("Accept", "multipart/form-data")
+                        .build()
+                    client.newCall(dataRequest).execute().use { dataResponse ->
+                        if (!dataResponse.isSuccessful) {
+                            throw Exception("Failed to get data: ${dataResponse.code}")
+                        }
+                        // Streamed to disk, never held whole in memory
+                        val body = dataResponse.body ?: throw Exception("Empty response body")
+                        dataCache.store(metadataId, version, body.byteStream())
+                    }
                 }
-                val rawData = dataResponse.body?.string() ?: ""
                 // Convert to React Native object
                 val result = Arguments.createMap()
                 val metadataMap = Arguments.createMap()
@@ -1979,7 +1384,14 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                 metadataMap.putString("data_type", metadata.optString("data_type", ""))
                 metadataMap.putString("created_at", metadata.optString("created_at", ""))
                 result.putMap("metadata", metadataMap)
-                result.putString("data", rawData)
+                result.putBoolean("cached", cached)
+                // Large payloads go over the bridge as a file path instead of one huge string
+                if (entry.size <= ConfigManager.getNestedInt("domain_data.inline_max_bytes", 262144)) {
+                    result.putString("data", entry.readText())
+                } else {
+                    result.putString("path", entry.file.absolutePath)
+                    result.putDouble("size", entry.size.toDouble())
+                }
                 promise.resolve(result)
             } catch (e: Exception) {
                 Log.e(TAG, "Error fetching domain data: ${e.message}", e)
@@ -2063,7 +1475,7 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun getDeviceIdentifiers(promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 val deviceId = getUniqueDeviceId()
                 
@@ -2095,15 +1507,13 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun getRobotPoseDataId(promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 logToFile("Getting robot pose data ID")
-                val domainInfoStr = domainInfo ?: throw Exception("No domain info available")
-                val domainInfoObj = JSONObject(domainInfoStr)
-                val accessToken = domainInfoObj.getString("access_token")
-                val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-                val domainServerUrl = domainServerObj.getString("url")
-                val domainId = domainInfoObj.getString("id")
+                val session = sessions.session()
+                val accessToken = session.accessToken
+                val domainServerUrl = session.domainServerUrl
+                val domainId = session.domainId
                 
                 // Get device ID to search for data
                 val deviceId = getUniqueDeviceId()
@@ -2168,15 +1578,13 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
 
     @ReactMethod
     fun writeRobotPose(jsonData: String, method: String = "PUT", dataId: String? = null, promise: Promise) {
-        scope.launch {
+        scope.launch(queuedAt()) {
             try {
                 //logToFile("Starting writeRobotPose with method: $method, dataId: $dataId")
-                val domainInfoStr = domainInfo ?: throw Exception("No domain info available")
-                val domainInfoObj = JSONObject(domainInfoStr)
-                val accessToken = domainInfoObj.getString("access_token")
-                val domainServerObj = domainInfoObj.getJSONObject("domain_server")
-                val domainServerUrl = domainServerObj.getString("url")
-                val domainId = domainInfoObj.getString("id")
+                val session = sessions.session()
+                val accessToken = session.accessToken
+                val domainServerUrl = session.domainServerUrl
+                val domainId = session.domainId
                 
                 Log.d(TAG, "Writing robot pose data with method: $method, data: $jsonData")
                 //logToFile("Writing robot pose data with method: $method, data: $jsonData")
@@ -2222,6 +1630,8 @@ class DomainUtilsModule(reactContext: ReactApplicationContext) : ReactContextBas
                 
                 val responseBody = response.body?.string() ?: ""
                 Log.d(TAG, "Write response: $responseBody")
+                // The cached copy no longer matches what was written
+                dataId?.let { dataCache.invalidate(it) }
                 //logToFile("Write response: $responseBody")
                 
                 // Return success result
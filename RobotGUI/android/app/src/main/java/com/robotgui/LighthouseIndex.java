@@ -0,0 +1,260 @@
+package com.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The domain's lighthouses by short_id, so resolving a QR code is a map lookup instead of
+ * downloading and scanning the whole lighthouse list.
+ *
+ * Each lighthouse is kept with its pose already in the robot's frame (py and pz swapped,
+ * the new py negated, yaw from the quaternion) next to the original values. The index is
+ * written to lighthouse_index.json in the app folder and read back on start. It is
+ * revalidated with a conditional GET (ETag / Last-Modified) once it is older than
+ * lighthouse_index.ttl_s, and on a missed short_id once it is older than
+ * lighthouse_index.miss_revalidate_s, so a newly placed lighthouse is found without waiting
+ * for the TTL. If the server cannot be reached the stored index is used as it is.
+ */
+public final class LighthouseIndex {
+
+    private static final String INDEX_FILE = "lighthouse_index.json";
+    private static final int DEFAULT_TTL_S = 300;
+    private static final int DEFAULT_MISS_REVALIDATE_S = 10;
+
+    private static LighthouseIndex sharedInstance;
+
+    /** One lighthouse, in the robot's frame and as the domain stores it. */
+    public static final class Lighthouse {
+        public final String id;
+        public final String shortId;
+        public final double px;
+        /** -pz of the domain pose. */
+        public final double py;
+        /** py of the domain pose. */
+        public final double pz;
+        public final double yaw;
+        public final double originalPy;
+        public final double originalPz;
+        public final double rx;
+        public final double ry;
+        public final double rz;
+        public final double rw;
+
+        Lighthouse(String id, String shortId, double px, double py, double pz,
+                   double rx, double ry, double rz, double rw) {
+            this.id = id;
+            this.shortId = shortId;
+            this.px = px;
+            this.py = -pz;
+            this.pz = py;
+            this.yaw = NavmeshMath.quaternionToYaw(rx, ry, rz, rw);
+            this.originalPy = py;
+            this.originalPz = pz;
+            this.rx = rx;
+            this.ry = ry;
+            this.rz = rz;
+            this.rw = rw;
+        }
+
+        static Lighthouse fromJson(JSONObject lighthouse) {
+            return new Lighthouse(
+                lighthouse.optString("id", ""),
+                lighthouse.optString("short_id", ""),
+                lighthouse.optDouble("px", 0.0),
+                lighthouse.optDouble("py", 0.0),
+                lighthouse.optDouble("pz", 0.0),
+                lighthouse.optDouble("rx", 0.0),
+                lighthouse.optDouble("ry", 0.0),
+                lighthouse.optDouble("rz", 0.0),
+                lighthouse.optDouble("rw", 0.0));
+        }
+
+        // Domain fields, so the stored index reads back through fromJson
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                .put("id", id)
+                .put("short_id", shortId)
+                .put("px", px)
+                .put("py", originalPy)
+                .put("pz", originalPz)
+                .put("rx", rx)
+                .put("ry", ry)
+                .put("rz", rz)
+                .put("rw", rw);
+        }
+    }
+
+    private final File file;
+    private final OkHttpClient client;
+    private final long ttlMs;
+    private final long missRevalidateMs;
+    // By lower-cased short_id, as QR lookups ignore case
+    private final Map<String, Lighthouse> byShortId = new HashMap<>();
+    private String domainId;
+    private String etag;
+    private String lastModified;
+    private long validatedAt;
+
+    LighthouseIndex(File appDir, OkHttpClient client, long ttlMs, long missRevalidateMs) {
+        this.file = new File(appDir, INDEX_FILE);
+        this.client = client;
+        this.ttlMs = ttlMs;
+        this.missRevalidateMs = missRevalidateMs;
+        load();
+    }
+
+    public static synchronized LighthouseIndex getInstance(File appDir, OkHttpClient client) {
+        if (sharedInstance == null) {
+            ConfigManager config = ConfigManager.INSTANCE;
+            sharedInstance = new LighthouseIndex(appDir, client,
+                config.getNestedInt("lighthouse_index.ttl_s", DEFAULT_TTL_S) * 1000L,
+                config.getNestedInt("lighthouse_index.miss_revalidate_s", DEFAULT_MISS_REVALIDATE_S) * 1000L);
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * The lighthouse with shortId in the session's domain, or null if it has none. Reads the
+     * index, revalidating it first only if it is stale, or if shortId is missing and the
+     * index has not been checked for a while. Throws only if there is no index for the
+     * domain and it cannot be downloaded.
+     */
+    public synchronized Lighthouse find(DomainSessionManager.Session session, String shortId) throws IOException {
+        String key = shortId.toLowerCase(Locale.ROOT);
+        boolean stale = !session.domainId.equals(domainId) || System.currentTimeMillis() - validatedAt >= ttlMs;
+        if (stale) {
+            revalidate(session);
+        }
+        Lighthouse lighthouse = byShortId.get(key);
+        if (lighthouse == null && !stale && System.currentTimeMillis() - validatedAt >= missRevalidateMs) {
+            revalidate(session);
+            lighthouse = byShortId.get(key);
+        }
+        return lighthouse;
+    }
+
+    public synchronized int size() {
+        return byShortId.size();
+    }
+
+    // Conditional GET of the lighthouse list; keeps a stored index of the same domain on failure
+    private void revalidate(DomainSessionManager.Session session) throws IOException {
+        boolean sameDomain = session.domainId.equals(domainId);
+        Request.Builder request = new Request.Builder()
+            .url(session.domainServerUrl + "/api/v1/domains/" + session.domainId + "/lighthouses")
+            .header("Accept", "application/json")
+            .header("Authorization", "Bearer " + session.accessToken);
+        if (sameDomain && etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (sameDomain && lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        try (Response response = client.newCall(request.build()).execute()) {
+            if (response.code() == 304 && sameDomain) {
+                validatedAt = System.currentTimeMillis();
+                saveQuietly();
+                return;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException(response.code() == 404
+                    ? "Lighthouse data not found (404). Domain ID may be incorrect."
+                    : "Failed to get lighthouse data, response code: " + response.code());
+            }
+            String body = response.body() != null ? response.body().string() : "";
+            Map<String, Lighthouse> lighthouses = parse(body);
+            byShortId.clear();
+            byShortId.putAll(lighthouses);
+            domainId = session.domainId;
+            etag = response.header("ETag");
+            lastModified = response.header("Last-Modified");
+            validatedAt = System.currentTimeMillis();
+            saveQuietly();
+        } catch (IOException e) {
+            if (!sameDomain || byShortId.isEmpty()) {
+                throw e;
+            }
+            // Lighthouses rarely move; a stored index beats none while offline. Checked again
+            // after the miss interval rather than on every lookup.
+            validatedAt = System.currentTimeMillis() - ttlMs + missRevalidateMs;
+        }
+    }
+
+    // The list is either an array or an object with a poses array
+    static Map<String, Lighthouse> parse(String json) throws IOException {
+        Map<String, Lighthouse> lighthouses = new HashMap<>();
+        try {
+            String trimmed = json.trim();
+            JSONArray list = trimmed.startsWith("[")
+                ? new JSONArray(trimmed)
+                : new JSONObject(trimmed).getJSONArray("poses");
+            for (int i = 0; i < list.length(); i++) {
+                Lighthouse lighthouse = Lighthouse.fromJson(list.getJSONObject(i));
+                if (!lighthouse.shortId.isEmpty()) {
+                    // First one wins, as the linear scan it replaces found the first match
+                    lighthouses.putIfAbsent(lighthouse.shortId.toLowerCase(Locale.ROOT), lighthouse);
+                }
+            }
+        } catch (JSONException e) {
+            throw new IOException("Invalid lighthouse data: " + e.getMessage(), e);
+        }
+        return lighthouses;
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JSONObject index = new JSONObject(MapCache.readUtf8(file));
+            byShortId.putAll(parse(index.getJSONArray("lighthouses").toString()));
+            domainId = index.optString("domainId", null);
+            etag = index.optString("etag", null);
+            lastModified = index.optString("lastModified", null);
+            validatedAt = index.optLong("validatedAt", 0);
+        } catch (Exception e) {
+            // Unreadable; the first lookup downloads the list again
+            byShortId.clear();
+            domainId = null;
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            // Lookups keep using the index in memory; the next revalidation saves again
+        }
+    }
+
+    private void save() throws IOException {
+        String json;
+        try {
+            JSONArray list = new JSONArray();
+            for (Lighthouse lighthouse : byShortId.values()) {
+                list.put(lighthouse.toJson());
+            }
+            json = new JSONObject()
+                .put("domainId", domainId)
+                .put("etag", etag)
+                .put("lastModified", lastModified)
+                .put("validatedAt", validatedAt)
+                .put("lighthouses", list)
+                .toString();
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode " + INDEX_FILE, e);
+        }
+        MapCache.writeUtf8(file, json);
+    }
+}
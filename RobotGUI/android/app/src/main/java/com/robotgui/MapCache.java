@@ -0,0 +1,366 @@
+package com.robotgui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Content-addressed store for downloaded STCM maps, plus a record of which map the robot
+ * currently holds.
+ *
+ * Maps are hashed (SHA-256) while they are written and kept as maps/{hash}.stcm in the app
+ * folder. map_manifest.json lists the latest map per (domain id, pixelsPerMeter, height)
+ * and the hash last uploaded and saved on the robot, so a redeploy of an identical map can
+ * skip clearing, uploading and saving it again.
+ */
+public final class MapCache {
+
+    private static final String MANIFEST_FILE = "map_manifest.json";
+    private static final String MAPS_DIR = "maps";
+    private static final int DEFAULT_MAX_MAPS = 8;
+
+    private static MapCache sharedInstance;
+
+    private final File manifestFile;
+    private final File mapsDir;
+    private final int maxMaps;
+    private final List<Entry> entries = new ArrayList<>();
+    private String robotUrl;
+    private String robotHash;
+    private long robotDeployedAt;
+
+    /** One downloaded map as recorded in the manifest. */
+    public static final class Entry {
+        public final String domainId;
+        public final int pixelsPerMeter;
+        public final double height;
+        public final String hash;
+        public final long size;
+        public final long downloadedAt;
+        public final File file;
+
+        Entry(String domainId, int pixelsPerMeter, double height, String hash, long size, long downloadedAt,
+              File file) {
+            this.domainId = domainId;
+            this.pixelsPerMeter = pixelsPerMeter;
+            this.height = height;
+            this.hash = hash;
+            this.size = size;
+            this.downloadedAt = downloadedAt;
+            this.file = file;
+        }
+
+        boolean sameKey(String domainId, int pixelsPerMeter, double height) {
+            return this.domainId.equals(domainId) && this.pixelsPerMeter == pixelsPerMeter
+                && Double.compare(this.height, height) == 0;
+        }
+    }
+
+    /** A map being downloaded into a temporary file in the maps folder. */
+    public static final class Download {
+        public final File file;
+        private final MessageDigest digest = sha256();
+
+        private Download(File file) {
+            this.file = file;
+        }
+
+        /** Wraps the file's channel so that everything written through it is hashed. */
+        public WritableByteChannel channel(FileChannel out) {
+            return new DigestingChannel(out, digest);
+        }
+
+        /** Deletes the temporary file; for failed downloads. */
+        public void discard() {
+            file.delete();
+        }
+    }
+
+    MapCache(File appDir, int maxMaps) {
+        this.manifestFile = new File(appDir, MANIFEST_FILE);
+        this.mapsDir = new File(appDir, MAPS_DIR);
+        this.maxMaps = maxMaps;
+        load();
+    }
+
+    public static synchronized MapCache getInstance(File appDir) {
+        if (sharedInstance == null) {
+            sharedInstance = new MapCache(appDir,
+                ConfigManager.INSTANCE.getNestedInt("map_cache.max_maps", DEFAULT_MAX_MAPS));
+        }
+        return sharedInstance;
+    }
+
+    public Download newDownload() throws IOException {
+        if (!mapsDir.exists() && !mapsDir.mkdirs()) {
+            throw new IOException("Cannot create " + mapsDir);
+        }
+        return new Download(File.createTempFile("download", ".part", mapsDir));
+    }
+
+    /**
+     * Moves a finished download to maps/{hash}.stcm and records it as the latest map for its
+     * key. The temporary file is dropped when the same content is already stored.
+     */
+    public synchronized Entry commit(Download download, String domainId, int pixelsPerMeter, double height)
+            throws IOException {
+        String hash = hex(download.digest.digest());
+        File target = new File(mapsDir, hash + ".stcm");
+        if (target.exists() && target.length() == download.file.length()) {
+            download.discard();
+        } else if (!download.file.renameTo(target)) {
+            download.discard();
+            throw new IOException("Cannot move downloaded map to " + target);
+        }
+        Entry entry = new Entry(domainId, pixelsPerMeter, height, hash, target.length(),
+            System.currentTimeMillis(), target);
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).sameKey(domainId, pixelsPerMeter, height)) {
+                entries.remove(i);
+            }
+        }
+        entries.add(entry);
+        while (entries.size() > maxMaps) {
+            entries.remove(0);
+        }
+        deleteUnreferenced();
+        save();
+        return entry;
+    }
+
+    /** The latest stored map for a key, or null. */
+    public synchronized Entry latest(String domainId, int pixelsPerMeter, double height) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (entry.sameKey(domainId, pixelsPerMeter, height)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /** The latest stored map of every resolution for a domain at a crosssection height. */
+    public synchronized List<Entry> entries(String domainId, double height) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.domainId.equals(domainId) && Double.compare(entry.height, height) == 0) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /** True if the robot at robotUrl was last given this exact map and saved it. */
+    public synchronized boolean robotHolds(String robotUrl, String hash) {
+        return hash != null && hash.equals(robotHash) && robotUrl.equals(this.robotUrl);
+    }
+
+    /** The hash of the map the robot holds, or null if unknown. */
+    public synchronized String robotMapHash() {
+        return robotHash;
+    }
+
+    /** When the robot was given the map it holds, 0 if unknown. */
+    public synchronized long robotDeployedAt() {
+        return robotDeployedAt;
+    }
+
+    /** Records that the map was uploaded to the robot and saved as its persistent map. */
+    public synchronized void markRobotMap(String robotUrl, String hash) {
+        this.robotUrl = robotUrl;
+        this.robotHash = hash;
+        this.robotDeployedAt = System.currentTimeMillis();
+        saveQuietly();
+    }
+
+    /** Called before anything clears or replaces the robot's map, whatever the outcome. */
+    public synchronized void forgetRobotMap() {
+        if (robotHash == null) {
+            return;
+        }
+        robotUrl = null;
+        robotHash = null;
+        robotDeployedAt = 0;
+        saveQuietly();
+    }
+
+    private void deleteUnreferenced() {
+        Set<String> keep = new HashSet<>();
+        for (Entry entry : entries) {
+            keep.add(entry.file.getName());
+        }
+        if (robotHash != null) {
+            keep.add(robotHash + ".stcm");
+        }
+        File[] files = mapsDir.listFiles((dir, name) -> name.endsWith(".stcm"));
+        if (files != null) {
+            for (File file : files) {
+                if (!keep.contains(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private void load() {
+        if (!manifestFile.exists()) {
+            return;
+        }
+        try {
+            JSONObject manifest = new JSONObject(readUtf8(manifestFile));
+            JSONArray maps = manifest.optJSONArray("maps");
+            for (int i = 0; maps != null && i < maps.length(); i++) {
+                JSONObject map = maps.getJSONObject(i);
+                String hash = map.getString("hash");
+                File file = new File(mapsDir, hash + ".stcm");
+                // Files removed by hand are dropped from the manifest
+                if (file.exists()) {
+                    entries.add(new Entry(map.getString("domainId"), map.getInt("pixelsPerMeter"),
+                        map.getDouble("height"), hash, file.length(), map.optLong("downloadedAt"), file));
+                }
+            }
+            JSONObject robot = manifest.optJSONObject("robot");
+            if (robot != null) {
+                robotUrl = robot.optString("url", null);
+                robotHash = robot.optString("hash", null);
+                robotDeployedAt = robot.optLong("deployedAt");
+            }
+        } catch (Exception e) {
+            // A corrupt manifest only costs one full redeploy
+            entries.clear();
+            robotUrl = null;
+            robotHash = null;
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            // Kept in memory; the next successful save persists it
+        }
+    }
+
+    private void save() throws IOException {
+        String json;
+        try {
+            json = manifest().toString(2);
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode " + MANIFEST_FILE, e);
+        }
+        writeUtf8(manifestFile, json);
+    }
+
+    private JSONObject manifest() throws JSONException {
+        JSONArray maps = new JSONArray();
+        for (Entry entry : entries) {
+            maps.put(new JSONObject()
+                .put("domainId", entry.domainId)
+                .put("pixelsPerMeter", entry.pixelsPerMeter)
+                .put("height", entry.height)
+                .put("hash", entry.hash)
+                .put("size", entry.size)
+                .put("downloadedAt", entry.downloadedAt));
+        }
+        JSONObject manifest = new JSONObject().put("maps", maps);
+        if (robotHash != null) {
+            manifest.put("robot", new JSONObject()
+                .put("url", robotUrl)
+                .put("hash", robotHash)
+                .put("deployedAt", robotDeployedAt));
+        }
+        return manifest;
+    }
+
+    static String readUtf8(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Replaces file with text by writing a temporary file beside it and renaming that over
+     * it, so a reader or a crash never sees half a file. The app's JSON stores all save
+     * through here.
+     */
+    static void writeUtf8(File file, String text) throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file.getName());
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return result.toString();
+    }
+
+    /** Forwards writes to a file and feeds the bytes actually written to a digest. */
+    private static final class DigestingChannel implements WritableByteChannel {
+        private final FileChannel out;
+        private final MessageDigest digest;
+
+        DigestingChannel(FileChannel out, MessageDigest digest) {
+            this.out = out;
+            this.digest = digest;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            ByteBuffer written = src.duplicate();
+            int n = out.write(src);
+            written.limit(written.position() + n);
+            digest.update(written);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return out.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.robotgui
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.withContext
+import okhttp3.RequestBody.Companion.toRequestBody
+import org.json.JSONObject
+
+/**
+ * Deploys the domain's STCM map to the robot as one staged pipeline.
+ *
+ * The crosssection download and the homedock lookup are independent and run concurrently.
+ * The POI clear starts once the download has returned a map, so a failed download leaves
+ * the robot untouched, and overlaps the rest of the homedock lookup:
+ *
+ *   download -> clearPOIs -----\
+ *   lookupHomedock ------------+-> clearMap -> uploadMap -> setHomedock -> setPose -> savePersistentMap
+ *
+ * clearMap, uploadMap and savePersistentMap are skipped when the robot already holds the
+ * downloaded map (see [MapCache]). A failed download or upload stops the pipeline; the
+ * other stages are best effort, as they always were. Every stage reports its status and
+ * timing in the returned [Result].
+ */
+class MapDeploymentPipeline(
+    private val slamClient: SlamtecHttpClient,
+    private val mapCache: MapCache,
+    private val options: Options,
+    private val download: () -> MapCache.Entry,
+    private val lookupHomedock: suspend () -> Homedock?,
+    private val uploadProgress: MapUploadBody.ProgressListener?,
+    private val log: (String) -> Unit
+) {
+
+    /** What differs between the deploy entry points. */
+    class Options(
+        // SlamtecUtils clears the SLAM POIs, DomainUtils the artifact ones
+        val poiPath: String,
+        // Some robot firmwares answer 404 to DELETE homedocks
+        val clearHomeDocks: Boolean
+    )
+
+    /** Homedock to set and the robot pose derived from it; source names where it came from. */
+    class Homedock(val dock: DoubleArray, val pose: DoubleArray, val source: String)
+
+    class Stage(val name: String, val startMs: Long) {
+        var status = "pending"
+        var durationMs = 0L
+        var error: String? = null
+
+        fun toMap(): Map<String, Any> = LinkedHashMap<String, Any>().apply {
+            put("name", name)
+            put("status", status)
+            put("startMs", startMs)
+            put("durationMs", durationMs)
+            error?.let { put("error", it) }
+        }
+    }
+
+    class Result {
+        val stages = ArrayList<Stage>()
+        /** "success", "partial" (a best-effort stage failed) or "failed" (nothing deployed). */
+        var status = "success"
+        var message = "Map processed and uploaded successfully"
+        var mapHash: String? = null
+        var pixelsPerMeter = 0
+        var mapUnchanged = false
+        var homedockSource: String? = null
+        var totalMs = 0L
+
+        fun toMap(): Map<String, Any> = LinkedHashMap<String, Any>().apply {
+            put("status", status)
+            put("message", message)
+            mapHash?.let { put("mapHash", it) }
+            put("pixelsPerMeter", pixelsPerMeter)
+            put("mapUnchanged", mapUnchanged)
+            homedockSource?.let { put("homedockSource", it) }
+            put("totalMs", totalMs)
+            put("stages", stages.sortedBy { it.startMs }.map { it.toMap() })
+        }
+    }
+
+    private val startedAt = System.nanoTime()
+    private val result = Result()
+
+    suspend fun run(): Result = withContext(Dispatchers.IO) {
+        try {
+            coroutineScope {
+                val downloaded = async { stage("download") { download() } }
+                val homedock = async { stage("lookupHomedock") { lookupHomedock() } }
+
+                val stcmMap = downloaded.await() ?: return@coroutineScope fail("download")
+                val poisCleared = async {
+                    stage("clearPOIs") {
+                        send("DELETE", options.poiPath, null)
+                        SlamtecReadCache.getInstance().invalidate(SlamtecReadCache.POIS)
+                    }
+                }
+                result.mapHash = stcmMap.hash
+                result.pixelsPerMeter = stcmMap.pixelsPerMeter
+                val robotUrl = slamClient.baseUrl
+                result.mapUnchanged = mapCache.robotHolds(robotUrl, stcmMap.hash)
+                poisCleared.await()
+
+                if (result.mapUnchanged) {
+                    log("Robot already holds map ${stcmMap.hash}, skipping clear, upload and save")
+                    skip("clearMap")
+                    skip("uploadMap")
+                } else {
+                    mapCache.forgetRobotMap()
+                    stage("clearMap") { send("DELETE", "/api/core/slam/v1/maps", null) }
+                    log("Uploading new map: ${stcmMap.file.absolutePath}")
+                    stage("uploadMap") {
+                        val body = MapUploadBody(stcmMap.file, uploadProgress)
+                        send("PUT", "/api/core/slam/v1/maps/stcm", body)
+                        log("Uploaded ${stcmMap.size} bytes at ${body.bytesPerSecond()} bytes/s")
+                    } ?: return@coroutineScope fail("uploadMap")
+                }
+
+                val dock = homedock.await()
+                if (dock == null) {
+                    log("No homedock available, leaving homedock and pose unchanged")
+                    skip("setHomedock")
+                    skip("setPose")
+                } else {
+                    result.homedockSource = dock.source
+                    val d = dock.dock
+                    val p = dock.pose
+                    log("Setting home dock from ${dock.source}: x=${d[0]}, y=${d[1]}, z=${d[2]}, yaw=${d[3]}")
+                    stage("setHomedock") {
+                        if (options.clearHomeDocks) {
+                            try {
+                                send("DELETE", "/api/core/slam/v1/homedocks", null)
+                            } catch (e: Exception) {
+                                log("Error clearing home docks: ${e.message}")
+                            }
+                        }
+                        send("PUT", "/api/core/slam/v1/homepose", poseBody(d))
+                    }
+                    log("Setting robot pose: x=${p[0]}, y=${p[1]}, z=${p[2]}, yaw=${p[3]}")
+                    stage("setPose") {
+                        send("PUT", "/api/core/slam/v1/localization/pose", poseBody(p))
+                        SlamtecReadCache.getInstance().invalidate(SlamtecReadCache.POSE)
+                    }
+                }
+
+                if (result.mapUnchanged) {
+                    skip("savePersistentMap")
+                } else {
+                    stage("savePersistentMap") {
+                        send("POST", "/api/multi-floor/map/v1/stcm/:save", ByteArray(0).toRequestBody(SlamtecHttpClient.OCTET_STREAM))
+                        mapCache.markRobotMap(robotUrl, stcmMap.hash)
+                    }
+                }
+                if (result.mapUnchanged && result.status == "success") {
+                    result.message = "Robot already holds this map, upload skipped"
+                }
+            }
+        } finally {
+            result.totalMs = elapsedMs()
+            log("Map deployment ${result.status} in ${result.totalMs} ms: " +
+                result.stages.joinToString { "${it.name} ${it.status} ${it.durationMs} ms" })
+        }
+        result
+    }
+
+    // Runs one stage; returns null if it failed, after recording why
+    private suspend fun <T> stage(name: String, block: suspend () -> T): T? {
+        val stage = Stage(name, elapsedMs())
+        synchronized(result) { result.stages.add(stage) }
+        val start = System.nanoTime()
+        return try {
+            block().also { stage.status = "ok" }
+        } catch (e: CancellationException) {
+            // A cancelled deploy stops here rather than reporting a failed stage
+            stage.status = "cancelled"
+            throw e
+        } catch (e: Exception) {
+            stage.status = "failed"
+            stage.error = e.message ?: e.javaClass.simpleName
+            log("Map deployment stage $name failed: ${stage.error}")
+            synchronized(result) {
+                if (result.status == "success") {
+                    result.status = "partial"
+                    result.message = "Map deployed, but $name failed: ${stage.error}"
+                }
+            }
+            null
+        } finally {
+            stage.durationMs = (System.nanoTime() - start) / 1_000_000
+        }
+    }
+
+    private fun skip(name: String) {
+        synchronized(result) {
+            result.stages.add(Stage(name, elapsedMs()).apply { status = "skipped" })
+        }
+    }
+
+    private fun fail(name: String) {
+        val error = result.stages.firstOrNull { it.name == name }?.error
+        result.status = "failed"
+        result.message = "Map deployment failed at $name: $error"
+    }
+
+    private fun send(method: String, path: String, body: okhttp3.RequestBody?) {
+        val responseCode = slamClient.send(method, path, body)
+        log("$method $path response code: $responseCode")
+        if (responseCode !in 200..204) {
+            throw Exception("$method $path returned $responseCode")
+        }
+    }
+
+    private fun poseBody(pose: DoubleArray) = JSONObject().apply {
+        put("x", pose[0])
+        put("y", pose[1])
+        put("z", pose[2])
+        put("yaw", pose[3])
+        put("pitch", pose[4])
+        put("roll", pose[5])
+    }.toString().toRequestBody(SlamtecHttpClient.JSON)
+
+    private fun elapsedMs() = (System.nanoTime() - startedAt) / 1_000_000
+}
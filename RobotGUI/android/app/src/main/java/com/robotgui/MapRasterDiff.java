@@ -0,0 +1,80 @@
+package com.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds which square blocks of a map image changed between two downloads of it.
+ *
+ * Both BMPs are read row by row, side by side; a block stops being compared as soon as one
+ * of its bytes differs. Images that differ in size, format or palette cannot be compared
+ * block by block and report null, meaning everything changed.
+ */
+public final class MapRasterDiff {
+
+    private MapRasterDiff() {
+    }
+
+    /**
+     * Changed blocks as {column, row} pairs in row-major order, with blocks blockSize pixels
+     * square counted from the top left; empty if the rasters are identical, null if they
+     * cannot be compared.
+     */
+    public static List<int[]> changedBlocks(File previous, File next, int blockSize) throws IOException {
+        try (RandomAccessFile a = new RandomAccessFile(previous, "r");
+             RandomAccessFile b = new RandomAccessFile(next, "r")) {
+            BmpPngTranscoder.Header headerA = BmpPngTranscoder.Header.read(a);
+            BmpPngTranscoder.Header headerB = BmpPngTranscoder.Header.read(b);
+            if (headerA.width != headerB.width || headerA.height != headerB.height
+                || headerA.bitsPerPixel != headerB.bitsPerPixel
+                || !Arrays.equals(headerA.palette, headerB.palette)) {
+                return null;
+            }
+
+            int width = headerA.width;
+            int height = headerA.height;
+            int bytesPerPixel = headerA.bitsPerPixel / 8;
+            int columns = (width + blockSize - 1) / blockSize;
+            byte[] rowA = new byte[width * bytesPerPixel];
+            byte[] rowB = new byte[width * bytesPerPixel];
+            boolean[] changed = new boolean[columns];
+            List<int[]> blocks = new ArrayList<>();
+
+            for (int y = 0; y < height; y++) {
+                a.seek(headerA.rowOffset(y));
+                a.readFully(rowA);
+                b.seek(headerB.rowOffset(y));
+                b.readFully(rowB);
+                for (int column = 0; column < columns; column++) {
+                    if (!changed[column]) {
+                        int from = column * blockSize * bytesPerPixel;
+                        int to = Math.min(from + blockSize * bytesPerPixel, rowA.length);
+                        changed[column] = !rangeEquals(rowA, rowB, from, to);
+                    }
+                }
+                if ((y + 1) % blockSize == 0 || y == height - 1) {
+                    for (int column = 0; column < columns; column++) {
+                        if (changed[column]) {
+                            blocks.add(new int[] {column, y / blockSize});
+                            changed[column] = false;
+                        }
+                    }
+                }
+            }
+            return blocks;
+        }
+    }
+
+    private static boolean rangeEquals(byte[] a, byte[] b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,162 @@
+package com.robotgui;
+
+/**
+ * Casts rays on an {@link OccupancyGrid} by walking the cells they cross (Amanatides and
+ * Woo's DDA), so a ray costs one step per cell and no allocation beyond its result.
+ *
+ * Occupied cells block a ray; unknown cells, including everything outside the map, block
+ * it only if unknownBlocks is set. Distances are in meters from the ray origin to the edge
+ * of the first blocking cell. Angles are radians counterclockwise from +X, as robot yaw is.
+ *
+ * The grid is shared, but a raycaster is not: it is cheap, so make one per thread.
+ */
+public final class MapRaycaster {
+
+    public static final class Hit {
+        /** False if the ray ran maxRange without meeting a blocking cell. */
+        public final boolean hit;
+        /** Distance to the blocking cell, or maxRange if there was none. */
+        public final double distance;
+        /** Where the ray stopped. */
+        public final double x;
+        public final double y;
+        /** State of the cell that stopped it, FREE if nothing did. */
+        public final int state;
+
+        Hit(boolean hit, double distance, double x, double y, int state) {
+            this.hit = hit;
+            this.distance = distance;
+            this.x = x;
+            this.y = y;
+            this.state = state;
+        }
+    }
+
+    private final OccupancyGrid grid;
+    private final boolean unknownBlocks;
+    // State of the last blocking cell found by march; only meaningful right after a hit
+    private int lastState;
+
+    public MapRaycaster(OccupancyGrid grid, boolean unknownBlocks) {
+        this.grid = grid;
+        this.unknownBlocks = unknownBlocks;
+    }
+
+    public Hit cast(double x, double y, double angle, double maxRange) {
+        double dx = Math.cos(angle);
+        double dy = Math.sin(angle);
+        double distance = march(x, y, dx, dy, maxRange);
+        boolean hit = distance >= 0;
+        if (!hit) {
+            distance = maxRange;
+        }
+        return new Hit(hit, distance, x + dx * distance, y + dy * distance, hit ? lastState : OccupancyGrid.FREE);
+    }
+
+    /**
+     * Distance along each of count rays spread evenly over fov radians centered on yaw
+     * (just yaw if count is 1), written to distances; rays that hit nothing get maxRange.
+     * Returns the number of rays that hit.
+     */
+    public int castFan(double x, double y, double yaw, double fov, int count, double maxRange, double[] distances) {
+        int hits = 0;
+        double step = count > 1 ? fov / (count - 1) : 0;
+        double start = count > 1 ? yaw - fov / 2 : yaw;
+        for (int i = 0; i < count; i++) {
+            double angle = start + i * step;
+            double distance = march(x, y, Math.cos(angle), Math.sin(angle), maxRange);
+            if (distance >= 0) {
+                hits++;
+                distances[i] = distance;
+            } else {
+                distances[i] = maxRange;
+            }
+        }
+        return hits;
+    }
+
+    /** True if nothing blocks the straight line from (x1, y1) to (x2, y2). */
+    public boolean lineOfSight(double x1, double y1, double x2, double y2) {
+        double length = Math.hypot(x2 - x1, y2 - y1);
+        if (length == 0) {
+            return march(x1, y1, 1, 0, 0) < 0;
+        }
+        return march(x1, y1, (x2 - x1) / length, (y2 - y1) / length, length) < 0;
+    }
+
+    // Distance to the first blocking cell along unit direction (dx, dy), or -1 if none within maxRange
+    private double march(double x, double y, double dx, double dy, double maxRange) {
+        double resolution = grid.resolution;
+        // Work in cell units
+        double px = (x - grid.originX) / resolution;
+        double py = (y - grid.originY) / resolution;
+        double maxT = maxRange / resolution;
+        int cx = (int) Math.floor(px);
+        int cy = (int) Math.floor(py);
+
+        if (blocks(cx, cy)) {
+            return 0;
+        }
+        // Past the map edge every cell is unknown, so a ray that does not block on unknown
+        // cells can stop there
+        if (!unknownBlocks) {
+            maxT = Math.min(maxT, exitT(px, py, dx, dy));
+        }
+
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        double tDeltaX = dx != 0 ? Math.abs(1 / dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dy != 0 ? Math.abs(1 / dy) : Double.POSITIVE_INFINITY;
+        double tMaxX = dx != 0 ? (dx > 0 ? cx + 1 - px : px - cx) * tDeltaX : Double.POSITIVE_INFINITY;
+        double tMaxY = dy != 0 ? (dy > 0 ? cy + 1 - py : py - cy) * tDeltaY : Double.POSITIVE_INFINITY;
+
+        while (true) {
+            double t;
+            if (tMaxX < tMaxY) {
+                t = tMaxX;
+                tMaxX += tDeltaX;
+                cx += stepX;
+            } else {
+                t = tMaxY;
+                tMaxY += tDeltaY;
+                cy += stepY;
+            }
+            if (t > maxT) {
+                return -1;
+            }
+            if (blocks(cx, cy)) {
+                return t * resolution;
+            }
+        }
+    }
+
+    private boolean blocks(int cx, int cy) {
+        int state = grid.state(cx, cy);
+        if (state == OccupancyGrid.OCCUPIED || (unknownBlocks && state == OccupancyGrid.UNKNOWN)) {
+            lastState = state;
+            return true;
+        }
+        return false;
+    }
+
+    // Ray parameter (in cells) at which the ray leaves the grid, 0 if it never is inside it
+    private double exitT(double px, double py, double dx, double dy) {
+        double tEnter = Math.max(slabEnter(px, dx, grid.width), slabEnter(py, dy, grid.height));
+        double tExit = Math.min(slabExit(px, dx, grid.width), slabExit(py, dy, grid.height));
+        return tEnter <= tExit ? tExit : 0;
+    }
+
+    private static double slabEnter(double p, double d, int size) {
+        if (d == 0) {
+            return p >= 0 && p < size ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return Math.max(0, Math.min(-p / d, (size - p) / d));
+    }
+
+    private static double slabExit(double p, double d, int size) {
+        if (d == 0) {
+            return p >= 0 && p < size ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        return Math.max(-p / d, (size - p) / d);
+    }
+}
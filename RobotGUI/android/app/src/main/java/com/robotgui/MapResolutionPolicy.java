@@ -0,0 +1,130 @@
+package com.robotgui;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Picks the STCM resolution (pixels per meter) to deploy, and which ones to prefetch.
+ *
+ * An STCM grid has (extent * pixelsPerMeter)^2 cells, so its size divided by
+ * pixelsPerMeter^2 is a resolution-independent measure of the domain's extent. Once any
+ * resolution of a domain has been downloaded, the size of every other one can be
+ * predicted, and the policy deploys the most detailed configured resolution whose
+ * predicted size fits the byte budget. Until then it uses the most detailed configured
+ * resolution no finer than the default one, or the coarsest configured one.
+ */
+public final class MapResolutionPolicy {
+
+    static final int DEFAULT_RESOLUTION = 20;
+
+    private final int[] resolutions;
+    private final long byteBudget;
+    private final double height;
+    private final long maxAgeMs;
+
+    public MapResolutionPolicy(int[] resolutions, long byteBudget, double height, long maxAgeMs) {
+        this.resolutions = resolutions.clone();
+        Arrays.sort(this.resolutions);
+        this.byteBudget = byteBudget;
+        this.height = height;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public static MapResolutionPolicy fromConfig() {
+        ConfigManager config = ConfigManager.INSTANCE;
+        double[] configured = config.getDoubleArray("map_prefetch.resolutions");
+        int[] resolutions;
+        if (configured == null || configured.length == 0) {
+            resolutions = new int[] {DEFAULT_RESOLUTION};
+        } else {
+            resolutions = new int[configured.length];
+            for (int i = 0; i < configured.length; i++) {
+                resolutions[i] = (int) configured[i];
+            }
+        }
+        return new MapResolutionPolicy(resolutions,
+            config.getNestedInt("map_prefetch.byte_budget", 8 * 1024 * 1024),
+            config.getNestedDouble("map_prefetch.height", 0.1),
+            config.getNestedInt("map_prefetch.max_age_ms", 600000));
+    }
+
+    /** Crosssection height the maps are requested at. */
+    public double height() {
+        return height;
+    }
+
+    /** True if a cached map is recent enough to deploy without downloading it again. */
+    public boolean isFresh(MapCache.Entry entry, long now) {
+        return entry != null && now - entry.downloadedAt < maxAgeMs;
+    }
+
+    /**
+     * The resolution to deploy given the domain's cached maps: the highest configured one
+     * predicted to fit the budget, or the lowest if none does. With nothing cached the size
+     * is unknown, and the highest configured one up to the default is taken instead.
+     */
+    public int choose(List<MapCache.Entry> cached) {
+        double bytesPerUnit = bytesPerUnit(cached);
+        int chosen = resolutions[0];
+        for (int resolution : resolutions) {
+            boolean fits = Double.isNaN(bytesPerUnit)
+                ? resolution <= DEFAULT_RESOLUTION
+                : predictedSize(bytesPerUnit, resolution) <= byteBudget;
+            if (fits) {
+                chosen = resolution;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * The next resolution to prefetch, lowest first, or -1 when done. Candidates are the
+     * configured resolutions up to the first one over budget (so a growing domain is noticed),
+     * that are not already cached fresh and have not been tried in this run.
+     */
+    public int nextPrefetch(List<MapCache.Entry> cached, Set<Integer> attempted, long now) {
+        double bytesPerUnit = bytesPerUnit(cached);
+        for (int resolution : resolutions) {
+            boolean overBudget = !Double.isNaN(bytesPerUnit)
+                && predictedSize(bytesPerUnit, resolution) > byteBudget;
+            if (!attempted.contains(resolution) && !isFresh(find(cached, resolution), now)) {
+                return resolution;
+            }
+            if (overBudget) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bytes per (pixel/meter)^2, from the most detailed cached map where the fixed header
+     * weighs least; NaN if nothing is cached.
+     */
+    static double bytesPerUnit(List<MapCache.Entry> cached) {
+        MapCache.Entry best = null;
+        for (MapCache.Entry entry : cached) {
+            if (best == null || entry.pixelsPerMeter > best.pixelsPerMeter) {
+                best = entry;
+            }
+        }
+        if (best == null || best.pixelsPerMeter <= 0) {
+            return Double.NaN;
+        }
+        return (double) best.size / ((double) best.pixelsPerMeter * best.pixelsPerMeter);
+    }
+
+    static long predictedSize(double bytesPerUnit, int resolution) {
+        return (long) (bytesPerUnit * resolution * resolution);
+    }
+
+    private static MapCache.Entry find(List<MapCache.Entry> cached, int resolution) {
+        for (MapCache.Entry entry : cached) {
+            if (entry.pixelsPerMeter == resolution) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
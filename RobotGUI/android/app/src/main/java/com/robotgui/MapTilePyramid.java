@@ -0,0 +1,481 @@
+package com.robotgui;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cuts the robot's map image into a pyramid of {@link #TILE_SIZE} px PNG tiles so the GUI
+ * can show any part of it at any zoom without decoding the whole image.
+ *
+ * Zoom 0 fits the whole map in one tile, each further level doubles the resolution, and
+ * {@code maxZoom} is the map at its native resolution. Tiles on the right and bottom edges
+ * are cropped to the map rather than padded. Layout on disk:
+ *
+ *   map_tiles/{revision}/map.png       the BMP transcoded for BitmapRegionDecoder
+ *   map_tiles/{revision}/{z}/{x}_{y}.png
+ *   map_tiles/{revision}/{z}/{x}_{y}_v{version}.png   after an update changed the tile
+ *
+ * A build transcodes the BMP on a background thread, reports the pyramid ready, then
+ * pre-renders every tile from zoom 0 up. A requested tile that is not rendered yet is
+ * decoded on demand from the region it covers, sampled down to tile size.
+ *
+ * An update swaps in a new image of the same size and re-renders only the tiles covering
+ * the blocks that changed, at every zoom. Those tiles get a new versioned file name so a
+ * view that caches images by URI never shows the old one; the revision and every other
+ * tile stay as they were.
+ *
+ * Files a view may still be loading outlive their replacement by one step: the previous
+ * revision is deleted by the build after the one that replaced it, and a superseded tile
+ * file by the next update or build.
+ */
+public final class MapTilePyramid {
+
+    private static final String TAG = "MapTilePyramid";
+    public static final int TILE_SIZE = 256;
+    private static final String TILE_DIR = "map_tiles";
+
+    public interface Callback<T> {
+        void onResult(T result);
+
+        void onError(Exception e);
+    }
+
+    public static final class Tile {
+        public final int z;
+        public final int x;
+        public final int y;
+        public final File file;
+
+        Tile(int z, int x, int y, File file) {
+            this.z = z;
+            this.x = x;
+            this.y = y;
+            this.file = file;
+        }
+    }
+
+    /** Outcome of an update: the changed tiles, or rebuilt if the whole pyramid was replaced. */
+    public static final class Update {
+        public final Info info;
+        public final boolean rebuilt;
+        public final List<Tile> tiles;
+
+        Update(Info info, boolean rebuilt, List<Tile> tiles) {
+            this.info = info;
+            this.rebuilt = rebuilt;
+            this.tiles = tiles;
+        }
+    }
+
+    public static final class Info {
+        public final String revision;
+        public final int width;
+        public final int height;
+        public final int maxZoom;
+
+        Info(String revision, int width, int height, int maxZoom) {
+            this.revision = revision;
+            this.width = width;
+            this.height = height;
+            this.maxZoom = maxZoom;
+        }
+    }
+
+    private static final class Source {
+        final int generation;
+        final File dir;
+        final Info info;
+        final BitmapRegionDecoder decoder;
+        // Tile key to the generation that last changed it; absent for unchanged tiles
+        final Map<String, Integer> versions;
+
+        Source(int generation, File dir, Info info, BitmapRegionDecoder decoder, Map<String, Integer> versions) {
+            this.generation = generation;
+            this.dir = dir;
+            this.info = info;
+            this.decoder = decoder;
+            this.versions = versions;
+        }
+    }
+
+    private static MapTilePyramid instance;
+
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "map-tiles-build");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final ExecutorService tileExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "map-tiles"));
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile Future<Source> current;
+    // Only touched on the build thread
+    private Source latest;
+    // Tile files replaced by the last update, deleted by the next one
+    private final List<File> superseded = new ArrayList<>();
+
+    private MapTilePyramid() {
+    }
+
+    public static synchronized MapTilePyramid getInstance() {
+        if (instance == null) {
+            instance = new MapTilePyramid();
+        }
+        return instance;
+    }
+
+    /**
+     * Builds the pyramid for bmp, replacing the previous one. The callback runs on the build
+     * thread once tiles can be requested; pre-rendering continues after it.
+     */
+    public synchronized void build(File bmp, Callback<Info> callback) {
+        int gen = generation.incrementAndGet();
+        File root = new File(bmp.getParentFile(), TILE_DIR);
+        Future<Source> source = buildExecutor.submit(() -> open(bmp, root, gen));
+        current = source;
+        buildExecutor.execute(() -> {
+            Source opened;
+            try {
+                opened = source.get();
+            } catch (Exception e) {
+                callback.onError(unwrap(e));
+                return;
+            }
+            callback.onResult(opened.info);
+            prerender(opened);
+        });
+    }
+
+    /**
+     * Replaces the image with bmp, which must be the same size, re-rendering the tiles over
+     * changedBlocks ({column, row} pairs of {@link #TILE_SIZE} px blocks at full resolution,
+     * see {@link MapRasterDiff}). Falls back to a full build if there is no pyramid to
+     * update or the size differs.
+     */
+    public synchronized void update(File bmp, List<int[]> changedBlocks, Callback<Update> callback) {
+        int gen = generation.incrementAndGet();
+        File root = new File(bmp.getParentFile(), TILE_DIR);
+        Future<Source> previous = current;
+        Future<Source> source = buildExecutor.submit(() -> {
+            Source old = null;
+            try {
+                old = previous == null ? null : previous.get();
+            } catch (Exception e) {
+                // The last build failed; nothing to update
+            }
+            return old == null ? open(bmp, root, gen) : reopen(old, bmp, changedBlocks, gen);
+        });
+        current = source;
+        buildExecutor.execute(() -> {
+            Source opened;
+            try {
+                opened = source.get();
+            } catch (Exception e) {
+                callback.onError(unwrap(e));
+                return;
+            }
+            // Only a full build starts a new revision
+            boolean rebuilt = !opened.info.revision.equals(revisionOf(previous));
+            List<Tile> tiles = new ArrayList<>();
+            if (!rebuilt) {
+                for (int[] zxy : changedTiles(opened.info, changedBlocks)) {
+                    tiles.add(new Tile(zxy[0], zxy[1], zxy[2], tileFile(opened, zxy[0], zxy[1], zxy[2])));
+                }
+            }
+            callback.onResult(new Update(opened.info, rebuilt, tiles));
+            prerender(opened);
+        });
+    }
+
+    /** True once a build has been started, so there is a pyramid to update. */
+    public boolean hasTiles() {
+        return current != null;
+    }
+
+    /** Resolves the pyramid being served, waiting for a build in progress. */
+    public void info(Callback<Info> callback) {
+        withSource(callback, source -> source.info);
+    }
+
+    /** Resolves the PNG file of tile (z, x, y), rendering it first if needed. */
+    public void tile(int z, int x, int y, Callback<File> callback) {
+        withSource(callback, source -> render(source, z, x, y));
+    }
+
+    private interface SourceTask<T> {
+        T run(Source source) throws Exception;
+    }
+
+    private <T> void withSource(Callback<T> callback, SourceTask<T> task) {
+        Future<Source> source = current;
+        if (source == null) {
+            callback.onError(new IllegalStateException("No map tiles built, download the map image first"));
+            return;
+        }
+        tileExecutor.execute(() -> {
+            T result;
+            try {
+                Source opened = source.get();
+                if (opened.decoder.isRecycled()) {
+                    // Queued just after its source was retired; the current one replaced it
+                    opened = current.get();
+                }
+                result = task.run(opened);
+            } catch (Exception e) {
+                callback.onError(unwrap(e));
+                return;
+            }
+            callback.onResult(result);
+        });
+    }
+
+    private Source open(File bmp, File root, int gen) throws IOException {
+        long start = System.currentTimeMillis();
+        String revision = Long.toString(start);
+        File dir = new File(root, revision);
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Cannot create " + dir.getAbsolutePath());
+        }
+        File png = new File(dir, "map.png");
+        File tmp = new File(dir, "map.png.tmp");
+        try {
+            BmpPngTranscoder.transcode(bmp, tmp);
+        } catch (IOException e) {
+            // Formats the streaming transcoder does not handle go through a full decode
+            Log.w(TAG, "Streaming transcode failed (" + e.getMessage() + "), decoding " + bmp.getName() + " whole");
+            Bitmap bitmap = BitmapFactory.decodeFile(bmp.getAbsolutePath());
+            if (bitmap == null) {
+                throw new IOException("Cannot decode " + bmp.getAbsolutePath());
+            }
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } finally {
+                bitmap.recycle();
+            }
+        }
+        if (!tmp.renameTo(png)) {
+            throw new IOException("Cannot rename " + tmp.getAbsolutePath());
+        }
+
+        BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(png.getAbsolutePath(), false);
+        int width = decoder.getWidth();
+        int height = decoder.getHeight();
+        int maxZoom = 0;
+        while ((long) TILE_SIZE << maxZoom < Math.max(width, height)) {
+            maxZoom++;
+        }
+        Source source = new Source(gen, dir, new Info(revision, width, height, maxZoom), decoder,
+            Collections.emptyMap());
+        Log.d(TAG, "Map " + width + "x" + height + " ready for tiles up to zoom " + maxZoom
+            + " in " + (System.currentTimeMillis() - start) + " ms");
+
+        // The previous revision stays until the next build, for URIs already handed out
+        File previous = latest != null ? latest.dir : null;
+        retire(source);
+        deleteSuperseded();
+        File[] revisions = root.listFiles();
+        if (revisions != null) {
+            for (File old : revisions) {
+                if (!old.equals(dir) && !old.equals(previous)) {
+                    deleteRecursively(old);
+                }
+            }
+        }
+        return source;
+    }
+
+    // Same revision and directory as old, new image; tiles over changed blocks re-rendered
+    private Source reopen(Source old, File bmp, List<int[]> changedBlocks, int gen) throws IOException {
+        long start = System.currentTimeMillis();
+        File png = new File(old.dir, "map.png");
+        File tmp = new File(old.dir, "map.png.tmp");
+        BmpPngTranscoder.transcode(bmp, tmp);
+        BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(tmp.getAbsolutePath(), false);
+        Info info = old.info;
+        if (decoder.getWidth() != info.width || decoder.getHeight() != info.height) {
+            decoder.recycle();
+            tmp.delete();
+            Log.d(TAG, "Map size changed, rebuilding all tiles");
+            return open(bmp, old.dir.getParentFile(), gen);
+        }
+        // The decoder holds the file open, so the rename does not disturb it
+        if (!tmp.renameTo(png)) {
+            decoder.recycle();
+            throw new IOException("Cannot rename " + tmp.getAbsolutePath());
+        }
+
+        Map<String, Integer> versions = new HashMap<>(old.versions);
+        List<int[]> changed = changedTiles(info, changedBlocks);
+        for (int[] zxy : changed) {
+            versions.put(key(zxy[0], zxy[1], zxy[2]), gen);
+        }
+        Source source = new Source(gen, old.dir, info, decoder, Collections.unmodifiableMap(versions));
+        deleteSuperseded();
+        for (int[] zxy : changed) {
+            superseded.add(tileFile(old, zxy[0], zxy[1], zxy[2]));
+            render(source, zxy[0], zxy[1], zxy[2]);
+        }
+        retire(source);
+        Log.d(TAG, "Re-rendered " + changed.size() + " changed map tiles in "
+            + (System.currentTimeMillis() - start) + " ms");
+        return source;
+    }
+
+    // Tiles at every zoom covering the changed full-resolution blocks, coarsest first
+    private static List<int[]> changedTiles(Info info, List<int[]> changedBlocks) {
+        Set<String> seen = new HashSet<>();
+        List<int[]> tiles = new ArrayList<>();
+        for (int z = 0; z <= info.maxZoom; z++) {
+            int shift = info.maxZoom - z;
+            for (int[] block : changedBlocks) {
+                int x = block[0] >> shift;
+                int y = block[1] >> shift;
+                if (seen.add(key(z, x, y))) {
+                    tiles.add(new int[] {z, x, y});
+                }
+            }
+        }
+        return tiles;
+    }
+
+    private static String key(int z, int x, int y) {
+        return z + "/" + x + "/" + y;
+    }
+
+    private void deleteSuperseded() {
+        for (File file : superseded) {
+            file.delete();
+        }
+        superseded.clear();
+    }
+
+    // The old decoder is recycled on the tile thread, after the tile requests already queued
+    // against the old source have rendered
+    private void retire(Source replacement) {
+        if (latest != null && latest.decoder != replacement.decoder) {
+            BitmapRegionDecoder decoder = latest.decoder;
+            tileExecutor.execute(decoder::recycle);
+        }
+        latest = replacement;
+    }
+
+    private static String revisionOf(Future<Source> source) {
+        try {
+            return source == null ? null : source.get().info.revision;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static File tileFile(Source source, int z, int x, int y) {
+        Integer version = source.versions.get(key(z, x, y));
+        String name = version == null ? x + "_" + y + ".png" : x + "_" + y + "_v" + version + ".png";
+        return new File(new File(source.dir, Integer.toString(z)), name);
+    }
+
+    private void prerender(Source source) {
+        long start = System.currentTimeMillis();
+        int rendered = 0;
+        Info info = source.info;
+        for (int z = 0; z <= info.maxZoom; z++) {
+            int span = TILE_SIZE << (info.maxZoom - z);
+            int columns = (info.width + span - 1) / span;
+            int rows = (info.height + span - 1) / span;
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x < columns; x++) {
+                    if (generation.get() != source.generation) {
+                        return;
+                    }
+                    try {
+                        render(source, z, x, y);
+                        rendered++;
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error pre-rendering tile " + z + "/" + x + "/" + y + ": " + e.getMessage());
+                        return;
+                    }
+                }
+            }
+        }
+        Log.d(TAG, "Pre-rendered " + rendered + " map tiles in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private File render(Source source, int z, int x, int y) throws IOException {
+        Info info = source.info;
+        if (z < 0 || z > info.maxZoom || x < 0 || y < 0) {
+            throw new IllegalArgumentException("Tile " + z + "/" + x + "/" + y + " out of range");
+        }
+        int scale = 1 << (info.maxZoom - z);
+        int span = TILE_SIZE * scale;
+        Rect region = new Rect(x * span, y * span,
+            (int) Math.min((long) (x + 1) * span, info.width),
+            (int) Math.min((long) (y + 1) * span, info.height));
+        if (region.isEmpty() || region.left >= info.width || region.top >= info.height) {
+            throw new IllegalArgumentException("Tile " + z + "/" + x + "/" + y + " out of range");
+        }
+
+        File file = tileFile(source, z, x, y);
+        File levelDir = file.getParentFile();
+        if (file.exists()) {
+            return file;
+        }
+        if (!levelDir.mkdirs() && !levelDir.isDirectory()) {
+            throw new IOException("Cannot create " + levelDir.getAbsolutePath());
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = scale;
+        // Maps are grayscale; 565 halves the decode buffer
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = source.decoder.decodeRegion(region, options);
+        if (bitmap == null) {
+            throw new IOException("Cannot decode tile " + z + "/" + x + "/" + y);
+        }
+        // Renders of the same tile can race between the two threads; the rename settles it
+        File tmp = new File(levelDir, x + "_" + y + "." + Thread.currentThread().getId() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } finally {
+            bitmap.recycle();
+        }
+        if (!tmp.renameTo(file) && !file.exists()) {
+            throw new IOException("Cannot rename " + tmp.getAbsolutePath());
+        }
+        tmp.delete();
+        return file;
+    }
+
+    private static Exception unwrap(Exception e) {
+        if (e instanceof ExecutionException && e.getCause() instanceof Exception) {
+            return (Exception) e.getCause();
+        }
+        return e;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,95 @@
+package com.robotgui;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body that streams an STCM map from disk with a declared Content-Length.
+ *
+ * The file is read through its FileChannel into one large direct buffer and handed to the
+ * socket sink chunk by chunk, so memory use stays constant whatever the map size. Progress
+ * is reported every {@link #PROGRESS_STEP} bytes and once at the end, with the send rate
+ * so far. The body can be written more than once if OkHttp retries the call.
+ */
+public final class MapUploadBody extends RequestBody {
+
+    /** Called from the thread executing the upload. */
+    public interface ProgressListener {
+        void onProgress(long bytesSent, long totalBytes, long bytesPerSecond);
+    }
+
+    static final int BUFFER_SIZE = 256 * 1024;
+    static final int PROGRESS_STEP = 256 * 1024;
+
+    private final File file;
+    private final long length;
+    private final ProgressListener listener;
+    private volatile long bytesPerSecond;
+
+    public MapUploadBody(File file, ProgressListener listener) {
+        this.file = file;
+        this.length = file.length();
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return SlamtecHttpClient.OCTET_STREAM;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    /** Send rate of the last completed write, 0 before the first one finishes. */
+    public long bytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long start = System.nanoTime();
+        long sent = 0;
+        long nextProgress = PROGRESS_STEP;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            while (sent < length) {
+                buffer.clear();
+                if (length - sent < BUFFER_SIZE) {
+                    buffer.limit((int) (length - sent));
+                }
+                int n = channel.read(buffer);
+                if (n < 0) {
+                    // The declared length can no longer be honoured
+                    throw new IOException("Map file shrank during upload: " + sent + " of " + length + " bytes");
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    sink.write(buffer);
+                }
+                sent += n;
+                if (listener != null && sent >= nextProgress && sent < length) {
+                    nextProgress = sent + PROGRESS_STEP;
+                    listener.onProgress(sent, length, rate(sent, System.nanoTime() - start));
+                }
+            }
+        }
+        sink.flush();
+        bytesPerSecond = rate(sent, System.nanoTime() - start);
+        if (listener != null) {
+            listener.onProgress(sent, length, bytesPerSecond);
+        }
+    }
+
+    static long rate(long bytes, long nanos) {
+        return nanos > 0 ? (long) (bytes * 1e9 / nanos) : 0;
+    }
+}
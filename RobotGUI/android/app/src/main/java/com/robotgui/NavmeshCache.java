@@ -0,0 +1,185 @@
+package com.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Least-recently-used cache of restrict-to-navmesh answers, so repeat product lookups skip
+ * the query entirely.
+ *
+ * Entries are keyed by domain id and the target rounded to {@code quantum} meters, and all
+ * belong to one map revision (the hash of the map the robot holds, see
+ * {@link MapCache#robotMapHash}). The first lookup under a different revision empties the
+ * cache, so deploying a new map invalidates every answer computed on the old one. The cache
+ * is written to navmesh_cache.json in the app folder after each change and read back on
+ * start.
+ */
+public final class NavmeshCache {
+
+    private static final String CACHE_FILE = "navmesh_cache.json";
+    private static final int DEFAULT_MAX_ENTRIES = 512;
+    private static final double DEFAULT_QUANTUM = 0.01;
+
+    private static NavmeshCache sharedInstance;
+
+    /** A cached answer: the restricted point in product coordinates and the approach yaw. */
+    public static final class Result {
+        public final double x;
+        public final double z;
+        public final double yaw;
+        /** Who computed it, "local" or "remote". */
+        public final String source;
+
+        public Result(double x, double z, double yaw, String source) {
+            this.x = x;
+            this.z = z;
+            this.yaw = yaw;
+            this.source = source;
+        }
+    }
+
+    private final File file;
+    private final double quantum;
+    private final Map<String, Result> entries;
+    private String mapRevision;
+    private boolean dirty;
+
+    NavmeshCache(File appDir, int maxEntries, double quantum) {
+        this.file = new File(appDir, CACHE_FILE);
+        this.quantum = quantum;
+        this.entries = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        load();
+    }
+
+    public static synchronized NavmeshCache getInstance(File appDir) {
+        if (sharedInstance == null) {
+            ConfigManager config = ConfigManager.INSTANCE;
+            sharedInstance = new NavmeshCache(appDir,
+                config.getNestedInt("navmesh_cache.max_entries", DEFAULT_MAX_ENTRIES),
+                config.getNestedDouble("navmesh_cache.quantum_m", DEFAULT_QUANTUM));
+        }
+        return sharedInstance;
+    }
+
+    /** The cached answer for target (x, z) on the map with mapRevision, or null. */
+    public synchronized Result get(String domainId, String mapRevision, double x, double z) {
+        if (mapRevision == null || !useRevision(mapRevision)) {
+            return null;
+        }
+        return entries.get(key(domainId, x, z));
+    }
+
+    /** Caches an answer; ignored while the robot's map is unknown. */
+    public synchronized void put(String domainId, String mapRevision, double x, double z, Result result) {
+        put(domainId, mapRevision, x, z, result, true);
+    }
+
+    /**
+     * Caches an answer, saving the cache only if save is set; a caller adding many answers
+     * passes false and calls {@link #flush} once at the end.
+     */
+    public synchronized void put(String domainId, String mapRevision, double x, double z, Result result,
+                                 boolean save) {
+        if (mapRevision == null) {
+            return;
+        }
+        useRevision(mapRevision);
+        entries.put(key(domainId, x, z), result);
+        dirty = true;
+        if (save) {
+            saveQuietly();
+        }
+    }
+
+    /** Saves answers added without saving since the last save. */
+    public synchronized void flush() {
+        if (dirty) {
+            saveQuietly();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Switches to mapRevision, dropping every entry of another one; false if there were none
+    private boolean useRevision(String revision) {
+        if (revision.equals(mapRevision)) {
+            return true;
+        }
+        mapRevision = revision;
+        if (!entries.isEmpty()) {
+            entries.clear();
+            saveQuietly();
+        }
+        return false;
+    }
+
+    private String key(String domainId, double x, double z) {
+        return domainId + "|" + Math.round(x / quantum) + "|" + Math.round(z / quantum);
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JSONObject cache = new JSONObject(MapCache.readUtf8(file));
+            mapRevision = cache.optString("mapRevision", null);
+            // Least recently used first, so inserting in order restores the LRU order
+            JSONArray list = cache.optJSONArray("entries");
+            for (int i = 0; list != null && i < list.length(); i++) {
+                JSONObject entry = list.getJSONObject(i);
+                entries.put(entry.getString("key"), new Result(entry.getDouble("x"), entry.getDouble("z"),
+                    entry.getDouble("yaw"), entry.optString("source", "remote")));
+            }
+        } catch (Exception e) {
+            // Unreadable; the lookups are simply made again
+            entries.clear();
+            mapRevision = null;
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            // Still dirty, so the next put or flush tries again
+        }
+    }
+
+    private void save() throws IOException {
+        String json;
+        try {
+            JSONArray list = new JSONArray();
+            for (Map.Entry<String, Result> entry : entries.entrySet()) {
+                Result result = entry.getValue();
+                list.put(new JSONObject()
+                    .put("key", entry.getKey())
+                    .put("x", result.x)
+                    .put("z", result.z)
+                    .put("yaw", result.yaw)
+                    .put("source", result.source));
+            }
+            json = new JSONObject()
+                .put("mapRevision", mapRevision)
+                .put("entries", list)
+                .toString();
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode " + CACHE_FILE, e);
+        }
+        MapCache.writeUtf8(file, json);
+        dirty = false;
+    }
+}
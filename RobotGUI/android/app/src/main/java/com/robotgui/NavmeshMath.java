@@ -0,0 +1,65 @@
+package com.robotgui;
+
+/**
+ * Coordinate and heading math shared by the domain navmesh and lighthouse paths. The
+ * conventions (Z flip, yaw rounding, 180 degree reversal) match the original Python tooling
+ * and must not change without re-surveying the stores.
+ */
+public final class NavmeshMath {
+
+    private NavmeshMath() {
+    }
+
+    /** Domain Z to robot Z and back: positive values become negative and vice versa. */
+    public static double flipZ(double z) {
+        return z > 0 ? -Math.abs(z) : Math.abs(z);
+    }
+
+    /**
+     * Heading for a robot standing at the restricted navmesh point (x2, z2) facing the
+     * requested target (x1, z1). Both points are in the flipped frame sent to the
+     * navmesh endpoint, i.e. before z2 is flipped back.
+     */
+    public static double navmeshYaw(double x1, double z1, double x2, double z2) {
+        double deltaX = x1 - x2;
+        double deltaZ = z1 - z2;
+
+        double yaw = Math.atan2(deltaZ, deltaX);
+        yaw = Math.round(yaw * 100.0) / 100.0;  // Round to 2 decimal places first
+        yaw = yaw > 0 ? -Math.abs(yaw) : Math.abs(yaw);  // Then negate if positive
+
+        // Reverse yaw by 180 degrees (pi radians) and normalize to [-pi, pi]
+        yaw += Math.PI;
+        if (yaw > Math.PI) {
+            yaw -= 2 * Math.PI;
+        } else if (yaw < -Math.PI) {
+            yaw += 2 * Math.PI;
+        }
+        return yaw;
+    }
+
+    /** Yaw (-pi to pi, rotated by 180 degrees and rounded to 2 places) of a ZXY-order quaternion. */
+    public static double quaternionToYaw(double x, double y, double z, double w) {
+        double sinyCosp = 2.0 * (w * z + y * x);
+        double cosyCosp = 1.0 - 2.0 * (z * z + x * x);
+        double yaw = Math.atan2(sinyCosp, cosyCosp);
+
+        // Rotate yaw by 180 degrees (PI radians)
+        yaw += Math.PI;
+
+        // Normalize to [-pi, pi]
+        while (yaw > Math.PI) yaw -= 2 * Math.PI;
+        while (yaw < -Math.PI) yaw += 2 * Math.PI;
+
+        return Math.round(yaw * 100.0) / 100.0;
+    }
+
+    public static double quaternionToPitch(double x, double y, double z, double w) {
+        double sinp = 2.0 * (w * x - y * z);
+        return Math.abs(sinp) >= 1 ? Math.copySign(Math.PI / 2, sinp) : Math.asin(sinp);
+    }
+
+    public static double quaternionToRoll(double x, double y, double z, double w) {
+        return Math.atan2(2.0 * (w * y + x * z), 1.0 - 2.0 * (x * x + y * y));
+    }
+}
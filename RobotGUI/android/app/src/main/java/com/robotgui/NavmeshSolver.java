@@ -0,0 +1,211 @@
+package com.robotgui;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Answers restrict-to-navmesh queries on the device: the walkable point nearest a target.
+ *
+ * A cell is walkable if it is free and at least radius meters from every occupied or
+ * unknown cell and from the map edge, the robot-radius inflation the domain navmesh applies
+ * to the same request. Built once per grid with two exact Euclidean distance transforms
+ * (Felzenszwalb and Huttenlocher): one from the blocked cells gives each cell's clearance,
+ * one from the walkable cells gives each cell its nearest walkable cell, kept in a direct
+ * buffer so a query is a single lookup.
+ *
+ * Coordinates are those of the grid, the robot map frame, whose y is the product z that
+ * getNavmeshCoord takes. The navmesh endpoint works in the domain frame, where z is the
+ * robot's y flipped (see {@link NavmeshMath#flipZ}); {@link #restrictTarget} answers in that
+ * frame, so local and endpoint answers go through the same result transform.
+ */
+public final class NavmeshSolver {
+
+    private static NavmeshSolver cached;
+
+    public final OccupancyGrid grid;
+    public final double radius;
+    // Row-major index of the nearest walkable cell of every cell, -1 if none is walkable
+    private final IntBuffer nearest;
+    private final int walkableCells;
+
+    private NavmeshSolver(OccupancyGrid grid, double radius, IntBuffer nearest, int walkableCells) {
+        this.grid = grid;
+        this.radius = radius;
+        this.nearest = nearest;
+        this.walkableCells = walkableCells;
+    }
+
+    /** The solver for grid and radius, built on first use and kept until either changes. */
+    public static synchronized NavmeshSolver forGrid(OccupancyGrid grid, double radius) {
+        if (cached == null || cached.grid != grid || cached.radius != radius) {
+            cached = build(grid, radius);
+        }
+        return cached;
+    }
+
+    static NavmeshSolver build(OccupancyGrid grid, double radius) {
+        int w = grid.width;
+        int h = grid.height;
+        int[] columnSite = new int[w * h];
+        // Clearance is measured from cell centers to the edge of the blocking cell
+        double minDistance = radius / grid.resolution + 0.5;
+        double minDistance2 = minDistance * minDistance;
+
+        boolean[] blocked = new boolean[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                blocked[y * w + x] = grid.state(x, y) != OccupancyGrid.FREE;
+            }
+        }
+        boolean[] walkable = new boolean[w * h];
+        int[] walkableCount = new int[1];
+        nearestSites(blocked, w, h, columnSite, (y, nearestColumn) -> {
+            double edgeY = Math.min(y + 0.5, h - y - 0.5);
+            for (int x = 0; x < w; x++) {
+                if (blocked[y * w + x]) {
+                    continue;
+                }
+                double edge = Math.min(edgeY, Math.min(x + 0.5, w - x - 0.5));
+                if (edge < minDistance - 0.5) {
+                    continue;
+                }
+                int site = nearestColumn[x];
+                if (site >= 0) {
+                    double dx = x - site;
+                    double dy = y - columnSite[site * h + y];
+                    if (dx * dx + dy * dy < minDistance2) {
+                        continue;
+                    }
+                }
+                walkable[y * w + x] = true;
+                walkableCount[0]++;
+            }
+        });
+
+        IntBuffer nearest = ByteBuffer.allocateDirect(w * h * 4).asIntBuffer();
+        nearestSites(walkable, w, h, columnSite, (y, nearestColumn) -> {
+            for (int x = 0; x < w; x++) {
+                int site = nearestColumn[x];
+                nearest.put(y * w + x, site < 0 ? -1 : columnSite[site * h + y] * w + site);
+            }
+        });
+        return new NavmeshSolver(grid, radius, nearest, walkableCount[0]);
+    }
+
+    /**
+     * Writes the walkable point nearest (x, y) to out as {x, y}: the target itself if it is
+     * walkable, else the center of the nearest walkable cell. Targets off the map are taken
+     * to the nearest cell on it first. Returns false if nothing on the map is walkable.
+     */
+    public boolean restrict(double x, double y, double[] out) {
+        int cx = Math.max(0, Math.min(grid.width - 1, grid.toCellX(x)));
+        int cy = Math.max(0, Math.min(grid.height - 1, grid.toCellY(y)));
+        int cell = cy * grid.width + cx;
+        int target = nearest.get(cell);
+        if (target < 0) {
+            return false;
+        }
+        if (target == cell && grid.contains(grid.toCellX(x), grid.toCellY(y))) {
+            out[0] = x;
+            out[1] = y;
+        } else {
+            out[0] = grid.toWorldX(target % grid.width);
+            out[1] = grid.toWorldY(target / grid.width);
+        }
+        return true;
+    }
+
+    /**
+     * {@link #restrict} for a target in product coordinates (x, z), writing the answer to
+     * out as {x, z} in the domain frame the navmesh endpoint answers in. Returns false if
+     * nothing on the map is walkable.
+     */
+    public boolean restrictTarget(double x, double z, double[] out) {
+        // Robot map y is product z
+        if (!restrict(x, z, out)) {
+            return false;
+        }
+        out[1] = NavmeshMath.flipZ(out[1]);
+        return true;
+    }
+
+    public int walkableCells() {
+        return walkableCells;
+    }
+
+    private interface RowVisitor {
+        void visit(int y, int[] nearestColumn);
+    }
+
+    /*
+     * Exact nearest site of every cell. A first pass finds, per column, the nearest site row
+     * for every row (columnSite[x * h + y], -1 if the column has none); a second pass takes
+     * the lower envelope of the parabolas (x - q)^2 + dy(q)^2 along each row. For each row
+     * the visitor gets, per column x, the column q of the nearest site (whose row is then
+     * columnSite[q * h + y]), -1 if there is no site at all.
+     */
+    private static void nearestSites(boolean[] site, int w, int h, int[] columnSite, RowVisitor visitor) {
+        for (int x = 0; x < w; x++) {
+            int base = x * h;
+            int last = -1;
+            for (int y = 0; y < h; y++) {
+                if (site[y * w + x]) {
+                    last = y;
+                }
+                columnSite[base + y] = last;
+            }
+            last = -1;
+            for (int y = h - 1; y >= 0; y--) {
+                if (site[y * w + x]) {
+                    last = y;
+                }
+                int above = columnSite[base + y];
+                if (last >= 0 && (above < 0 || last - y < y - above)) {
+                    columnSite[base + y] = last;
+                }
+            }
+        }
+
+        long[] f = new long[w];
+        int[] v = new int[w];
+        double[] z = new double[w + 1];
+        int[] nearestColumn = new int[w];
+        for (int y = 0; y < h; y++) {
+            int k = -1;
+            for (int q = 0; q < w; q++) {
+                int row = columnSite[q * h + y];
+                if (row < 0) {
+                    continue;
+                }
+                long dy = y - row;
+                f[q] = dy * dy;
+                double s = Double.NEGATIVE_INFINITY;
+                while (k >= 0) {
+                    int p = v[k];
+                    s = ((f[q] + (long) q * q) - (f[p] + (long) p * p)) / (2.0 * (q - p));
+                    if (s > z[k]) {
+                        break;
+                    }
+                    k--;
+                }
+                k++;
+                v[k] = q;
+                z[k] = k == 0 ? Double.NEGATIVE_INFINITY : s;
+                z[k + 1] = Double.POSITIVE_INFINITY;
+            }
+            if (k < 0) {
+                Arrays.fill(nearestColumn, -1);
+            } else {
+                int j = 0;
+                for (int x = 0; x < w; x++) {
+                    while (z[j + 1] < x) {
+                        j++;
+                    }
+                    nearestColumn[x] = v[j];
+                }
+            }
+            visitor.visit(y, nearestColumn);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.robotgui;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The robot's map as an occupancy grid, for spatial queries on the device instead of round
+ * trips to the robot.
+ *
+ * Built from map.bmp and the map.yaml next to it, read the way ROS map_server reads them:
+ * a pixel's occupancy is its darkness (or brightness with negate: 1), above occupied_thresh
+ * it is occupied, below free_thresh free, unknown in between. Cell (0, 0) is the bottom left
+ * pixel, whose corner sits at the YAML origin; the origin's yaw is ignored, as map_server
+ * does.
+ *
+ * Cells are packed four to a byte in a direct buffer, so a large map costs a quarter byte
+ * per cell off the Java heap. The grid never changes once built; one instance is shared by
+ * every thread and rebuilt only when either file changes (see {@link #forFiles}).
+ */
+public final class OccupancyGrid {
+
+    public static final int FREE = 0;
+    public static final int OCCUPIED = 1;
+    public static final int UNKNOWN = 2;
+
+    private static OccupancyGrid cached;
+
+    public final int width;
+    public final int height;
+    /** Meters per cell. */
+    public final double resolution;
+    /** World position of the bottom left corner of cell (0, 0). */
+    public final double originX;
+    public final double originY;
+    /** Identifies the map files the grid was built from. */
+    public final String revision;
+    private final int rowBytes;
+    private final ByteBuffer cells;
+    private final int[] counts;
+
+    private OccupancyGrid(int width, int height, double resolution, double originX, double originY,
+                          String revision, ByteBuffer cells, int[] counts) {
+        this.width = width;
+        this.height = height;
+        this.resolution = resolution;
+        this.originX = originX;
+        this.originY = originY;
+        this.revision = revision;
+        this.rowBytes = (width + 3) / 4;
+        this.cells = cells;
+        this.counts = counts;
+    }
+
+    /**
+     * The grid for bmp and yaml, built on first use and again only after either file has
+     * changed since. Concurrent callers wait for a single build.
+     */
+    public static synchronized OccupancyGrid forFiles(File bmp, File yaml) throws IOException {
+        if (!bmp.exists() || !yaml.exists()) {
+            throw new IOException("Map files missing, download the map image and YAML first");
+        }
+        String revision = revisionOf(bmp, yaml);
+        if (cached == null || !cached.revision.equals(revision)) {
+            cached = load(bmp, yaml, revision);
+        }
+        return cached;
+    }
+
+    static OccupancyGrid load(File bmp, File yaml, String revision) throws IOException {
+        Map<String, Object> metadata;
+        try (Reader reader = new FileReader(yaml)) {
+            metadata = new Yaml().load(reader);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid map YAML: " + e.getMessage(), e);
+        }
+        if (metadata == null || !(metadata.get("resolution") instanceof Number)) {
+            throw new IOException("Map YAML has no resolution");
+        }
+        double originX = 0;
+        double originY = 0;
+        if (metadata.get("origin") instanceof List) {
+            List<?> origin = (List<?>) metadata.get("origin");
+            originX = origin.size() > 0 ? ((Number) origin.get(0)).doubleValue() : 0;
+            originY = origin.size() > 1 ? ((Number) origin.get(1)).doubleValue() : 0;
+        }
+        return fromBmp(bmp,
+            ((Number) metadata.get("resolution")).doubleValue(),
+            originX,
+            originY,
+            number(metadata.get("negate"), 0) != 0,
+            number(metadata.get("occupied_thresh"), 0.65),
+            number(metadata.get("free_thresh"), 0.196),
+            revision);
+    }
+
+    static OccupancyGrid fromBmp(File bmp, double resolution, double originX, double originY, boolean negate,
+                                 double occupiedThresh, double freeThresh, String revision) throws IOException {
+        if (resolution <= 0) {
+            throw new IOException("Invalid map resolution " + resolution);
+        }
+        try (RandomAccessFile in = new RandomAccessFile(bmp, "r")) {
+            BmpPngTranscoder.Header header = BmpPngTranscoder.Header.read(in);
+            int width = header.width;
+            int height = header.height;
+            int bytesPerPixel = header.bitsPerPixel / 8;
+
+            // State of every gray level, so pixels are classified by lookup
+            int[] stateOfGray = new int[256];
+            for (int gray = 0; gray < 256; gray++) {
+                double occupancy = negate ? gray / 255.0 : (255 - gray) / 255.0;
+                stateOfGray[gray] = occupancy > occupiedThresh ? OCCUPIED
+                    : occupancy < freeThresh ? FREE : UNKNOWN;
+            }
+            int[] stateOfIndex = null;
+            if (header.palette != null) {
+                stateOfIndex = new int[256];
+                for (int i = 0; i < 256; i++) {
+                    int p = i * 4;
+                    int gray = ((header.palette[p] & 0xff) + (header.palette[p + 1] & 0xff)
+                        + (header.palette[p + 2] & 0xff)) / 3;
+                    stateOfIndex[i] = stateOfGray[gray];
+                }
+            }
+
+            int rowBytes = (width + 3) / 4;
+            ByteBuffer cells = ByteBuffer.allocateDirect(rowBytes * height);
+            byte[] row = new byte[header.stride];
+            byte[] packed = new byte[rowBytes];
+            int[] counts = new int[3];
+            for (int imageY = 0; imageY < height; imageY++) {
+                in.seek(header.rowOffset(imageY));
+                in.readFully(row);
+                Arrays.fill(packed, (byte) 0);
+                for (int x = 0, i = 0; x < width; x++, i += bytesPerPixel) {
+                    int state;
+                    if (stateOfIndex != null) {
+                        state = stateOfIndex[row[i] & 0xff];
+                    } else {
+                        state = stateOfGray[((row[i] & 0xff) + (row[i + 1] & 0xff) + (row[i + 2] & 0xff)) / 3];
+                    }
+                    counts[state]++;
+                    packed[x >> 2] |= (byte) (state << ((x & 3) * 2));
+                }
+                // Image rows run top down, cell rows bottom up
+                cells.position((height - 1 - imageY) * rowBytes);
+                cells.put(packed);
+            }
+            cells.clear();
+            return new OccupancyGrid(width, height, resolution, originX, originY, revision,
+                cells.asReadOnlyBuffer(), counts);
+        }
+    }
+
+    /** State of cell (cx, cy); cells outside the map are unknown. */
+    public int state(int cx, int cy) {
+        if (!contains(cx, cy)) {
+            return UNKNOWN;
+        }
+        // Absolute get: no shared position, so safe from any thread
+        return (cells.get(cy * rowBytes + (cx >> 2)) >> ((cx & 3) * 2)) & 3;
+    }
+
+    /** State of the cell containing world point (x, y). */
+    public int stateAt(double x, double y) {
+        return state(toCellX(x), toCellY(y));
+    }
+
+    public boolean contains(int cx, int cy) {
+        return cx >= 0 && cy >= 0 && cx < width && cy < height;
+    }
+
+    public int toCellX(double x) {
+        return (int) Math.floor((x - originX) / resolution);
+    }
+
+    public int toCellY(double y) {
+        return (int) Math.floor((y - originY) / resolution);
+    }
+
+    /** World X of the center of cell column cx. */
+    public double toWorldX(int cx) {
+        return originX + (cx + 0.5) * resolution;
+    }
+
+    /** World Y of the center of cell row cy. */
+    public double toWorldY(int cy) {
+        return originY + (cy + 0.5) * resolution;
+    }
+
+    /** Number of cells in the given state. */
+    public int count(int state) {
+        return counts[state];
+    }
+
+    public static String stateName(int state) {
+        switch (state) {
+            case FREE:
+                return "free";
+            case OCCUPIED:
+                return "occupied";
+            default:
+                return "unknown";
+        }
+    }
+
+    private static String revisionOf(File bmp, File yaml) {
+        return bmp.length() + ":" + bmp.lastModified() + ":" + yaml.length() + ":" + yaml.lastModified();
+    }
+
+    private static double number(Object value, double defaultValue) {
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+}
@@ -0,0 +1,217 @@
+package com.robotgui;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request bodies for the motion actions posted to /api/core/motion/v1/actions.
+ *
+ * Each action's JSON is split at class load into constant byte segments with gaps for
+ * the coordinates, so encoding a command only formats the numbers into a per-thread
+ * scratch buffer and copies the result once. The returned body has a fixed length,
+ * which OkHttp sends with Content-Length straight from that array.
+ */
+public final class SlamtecActionEncoder {
+
+    /** Plain navigation: face the target yaw, no precision or retry requirements. */
+    public static final MoveToTemplate NAVIGATE =
+        new MoveToTemplate(new String[] {"with_yaw"}, "0", 0);
+
+    /** Product navigation: precise docking at the shelf with a few retries. */
+    public static final MoveToTemplate NAVIGATE_PRECISE =
+        new MoveToTemplate(new String[] {"with_yaw", "precise"}, "0.5", 3);
+
+    private static final byte[] SERIES_HEAD = ascii(
+        "{\"action_name\":\"slamtec.agent.actions.SeriesMoveToAction\",\"options\":{\"targets\":[");
+    private static final byte[] SERIES_TAIL = ascii(
+        "],\"move_options\":{\"mode\":0,\"acceptable_precision\":10,\"fail_retry_count\":0}}}");
+    private static final byte[] TARGET_X = ascii("{\"x\":");
+    private static final byte[] TARGET_Y = ascii(",\"y\":");
+    private static final byte[] TARGET_END = ascii(",\"z\":0}");
+
+    private static final byte[] GO_HOME = ascii(
+        "{\"action_name\":\"slamtec.agent.actions.GoHomeAction\",\"gohome_options\":"
+            + "{\"flags\":\"dock\",\"back_to_landing\":true,\"charging_retry_count\":3}}");
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private SlamtecActionEncoder() {
+    }
+
+    /** A precompiled MoveToAction body with fixed move options. */
+    public static final class MoveToTemplate {
+        private final byte[] head;
+        private final byte[] beforeY;
+        private final byte[] beforeYaw;
+        private final byte[] tail;
+
+        MoveToTemplate(String[] flags, String acceptablePrecision, int failRetryCount) {
+            StringBuilder flagsJson = new StringBuilder("[");
+            for (int i = 0; i < flags.length; i++) {
+                if (i > 0) {
+                    flagsJson.append(',');
+                }
+                flagsJson.append('"').append(flags[i]).append('"');
+            }
+            flagsJson.append(']');
+            this.head = ascii("{\"action_name\":\"slamtec.agent.actions.MoveToAction\","
+                + "\"options\":{\"target\":{\"x\":");
+            this.beforeY = ascii(",\"y\":");
+            this.beforeYaw = ascii(",\"z\":0},\"move_options\":{\"mode\":0,\"flags\":" + flagsJson + ",\"yaw\":");
+            this.tail = ascii(",\"acceptable_precision\":" + acceptablePrecision
+                + ",\"fail_retry_count\":" + failRetryCount + "}}}");
+        }
+    }
+
+    public static RequestBody moveTo(MoveToTemplate template, double x, double y, double yaw) {
+        Scratch out = SCRATCH.get().reset();
+        out.write(template.head);
+        out.writeNumber(x);
+        out.write(template.beforeY);
+        out.writeNumber(y);
+        out.write(template.beforeYaw);
+        out.writeNumber(yaw);
+        out.write(template.tail);
+        return new FixedLengthBody(out.toByteArray());
+    }
+
+    /**
+     * SeriesMoveToAction through the given targets, packed as x0, y0, x1, y1, ...
+     * z is always 0.
+     */
+    public static RequestBody seriesMoveTo(double[] targetsXY) {
+        if (targetsXY.length % 2 != 0) {
+            throw new IllegalArgumentException("Targets must be x/y pairs");
+        }
+        Scratch out = SCRATCH.get().reset();
+        out.write(SERIES_HEAD);
+        for (int i = 0; i < targetsXY.length; i += 2) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(TARGET_X);
+            out.writeNumber(targetsXY[i]);
+            out.write(TARGET_Y);
+            out.writeNumber(targetsXY[i + 1]);
+            out.write(TARGET_END);
+        }
+        out.write(SERIES_TAIL);
+        return new FixedLengthBody(out.toByteArray());
+    }
+
+    /** GoHomeAction to the dock. The body is constant and shared. */
+    public static RequestBody goHome() {
+        return new FixedLengthBody(GO_HOME);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Writes its array as is; OkHttp sends it with a Content-Length header. */
+    static final class FixedLengthBody extends RequestBody {
+        private final byte[] bytes;
+
+        FixedLengthBody(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return SlamtecHttpClient.JSON;
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws java.io.IOException {
+            sink.write(bytes);
+        }
+    }
+
+    /** Growable byte buffer reused by every encode on the same thread. */
+    private static final class Scratch {
+        private byte[] buf = new byte[512];
+        private int len;
+        private final char[] digits = new char[20];
+
+        Scratch reset() {
+            len = 0;
+            return this;
+        }
+
+        void write(int b) {
+            ensure(1);
+            buf[len++] = (byte) b;
+        }
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, len, bytes.length);
+            len += bytes.length;
+        }
+
+        // Formats like JSONObject.numberToString on the device: -0.0 as "-0", values equal
+        // to their long cast as that long, the rest as Double.toString
+        void writeNumber(double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                // Same rule as JSONObject.put: JSON has no representation for these
+                throw new IllegalArgumentException("Forbidden numeric value: " + value);
+            }
+            if (value == 0 && Double.doubleToRawLongBits(value) != 0) {
+                write('-');
+                write('0');
+                return;
+            }
+            long whole = (long) value;
+            if (whole == value) {
+                writeLong(whole);
+                return;
+            }
+            String text = Double.toString(value);
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buf[len++] = (byte) text.charAt(i);
+            }
+        }
+
+        private void writeLong(long value) {
+            if (value < 0) {
+                write('-');
+            }
+            // Digits of the non-positive value, which cannot overflow for Long.MIN_VALUE
+            long rest = value < 0 ? value : -value;
+            int count = 0;
+            do {
+                digits[count++] = (char) ('0' - (rest % 10));
+                rest /= 10;
+            } while (rest != 0);
+            ensure(count);
+            while (count > 0) {
+                buf[len++] = (byte) digits[--count];
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, len);
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+            }
+        }
+    }
+}
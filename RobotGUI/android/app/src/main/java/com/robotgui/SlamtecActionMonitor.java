@@ -0,0 +1,191 @@
+package com.robotgui;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+
+import com.robotgui.SlamtecHttpClient.SlamtecResponse;
+
+/**
+ * Watches every in-flight motion action from a single thread.
+ *
+ * Each tracked action is polled at /api/core/motion/v1/actions/{id} on its own
+ * schedule: every {@code fastIntervalMs} right after submission or whenever its stage
+ * or status changes, backing off towards {@code slowIntervalMs} during long traversals.
+ * Polls run one at a time, so N actions cost one thread and one pooled connection.
+ * An action is complete once the robot stops reporting an action_name for it.
+ */
+public final class SlamtecActionMonitor {
+
+    /** Callbacks run on the monitor thread; implementations should hand off quickly. */
+    public interface Listener {
+        void onProgress(String actionId, String actionName, String stage, int status, long elapsedMs);
+
+        void onComplete(String actionId, long elapsedMs);
+
+        void onFailed(String actionId, String message);
+    }
+
+    private static final String ACTIONS_PATH = "/api/core/motion/v1/actions/";
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final SlamtecHttpClient client;
+    private final long fastIntervalMs;
+    private final long slowIntervalMs;
+    private final long fastWindowMs;
+    private final long timeoutMs;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<String, TrackedAction> actions = new ConcurrentHashMap<>();
+
+    public SlamtecActionMonitor(SlamtecHttpClient client, long fastIntervalMs, long slowIntervalMs,
+                                long fastWindowMs, long timeoutMs) {
+        this.client = client;
+        this.fastIntervalMs = fastIntervalMs;
+        this.slowIntervalMs = Math.max(fastIntervalMs, slowIntervalMs);
+        this.fastWindowMs = fastWindowMs;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "slam-action-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public static SlamtecActionMonitor fromConfig(SlamtecHttpClient client) {
+        ConfigManager config = ConfigManager.INSTANCE;
+        return new SlamtecActionMonitor(client,
+            config.getNestedInt("action_monitor.fast_interval_ms", 200),
+            config.getNestedInt("action_monitor.slow_interval_ms", 2000),
+            config.getNestedInt("action_monitor.fast_window_ms", 3000),
+            config.getNestedInt("action_monitor.timeout_ms", 300000));
+    }
+
+    /**
+     * Starts watching {@code actionId}. Exactly one of onComplete or onFailed is called
+     * for it. Tracking an id that is already tracked replaces the old listener, which is
+     * failed so its caller is not left waiting.
+     */
+    public void track(String actionId, Listener listener) {
+        TrackedAction action = new TrackedAction(actionId, listener);
+        TrackedAction previous = actions.put(actionId, action);
+        if (previous != null) {
+            previous.cancel();
+            previous.listener.onFailed(actionId, "Action monitoring superseded");
+        }
+        action.scheduleIn(0);
+    }
+
+    /** Polls every tracked action right away, e.g. after a stop command. */
+    public void pollNow() {
+        for (TrackedAction action : actions.values()) {
+            action.interval = fastIntervalMs;
+            action.scheduleIn(0);
+        }
+    }
+
+    public int getActiveCount() {
+        return actions.size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void poll(TrackedAction action) {
+        if (actions.get(action.actionId) != action) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - action.startTime;
+        if (elapsed > timeoutMs) {
+            finish(action, "Action monitoring timed out after " + timeoutMs / 1000 + " seconds");
+            return;
+        }
+
+        try (SlamtecResponse response = client.get(ACTIONS_PATH + action.actionId)) {
+            int code = response.code();
+            if (code != 200) {
+                retryOrFail(action, "Action monitoring failed: " + code);
+                return;
+            }
+            JSONObject body = new JSONObject(response.bodyString());
+            action.retryCount = 0;
+            if (!body.has("action_name")) {
+                finish(action, null);
+                return;
+            }
+
+            String stage = body.optString("stage", "");
+            JSONObject state = body.optJSONObject("state");
+            int status = state != null ? state.optInt("status", -1) : -1;
+            if (!stage.equals(action.lastStage) || status != action.lastStatus) {
+                action.lastStage = stage;
+                action.lastStatus = status;
+                action.interval = fastIntervalMs;
+                action.listener.onProgress(action.actionId, body.optString("action_name", ""),
+                    stage, status, elapsed);
+            } else if (elapsed > fastWindowMs) {
+                // Nothing new during a long traversal, back off towards the slow interval
+                action.interval = Math.min(slowIntervalMs, action.interval * 3 / 2);
+            }
+            action.scheduleIn(action.interval);
+        } catch (Exception e) {
+            retryOrFail(action, "Error monitoring action: " + e.getMessage());
+        }
+    }
+
+    private void retryOrFail(TrackedAction action, String message) {
+        if (action.retryCount < MAX_RETRIES) {
+            action.retryCount++;
+            action.scheduleIn(RETRY_DELAY_MS);
+        } else {
+            finish(action, message);
+        }
+    }
+
+    private void finish(TrackedAction action, String failure) {
+        if (!actions.remove(action.actionId, action)) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - action.startTime;
+        if (failure == null) {
+            action.listener.onComplete(action.actionId, elapsed);
+        } else {
+            action.listener.onFailed(action.actionId, failure);
+        }
+    }
+
+    private final class TrackedAction {
+        final String actionId;
+        final Listener listener;
+        final long startTime = System.currentTimeMillis();
+        long interval = fastIntervalMs;
+        int retryCount;
+        String lastStage;
+        int lastStatus = Integer.MIN_VALUE;
+        private ScheduledFuture<?> pending;
+
+        TrackedAction(String actionId, Listener listener) {
+            this.actionId = actionId;
+            this.listener = listener;
+        }
+
+        synchronized void scheduleIn(long delayMs) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pending = executor.schedule(() -> poll(this), delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void cancel() {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+    }
+}
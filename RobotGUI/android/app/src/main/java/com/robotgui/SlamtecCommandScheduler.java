@@ -0,0 +1,197 @@
+package com.robotgui;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs robot REST work on a fixed number of threads, ordered by priority.
+ *
+ * Queued motion commands always run before queued telemetry reads, which run before
+ * bulk map transfers. Within a class tasks keep their submission order. At most
+ * {@code maxBulk} bulk tasks run at once, so a map upload can never take every thread
+ * away from a stop command.
+ */
+public final class SlamtecCommandScheduler {
+
+    /** Priority classes, highest first. */
+    public enum Priority {
+        /** Stop, navigate, go home and anything else that moves the robot. */
+        MOTION,
+        /** Short writes that do not move the robot: POIs, home dock, pose, parameters. */
+        COMMAND,
+        /** Pose, power, health and info reads. */
+        TELEMETRY,
+        /** Map uploads, downloads and persistent saves. */
+        BULK
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int maxBulk;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ClassStats[] stats = new ClassStats[Priority.values().length];
+
+    // Bulk tasks waiting for a free bulk slot, guarded by bulkLock
+    private final Object bulkLock = new Object();
+    private final ArrayDeque<Task> pendingBulk = new ArrayDeque<>();
+    private int runningBulk;
+
+    public SlamtecCommandScheduler(int threads, int maxBulk) {
+        this.maxBulk = Math.max(1, Math.min(maxBulk, threads));
+        for (Priority priority : Priority.values()) {
+            stats[priority.ordinal()] = new ClassStats();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "slam-cmd-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Core == max and an unbounded queue: the thread count never grows past the budget
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static SlamtecCommandScheduler fromConfig() {
+        ConfigManager config = ConfigManager.INSTANCE;
+        int threads = config.getNestedInt("slam_scheduler.threads",
+            config.getNestedInt("slam_http.max_connections", 4));
+        return new SlamtecCommandScheduler(Math.max(1, threads),
+            config.getNestedInt("slam_scheduler.max_bulk", 1));
+    }
+
+    public void execute(Priority priority, Runnable runnable) {
+        Task task = new Task(priority, sequence.incrementAndGet(), runnable);
+        stats[priority.ordinal()].queued.incrementAndGet();
+        if (priority == Priority.BULK) {
+            synchronized (bulkLock) {
+                if (runningBulk >= maxBulk) {
+                    pendingBulk.addLast(task);
+                    return;
+                }
+                runningBulk++;
+            }
+        }
+        executor.execute(task);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Per-class counters: queued and running tasks, completed count and queue wait times
+     * (submission to start) in milliseconds. Keys are the lower-case class names.
+     */
+    public Map<String, Map<String, Number>> snapshot() {
+        Map<String, Map<String, Number>> result = new LinkedHashMap<>();
+        for (Priority priority : Priority.values()) {
+            ClassStats classStats = stats[priority.ordinal()];
+            long completed = classStats.completed.get();
+            Map<String, Number> entry = new LinkedHashMap<>();
+            entry.put("queued", classStats.queued.get());
+            entry.put("running", classStats.running.get());
+            entry.put("completed", completed);
+            entry.put("avgWaitMs", completed > 0 ? classStats.totalWaitMs.get() / (double) completed : 0.0);
+            entry.put("maxWaitMs", classStats.maxWaitMs.get());
+            entry.put("lastWaitMs", classStats.lastWaitMs.get());
+            result.put(priority.name().toLowerCase(), entry);
+        }
+        return result;
+    }
+
+    public int getQueueDepth() {
+        synchronized (bulkLock) {
+            return executor.getQueue().size() + pendingBulk.size();
+        }
+    }
+
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    public int getThreadBudget() {
+        return executor.getMaximumPoolSize();
+    }
+
+    private void onBulkFinished() {
+        Task next;
+        synchronized (bulkLock) {
+            next = pendingBulk.pollFirst();
+            if (next == null) {
+                runningBulk--;
+                return;
+            }
+            // The finished task's slot passes straight to the next one
+        }
+        executor.execute(next);
+    }
+
+    private static final class ClassStats {
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong totalWaitMs = new AtomicLong();
+        final AtomicLong maxWaitMs = new AtomicLong();
+        final AtomicLong lastWaitMs = new AtomicLong();
+
+        void started(long waitMs) {
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            lastWaitMs.set(waitMs);
+            totalWaitMs.addAndGet(waitMs);
+            long max;
+            do {
+                max = maxWaitMs.get();
+            } while (waitMs > max && !maxWaitMs.compareAndSet(max, waitMs));
+        }
+
+        void finished() {
+            running.decrementAndGet();
+            completed.incrementAndGet();
+        }
+    }
+
+    private final class Task implements Runnable, Comparable<Task> {
+        final Priority priority;
+        final long seq;
+        final Runnable runnable;
+        final long enqueuedAt = System.nanoTime();
+
+        Task(Priority priority, long seq, Runnable runnable) {
+            this.priority = priority;
+            this.seq = seq;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            ClassStats classStats = stats[priority.ordinal()];
+            classStats.started(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt));
+            // Lets TransportMetrics attribute this task's queue wait to its first request
+            TransportMetrics.QUEUED_AT.set(new long[] {enqueuedAt});
+            try {
+                runnable.run();
+            } finally {
+                TransportMetrics.QUEUED_AT.remove();
+                classStats.finished();
+                if (priority == Priority.BULK) {
+                    onBulkFinished();
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.robotgui;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Shared transport for the Slamtec REST API on the robot (port 1448 by default).
+ *
+ * Every call goes through one OkHttp connection pool, so sockets to the robot are
+ * kept alive and reused instead of being opened (and leaked) per request. The number
+ * of concurrently open connections is bounded, and each endpoint class gets its own
+ * timeouts. Callers must close the returned {@link SlamtecResponse}, ideally with
+ * try-with-resources, so the connection goes back to the pool.
+ */
+public final class SlamtecHttpClient {
+    public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    public static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    /** Timeout classes for the robot endpoints. */
+    public enum EndpointClass {
+        /** Small, frequent reads: health, info, pose, power. */
+        TELEMETRY,
+        /** Motion actions, POIs, home pose, parameters, clears. */
+        COMMAND,
+        /** Map uploads/downloads and persistent map saves. */
+        BULK
+    }
+
+    private static SlamtecHttpClient sharedInstance;
+
+    private final String baseUrl;
+    private final OkHttpClient telemetryClient;
+    private final OkHttpClient commandClient;
+    private final OkHttpClient bulkClient;
+    private final int telemetryTimeoutMs;
+    private final int commandTimeoutMs;
+    private final int bulkTimeoutMs;
+    private final Semaphore connectionPermits;
+
+    public SlamtecHttpClient(String baseUrl, int maxConnections, long keepAliveMs,
+                             int telemetryTimeoutMs, int commandTimeoutMs, int bulkTimeoutMs) {
+        this.baseUrl = baseUrl;
+        this.telemetryTimeoutMs = telemetryTimeoutMs;
+        this.commandTimeoutMs = commandTimeoutMs;
+        this.bulkTimeoutMs = bulkTimeoutMs;
+        this.connectionPermits = new Semaphore(maxConnections, true);
+
+        // All three clients share the same pool and dispatcher, only the timeouts differ
+        OkHttpClient base = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(maxConnections, keepAliveMs, TimeUnit.MILLISECONDS))
+            .retryOnConnectionFailure(true)
+            .eventListenerFactory(TransportMetrics.getInstance().eventListenerFactory("slam", false))
+            .build();
+        this.telemetryClient = withTimeouts(base, telemetryTimeoutMs);
+        this.commandClient = withTimeouts(base, commandTimeoutMs);
+        this.bulkClient = withTimeouts(base, bulkTimeoutMs);
+    }
+
+    /**
+     * Returns the process-wide client configured from config.yaml. Both SlamtecUtilsModule
+     * and DomainUtilsModule use this instance so they share one pool of robot connections.
+     */
+    public static synchronized SlamtecHttpClient getInstance() {
+        if (sharedInstance == null) {
+            ConfigManager config = ConfigManager.INSTANCE;
+            String slamIp = config.getString("slam_ip", "127.0.0.1");
+            int slamPort = config.getInt("slam_port", 1448);
+            sharedInstance = new SlamtecHttpClient(
+                "http://" + slamIp + ":" + slamPort,
+                config.getNestedInt("slam_http.max_connections", 4),
+                config.getNestedInt("slam_http.keep_alive_ms", 300000),
+                config.getInt("timeout_ms", 1000),
+                config.getNestedInt("slam_http.command_timeout_ms", 5000),
+                config.getNestedInt("slam_http.bulk_timeout_ms", 60000));
+        }
+        return sharedInstance;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public SlamtecResponse get(String path) throws IOException {
+        return execute("GET", path, null);
+    }
+
+    public SlamtecResponse post(String path, RequestBody body) throws IOException {
+        return execute("POST", path, body);
+    }
+
+    public SlamtecResponse put(String path, RequestBody body) throws IOException {
+        return execute("PUT", path, body);
+    }
+
+    public SlamtecResponse delete(String path) throws IOException {
+        return execute("DELETE", path, null);
+    }
+
+    /**
+     * Sends a request and returns only the response code. The body is drained and the
+     * connection released before this returns.
+     */
+    public int send(String method, String path, RequestBody body) throws IOException {
+        try (SlamtecResponse response = execute(method, path, body)) {
+            return response.code();
+        }
+    }
+
+    public SlamtecResponse execute(String method, String path, RequestBody body) throws IOException {
+        if (body == null && ("POST".equals(method) || "PUT".equals(method))) {
+            // OkHttp requires a body for POST/PUT, the robot accepts an empty one
+            body = RequestBody.create(new byte[0], OCTET_STREAM);
+        }
+        Request request = new Request.Builder()
+            .url(baseUrl + path)
+            .method(method, body)
+            .build();
+
+        EndpointClass endpointClass = classify(method, path);
+        acquirePermit(path, timeoutFor(endpointClass));
+        try {
+            Response response = clientFor(endpointClass).newCall(request).execute();
+            return new SlamtecResponse(response, connectionPermits);
+        } catch (IOException | RuntimeException e) {
+            connectionPermits.release();
+            throw e;
+        }
+    }
+
+    static EndpointClass classify(String method, String path) {
+        if (path.startsWith("/api/core/slam/v1/maps/stcm")
+                || path.startsWith("/api/core/slam/v1/maps?format")
+                || path.startsWith("/api/core/slam/v1/maps/yaml")
+                || path.startsWith("/api/multi-floor/map/v1/stcm")) {
+            return EndpointClass.BULK;
+        }
+        if ("GET".equals(method)
+                && (path.startsWith("/api/core/system/v1/robot/health")
+                || path.startsWith("/api/core/system/v1/robot/info")
+                || path.startsWith("/api/core/system/v1/power/status")
+                || path.startsWith("/api/core/slam/v1/localization/pose"))) {
+            return EndpointClass.TELEMETRY;
+        }
+        return EndpointClass.COMMAND;
+    }
+
+    private OkHttpClient clientFor(EndpointClass endpointClass) {
+        switch (endpointClass) {
+            case TELEMETRY:
+                return telemetryClient;
+            case BULK:
+                return bulkClient;
+            default:
+                return commandClient;
+        }
+    }
+
+    private int timeoutFor(EndpointClass endpointClass) {
+        switch (endpointClass) {
+            case TELEMETRY:
+                return telemetryTimeoutMs;
+            case BULK:
+                return bulkTimeoutMs;
+            default:
+                return commandTimeoutMs;
+        }
+    }
+
+    private void acquirePermit(String path, long timeoutMs) throws IOException {
+        try {
+            if (!connectionPermits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("No free SLAM connection for " + path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for SLAM connection", e);
+        }
+    }
+
+    private static OkHttpClient withTimeouts(OkHttpClient base, int timeoutMs) {
+        return base.newBuilder()
+            .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .writeTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * A response from the robot. Closing it releases the body and returns the
+     * connection to the pool; closing more than once is harmless.
+     */
+    public static final class SlamtecResponse implements Closeable {
+        private final Response response;
+        private final Semaphore permits;
+        private boolean closed;
+
+        SlamtecResponse(Response response, Semaphore permits) {
+            this.response = response;
+            this.permits = permits;
+        }
+
+        public int code() {
+            return response.code();
+        }
+
+        /** True for the 200..204 range the robot uses for successful commands. */
+        public boolean isSuccess() {
+            return response.code() >= 200 && response.code() <= 204;
+        }
+
+        public String header(String name) {
+            return response.header(name);
+        }
+
+        public long contentLength() {
+            ResponseBody body = response.body();
+            return body != null ? body.contentLength() : -1;
+        }
+
+        public String bodyString() throws IOException {
+            ResponseBody body = response.body();
+            return body != null ? body.string() : "";
+        }
+
+        public InputStream byteStream() {
+            ResponseBody body = response.body();
+            return body != null ? body.byteStream() : new java.io.ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                response.close();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
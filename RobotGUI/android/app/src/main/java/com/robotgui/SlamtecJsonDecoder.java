@@ -0,0 +1,371 @@
+package com.robotgui;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoders for Slamtec REST responses.
+ *
+ * Responses are read token by token straight from the socket with JsonReader, either
+ * into typed values for the fixed schemas (pose, power status, action id) or into
+ * WritableMap/WritableArray for free-form payloads like POIs. Nothing is buffered as a
+ * String or an org.json tree first. Numbers keep the convertJsonToWritableMap
+ * convention: integral values that fit an int become ints, everything else doubles.
+ */
+public final class SlamtecJsonDecoder {
+
+    private SlamtecJsonDecoder() {
+    }
+
+    /** Robot pose from /api/core/slam/v1/localization/pose. Missing fields are 0. */
+    public static final class Pose {
+        public final double x;
+        public final double y;
+        public final double z;
+        public final double yaw;
+        public final double pitch;
+        public final double roll;
+
+        Pose(double x, double y, double z, double yaw, double pitch, double roll) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+            this.roll = roll;
+        }
+    }
+
+    /** Battery and dock state from /api/core/system/v1/power/status. */
+    public static final class PowerStatus {
+        public final int batteryPercentage;
+        public final String dockingStatus;
+        public final boolean isCharging;
+        public final boolean isDCConnected;
+        public final String powerStage;
+        public final String sleepMode;
+
+        PowerStatus(int batteryPercentage, String dockingStatus, boolean isCharging,
+                    boolean isDCConnected, String powerStage, String sleepMode) {
+            this.batteryPercentage = batteryPercentage;
+            this.dockingStatus = dockingStatus;
+            this.isCharging = isCharging;
+            this.isDCConnected = isDCConnected;
+            this.powerStage = powerStage;
+            this.sleepMode = sleepMode;
+        }
+    }
+
+    public static Pose readPose(InputStream in) throws IOException {
+        double x = 0, y = 0, z = 0, yaw = 0, pitch = 0, roll = 0;
+        try (JsonReader reader = open(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "x": x = nextDouble(reader, 0.0); break;
+                    case "y": y = nextDouble(reader, 0.0); break;
+                    case "z": z = nextDouble(reader, 0.0); break;
+                    case "yaw": yaw = nextDouble(reader, 0.0); break;
+                    case "pitch": pitch = nextDouble(reader, 0.0); break;
+                    case "roll": roll = nextDouble(reader, 0.0); break;
+                    default: reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return new Pose(x, y, z, yaw, pitch, roll);
+    }
+
+    public static PowerStatus readPowerStatus(InputStream in) throws IOException {
+        int batteryPercentage = -1;
+        String dockingStatus = "";
+        boolean isCharging = false;
+        boolean isDCConnected = false;
+        String powerStage = "";
+        String sleepMode = "";
+        try (JsonReader reader = open(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "batteryPercentage":
+                        batteryPercentage = (int) nextDouble(reader, -1);
+                        break;
+                    case "dockingStatus": dockingStatus = nextString(reader, ""); break;
+                    case "isCharging": isCharging = nextBoolean(reader, false); break;
+                    case "isDCConnected": isDCConnected = nextBoolean(reader, false); break;
+                    case "powerStage": powerStage = nextString(reader, ""); break;
+                    case "sleepMode": sleepMode = nextString(reader, ""); break;
+                    default: reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return new PowerStatus(batteryPercentage, dockingStatus, isCharging, isDCConnected,
+            powerStage, sleepMode);
+    }
+
+    /**
+     * Returns the top-level string field {@code field} of a JSON object, e.g. action_id
+     * from a motion action response, or null if it is absent.
+     */
+    public static String readStringField(InputStream in, String field) throws IOException {
+        String value = null;
+        try (JsonReader reader = open(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (field.equals(reader.nextName())) {
+                    value = nextString(reader, null);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return value;
+    }
+
+    /**
+     * Decodes any JSON document into plain Java values: LinkedHashMap, ArrayList, String,
+     * Boolean, Integer, Double or null. Unlike a WritableMap the result can be shared
+     * between callers, so cached payloads use this form.
+     */
+    public static Object readTree(InputStream in) throws IOException {
+        try (JsonReader reader = open(in)) {
+            return readTreeValue(reader);
+        }
+    }
+
+    public static WritableMap readWritableMap(InputStream in) throws IOException {
+        try (JsonReader reader = open(in)) {
+            return readWritableMap(reader);
+        }
+    }
+
+    public static WritableArray readWritableArray(InputStream in) throws IOException {
+        try (JsonReader reader = open(in)) {
+            return readWritableArray(reader);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static WritableMap toWritableMap(Map<String, Object> tree) {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null) {
+                map.putNull(key);
+            } else if (value instanceof Map) {
+                map.putMap(key, toWritableMap((Map<String, Object>) value));
+            } else if (value instanceof List) {
+                map.putArray(key, toWritableArray((List<Object>) value));
+            } else if (value instanceof Boolean) {
+                map.putBoolean(key, (Boolean) value);
+            } else if (value instanceof Integer) {
+                map.putInt(key, (Integer) value);
+            } else if (value instanceof Number) {
+                map.putDouble(key, ((Number) value).doubleValue());
+            } else {
+                map.putString(key, value.toString());
+            }
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static WritableArray toWritableArray(List<Object> tree) {
+        WritableArray array = Arguments.createArray();
+        for (Object value : tree) {
+            if (value == null) {
+                array.pushNull();
+            } else if (value instanceof Map) {
+                array.pushMap(toWritableMap((Map<String, Object>) value));
+            } else if (value instanceof List) {
+                array.pushArray(toWritableArray((List<Object>) value));
+            } else if (value instanceof Boolean) {
+                array.pushBoolean((Boolean) value);
+            } else if (value instanceof Integer) {
+                array.pushInt((Integer) value);
+            } else if (value instanceof Number) {
+                array.pushDouble(((Number) value).doubleValue());
+            } else {
+                array.pushString(value.toString());
+            }
+        }
+        return array;
+    }
+
+    private static JsonReader open(InputStream in) {
+        return new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private static Object readTreeValue(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT: {
+                Map<String, Object> map = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    map.put(name, readTreeValue(reader));
+                }
+                reader.endObject();
+                return map;
+            }
+            case BEGIN_ARRAY: {
+                List<Object> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readTreeValue(reader));
+                }
+                reader.endArray();
+                return list;
+            }
+            case NUMBER:
+                return parseNumber(reader.nextString());
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                return reader.nextString();
+        }
+    }
+
+    private static WritableMap readWritableMap(JsonReader reader) throws IOException {
+        WritableMap map = Arguments.createMap();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    map.putMap(key, readWritableMap(reader));
+                    break;
+                case BEGIN_ARRAY:
+                    map.putArray(key, readWritableArray(reader));
+                    break;
+                case NUMBER: {
+                    Number number = parseNumber(reader.nextString());
+                    if (number instanceof Integer) {
+                        map.putInt(key, (Integer) number);
+                    } else {
+                        map.putDouble(key, number.doubleValue());
+                    }
+                    break;
+                }
+                case BOOLEAN:
+                    map.putBoolean(key, reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    map.putNull(key);
+                    break;
+                default:
+                    map.putString(key, reader.nextString());
+            }
+        }
+        reader.endObject();
+        return map;
+    }
+
+    private static WritableArray readWritableArray(JsonReader reader) throws IOException {
+        WritableArray array = Arguments.createArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    array.pushMap(readWritableMap(reader));
+                    break;
+                case BEGIN_ARRAY:
+                    array.pushArray(readWritableArray(reader));
+                    break;
+                case NUMBER: {
+                    Number number = parseNumber(reader.nextString());
+                    if (number instanceof Integer) {
+                        array.pushInt((Integer) number);
+                    } else {
+                        array.pushDouble(number.doubleValue());
+                    }
+                    break;
+                }
+                case BOOLEAN:
+                    array.pushBoolean(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    array.pushNull();
+                    break;
+                default:
+                    array.pushString(reader.nextString());
+            }
+        }
+        reader.endArray();
+        return array;
+    }
+
+    static Number parseNumber(String token) {
+        boolean integral = true;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+                break;
+            }
+        }
+        if (integral) {
+            try {
+                return Integer.parseInt(token);
+            } catch (NumberFormatException e) {
+                // Out of int range, fall through to double
+            }
+        }
+        return Double.parseDouble(token);
+    }
+
+    private static double nextDouble(JsonReader reader, double defaultValue) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            // Consume the token before parsing so a malformed value cannot stall the reader
+            String value = reader.nextString();
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        reader.skipValue();
+        return defaultValue;
+    }
+
+    private static String nextString(JsonReader reader, String defaultValue) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+            return token == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString();
+        }
+        reader.skipValue();
+        return defaultValue;
+    }
+
+    private static boolean nextBoolean(JsonReader reader, boolean defaultValue) throws IOException {
+        if (reader.peek() == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+        reader.skipValue();
+        return defaultValue;
+    }
+}
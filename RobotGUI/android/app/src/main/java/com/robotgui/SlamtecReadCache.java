@@ -0,0 +1,211 @@
+package com.robotgui;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.robotgui.SlamtecHttpClient.SlamtecResponse;
+
+/**
+ * Coalescing, short-lived cache for the robot's read endpoints.
+ *
+ * Concurrent GETs of the same path share one in-flight request, and successful
+ * responses are kept for a per-path TTL. Only paths registered with a TTL are cached;
+ * anything else passes straight through to the client. Writers call
+ * {@link #invalidate(String)} after changing state the cache may hold.
+ *
+ * Bodies are decoded once, by the caller that performed the request, and the decoded
+ * value is what gets shared and cached, so it must be immutable. A path should always
+ * be read with the same decoder.
+ */
+public final class SlamtecReadCache {
+    public static final String POSE = "/api/core/slam/v1/localization/pose";
+    public static final String POWER_STATUS = "/api/core/system/v1/power/status";
+    public static final String HEALTH = "/api/core/system/v1/robot/health";
+    public static final String DEVICE_INFO = "/api/core/system/v1/robot/info";
+    public static final String POIS = "/api/core/artifact/v1/pois";
+
+    /** Turns a successful response body into the value that is cached. */
+    public interface BodyDecoder<T> {
+        T decode(SlamtecResponse response) throws IOException;
+    }
+
+    /** Status code of a completed GET and, for a 200, the decoded body. */
+    public static final class Result<T> {
+        public final int code;
+        public final T value;
+
+        Result(int code, T value) {
+            this.code = code;
+            this.value = value;
+        }
+
+        public boolean isOk() {
+            return code == 200;
+        }
+    }
+
+    private static SlamtecReadCache sharedInstance;
+
+    private final SlamtecHttpClient client;
+    private final Map<String, Long> ttlMsByPath;
+    private final Map<String, Slot> slots = new HashMap<>();
+
+    public SlamtecReadCache(SlamtecHttpClient client, Map<String, Long> ttlMsByPath) {
+        this.client = client;
+        this.ttlMsByPath = new HashMap<>(ttlMsByPath);
+        for (String path : ttlMsByPath.keySet()) {
+            slots.put(path, new Slot());
+        }
+    }
+
+    public static synchronized SlamtecReadCache getInstance() {
+        if (sharedInstance == null) {
+            ConfigManager config = ConfigManager.INSTANCE;
+            Map<String, Long> ttls = new LinkedHashMap<>();
+            ttls.put(POSE, (long) config.getNestedInt("slam_cache.pose_ttl_ms", 200));
+            ttls.put(POWER_STATUS, (long) config.getNestedInt("slam_cache.power_ttl_ms", 5000));
+            ttls.put(HEALTH, (long) config.getNestedInt("slam_cache.health_ttl_ms", 2000));
+            ttls.put(DEVICE_INFO, (long) config.getNestedInt("slam_cache.info_ttl_ms", 60000));
+            ttls.put(POIS, (long) config.getNestedInt("slam_cache.pois_ttl_ms", 10000));
+            sharedInstance = new SlamtecReadCache(SlamtecHttpClient.getInstance(), ttls);
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Returns the response for {@code path}, from the cache when fresh, by joining a
+     * request already in flight, or by fetching it. Non-200 responses and errors are
+     * shared with concurrent callers but never cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> get(String path, BodyDecoder<T> decoder) throws IOException {
+        Slot slot = slots.get(path);
+        if (slot == null) {
+            return fetch(path, decoder);
+        }
+
+        CompletableFuture<Result<?>> inFlight;
+        CompletableFuture<Result<?>> mine = null;
+        long generation;
+        synchronized (slot) {
+            if (slot.value != null && System.nanoTime() < slot.expiresAt) {
+                slot.hits.incrementAndGet();
+                return (Result<T>) slot.value;
+            }
+            inFlight = slot.inFlight;
+            if (inFlight == null) {
+                mine = new CompletableFuture<>();
+                slot.inFlight = mine;
+                slot.misses.incrementAndGet();
+            } else {
+                slot.coalesced.incrementAndGet();
+            }
+            generation = slot.generation;
+        }
+
+        if (mine == null) {
+            return (Result<T>) await(inFlight);
+        }
+
+        try {
+            Result<T> result = fetch(path, decoder);
+            synchronized (slot) {
+                // A write that invalidated the slot mid-request makes this result stale
+                if (result.isOk() && slot.generation == generation) {
+                    slot.value = result;
+                    slot.expiresAt = System.nanoTime() + ttlMsByPath.get(path) * 1_000_000L;
+                }
+                // An invalidate may have let a newer request take the slot
+                if (slot.inFlight == mine) slot.inFlight = null;
+            }
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            synchronized (slot) {
+                if (slot.inFlight == mine) slot.inFlight = null;
+            }
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached value for {@code path}, e.g. after setPose or a POI change. Callers
+     * after this start a new request instead of joining one that began before the write.
+     */
+    public void invalidate(String path) {
+        Slot slot = slots.get(path);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            slot.value = null;
+            slot.inFlight = null;
+            slot.generation++;
+        }
+    }
+
+    /**
+     * Per-path hits (fresh cache), coalesced (joined an in-flight request) and misses
+     * (went to the robot), plus the hit ratio counting coalesced callers as hits.
+     */
+    public Map<String, Map<String, Number>> snapshot() {
+        Map<String, Map<String, Number>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> ttl : ttlMsByPath.entrySet()) {
+            Slot slot = slots.get(ttl.getKey());
+            long hits = slot.hits.get();
+            long coalesced = slot.coalesced.get();
+            long misses = slot.misses.get();
+            long total = hits + coalesced + misses;
+            Map<String, Number> entry = new LinkedHashMap<>();
+            entry.put("ttlMs", ttl.getValue());
+            entry.put("hits", hits);
+            entry.put("coalesced", coalesced);
+            entry.put("misses", misses);
+            entry.put("hitRatio", total > 0 ? (hits + coalesced) / (double) total : 0.0);
+            entry.put("missRatio", total > 0 ? misses / (double) total : 0.0);
+            result.put(ttl.getKey(), entry);
+        }
+        return result;
+    }
+
+    private <T> Result<T> fetch(String path, BodyDecoder<T> decoder) throws IOException {
+        try (SlamtecResponse response = client.get(path)) {
+            int code = response.code();
+            return new Result<>(code, code == 200 ? decoder.decode(response) : null);
+        }
+    }
+
+    private static Result<?> await(CompletableFuture<Result<?>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for shared SLAM request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static final class Slot {
+        Result<?> value;
+        long expiresAt;
+        long generation;
+        CompletableFuture<Result<?>> inFlight;
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong coalesced = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+    }
+}
@@ -5,36 +5,95 @@ import com.facebook.react.bridge.*;
 import org.json.JSONObject;
 import org.json.JSONArray;
 import java.net.HttpURLConnection;
-import java.net.URL;
 import java.io.File;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
 import java.util.List;
 import java.util.Map;
 import android.graphics.BitmapFactory;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.robotgui.FileUtilsModule;
+import com.robotgui.SlamtecCommandScheduler.Priority;
+import com.robotgui.SlamtecHttpClient.SlamtecResponse;
+import com.robotgui.SlamtecJsonDecoder.Pose;
+import com.robotgui.SlamtecJsonDecoder.PowerStatus;
+import com.robotgui.SlamtecReadCache.BodyDecoder;
 import android.os.Environment;
+import okhttp3.RequestBody;
 
 public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
     private static final String TAG = "SlamtecUtilsModule";
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final SlamtecCommandScheduler scheduler = SlamtecCommandScheduler.fromConfig();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private final ConfigManager configManager;
-    private final String SLAM_IP;
-    private final int SLAM_PORT;
-    private final int TIMEOUT_MS;
-    private final String BASE_URL;
+    private final SlamtecHttpClient slamClient;
+    private final SlamtecReadCache readCache;
+    private final SlamtecActionMonitor actionMonitor;
+    private final MapCache mapCache;
+    private final MapTilePyramid mapTiles = MapTilePyramid.getInstance();
+    private static final BodyDecoder<String> RAW_BODY = SlamtecResponse::bodyString;
+    private static final BodyDecoder<Pose> POSE_BODY =
+        response -> SlamtecJsonDecoder.readPose(response.byteStream());
+    private static final BodyDecoder<PowerStatus> POWER_BODY =
+        response -> SlamtecJsonDecoder.readPowerStatus(response.byteStream());
+    private static final BodyDecoder<Object> TREE_BODY =
+        response -> SlamtecJsonDecoder.readTree(response.byteStream());
+    private static final String ACTION_PROGRESS_EVENT = "ActionProgress";
+    private static final String ACTION_COMPLETE_EVENT = "ActionComplete";
+    private static final String MAP_UPLOAD_PROGRESS_EVENT = "MapUploadProgress";
+    private static final String MAP_TILES_READY_EVENT = "MapTilesReady";
+    private static final String MAP_TILES_CHANGED_EVENT = "MapTilesChanged";
+    private static final MapDeploymentPipeline.Options SLAM_DEPLOY_OPTIONS =
+        new MapDeploymentPipeline.Options("/api/core/slam/v1/pois", false);
+
+    // Native pose stream, polled on its own thread and emitted as PoseUpdate events
+    private static final String POSE_EVENT = "PoseUpdate";
+    private static final double MAX_POSE_HZ = 20.0;
+    private HandlerThread poseThread;
+    private Handler poseHandler;
+    private volatile boolean isPoseStreaming = false;
+    // Bumped on every start and stop; a poll chain reposts only while its generation is current
+    private volatile int poseGeneration;
+    private PosePoll posePoll;
+    // Written on the JS thread, read on the poll thread
+    private volatile long poseIntervalMs;
+    private volatile double poseMinDistance;
+    private volatile double poseMinYaw;
+    private boolean hasEmittedPose;
+    private double lastPoseX;
+    private double lastPoseY;
+    private double lastPoseYaw;
+    private int poseFailures;
+
+    // Background map image refresh, see startMapRefresh
+    private final Object mapImageLock = new Object();
+    private HandlerThread mapRefreshThread;
+    private Handler mapRefreshHandler;
+    private volatile boolean isMapRefreshing = false;
+    // Same generation scheme as the pose stream, see PosePoll
+    private volatile int mapRefreshGeneration;
+    private MapRefresh mapRefresh;
+    private volatile long mapRefreshIntervalMs;
+    private String lastMapRevision;
+    private int unchangedMapPolls;
+    private int mapRefreshFailures;
 
     public SlamtecUtilsModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.configManager = ConfigManager.INSTANCE;
-        this.SLAM_IP = configManager.getString("slam_ip", "127.0.0.1");
-        this.SLAM_PORT = configManager.getInt("slam_port", 1448);
-        this.TIMEOUT_MS = configManager.getInt("timeout_ms", 1000);
-        this.BASE_URL = "http://" + SLAM_IP + ":" + SLAM_PORT;
+        this.slamClient = SlamtecHttpClient.getInstance();
+        this.readCache = SlamtecReadCache.getInstance();
+        this.actionMonitor = SlamtecActionMonitor.fromConfig(slamClient);
+
+        String appVariant = reactContext.getResources().getString(R.string.app_variant);
+        File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
+        File appDir = new File(downloadsDir, appVariant.equals("gotu") ? "GoTu" : "CactusAssistant");
+        this.mapCache = MapCache.getInstance(appDir);
+
+        // Periodic transport metrics snapshot next to debug_log.txt, for pulling off devices
+        TransportMetrics.getInstance().startSnapshots(appDir,
+            configManager.getNestedInt("transport_metrics.snapshot_interval_ms", 60000));
     }
 
     @Override
@@ -44,44 +103,26 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void checkConnection(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.TELEMETRY, () -> {
             try {
                 WritableMap response = Arguments.createMap();
-                String url = BASE_URL + "/api/core/system/v1/robot/health";
                 
                 try {
-                    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                    connection.setConnectTimeout(TIMEOUT_MS);
-                    connection.setReadTimeout(TIMEOUT_MS);
-                    connection.setRequestMethod("GET");
-
-                    try {
-                        connection.connect();
-                        int responseCode = connection.getResponseCode();
-                        response.putInt("responseCode", responseCode);
-                        
-                        if (responseCode == HttpURLConnection.HTTP_OK) {
-                            StringBuilder result = new StringBuilder();
-                            try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                                    new java.io.InputStreamReader(connection.getInputStream()))) {
-                                String line;
-                                while ((line = reader.readLine()) != null) {
-                                    result.append(line);
-                                }
-                            }
-                            
-                            JSONObject health = new JSONObject(result.toString());
-                            response.putString("response", result.toString());
-                            response.putString("status", !health.optBoolean("hasError", false) ? 
-                                "Robot health check successful" : "Robot has errors");
-                            response.putBoolean("slamApiAvailable", !health.optBoolean("hasError", false));
-                        } else {
-                            response.putString("error", "Health check failed with code: " + responseCode);
-                            response.putString("status", "Robot health check failed");
-                            response.putBoolean("slamApiAvailable", false);
-                        }
-                    } finally {
-                        connection.disconnect();
+                    SlamtecReadCache.Result<String> cached = readCache.get(SlamtecReadCache.HEALTH, RAW_BODY);
+                    int responseCode = cached.code;
+                    response.putInt("responseCode", responseCode);
+                    
+                    if (responseCode == HttpURLConnection.HTTP_OK) {
+                        String result = cached.value;
+                        JSONObject health = new JSONObject(result);
+                        response.putString("response", result);
+                        response.putString("status", !health.optBoolean("hasError", false) ? 
+                            "Robot health check successful" : "Robot has errors");
+                        response.putBoolean("slamApiAvailable", !health.optBoolean("hasError", false));
+                    } else {
+                        response.putString("error", "Health check failed with code: " + responseCode);
+                        response.putString("status", "Robot health check failed");
+                        response.putBoolean("slamApiAvailable", false);
                     }
                 } catch (Exception e) {
                     response.putString("error", "Connection error: " + e.getMessage());
@@ -100,36 +141,19 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void getCurrentPose(Promise promise) {
-        executorService.execute(() -> {
-            HttpURLConnection connection = null;
+        scheduler.execute(Priority.TELEMETRY, () -> {
             try {
-                String url = BASE_URL + "/api/core/slam/v1/localization/pose";
-                connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setConnectTimeout(TIMEOUT_MS);
-                connection.setReadTimeout(TIMEOUT_MS);
-                connection.setRequestMethod("GET");
-
+                SlamtecReadCache.Result<Pose> result = readCache.get(SlamtecReadCache.POSE, POSE_BODY);
                 WritableMap response = Arguments.createMap();
-                connection.connect();
                 
-                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    StringBuilder result = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            result.append(line);
-                        }
-                    }
-                    
-                    JSONObject pose = new JSONObject(result.toString());
-                    response.putDouble("x", pose.optDouble("x", 0.0));
-                    response.putDouble("y", pose.optDouble("y", 0.0));
-                    response.putDouble("yaw", pose.optDouble("yaw", 0.0));
+                if (result.code == HttpURLConnection.HTTP_OK) {
+                    Pose pose = result.value;
+                    response.putDouble("x", pose.x);
+                    response.putDouble("y", pose.y);
+                    response.putDouble("yaw", pose.yaw);
                     mainHandler.post(() -> promise.resolve(response));
                 } else {
-                    final int code = connection.getResponseCode();
-                    mainHandler.post(() -> promise.reject("POSE_ERROR", "Failed to get pose: " + code));
+                    mainHandler.post(() -> promise.reject("POSE_ERROR", "Failed to get pose: " + result.code));
                 }
             } catch (Exception e) {
                 String errorMessage = e.getMessage();
@@ -138,62 +162,132 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                 } else {
                     mainHandler.post(() -> promise.reject("POSE_ERROR", "Error getting pose: " + errorMessage));
                 }
-            } finally {
-                if (connection != null) {
-                    try {
-                        connection.disconnect();
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error disconnecting: " + e.getMessage());
-                    }
-                }
             }
         });
     }
 
+    @ReactMethod
+    public void startPoseStream(double hz, Promise promise) {
+        if (hz <= 0) {
+            promise.reject("POSE_STREAM_ERROR", "Pose stream rate must be positive: " + hz);
+            return;
+        }
+        synchronized (this) {
+            poseIntervalMs = Math.round(1000.0 / Math.min(hz, MAX_POSE_HZ));
+            poseMinDistance = configManager.getNestedDouble("pose_stream.min_distance_m", 0.01);
+            poseMinYaw = configManager.getNestedDouble("pose_stream.min_yaw_rad", 0.01);
+            if (poseThread == null) {
+                poseThread = new HandlerThread("PoseStreamThread");
+                poseThread.start();
+                poseHandler = new Handler(poseThread.getLooper());
+            }
+            if (!isPoseStreaming) {
+                isPoseStreaming = true;
+                posePoll = new PosePoll(++poseGeneration);
+                poseHandler.post(posePoll);
+                Log.d(TAG, "Pose stream started at " + hz + " Hz");
+            }
+        }
+        promise.resolve(true);
+    }
+
+    @ReactMethod
+    public void stopPoseStream(Promise promise) {
+        synchronized (this) {
+            if (isPoseStreaming) {
+                isPoseStreaming = false;
+                poseGeneration++;
+                poseHandler.removeCallbacks(posePoll);
+                posePoll = null;
+                Log.d(TAG, "Pose stream stopped");
+            }
+        }
+        promise.resolve(true);
+    }
+
+    /**
+     * One poll chain. A poll still in flight when the stream is stopped and started again
+     * sees a newer generation and ends its chain instead of running beside the new one.
+     */
+    private final class PosePoll implements Runnable {
+        private final int generation;
+        private boolean started;
+
+        PosePoll(int generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            if (generation != poseGeneration) return;
+            if (!started) {
+                // Reset on the poll thread, after any earlier chain has finished its last poll
+                started = true;
+                hasEmittedPose = false;
+                poseFailures = 0;
+            }
+
+            long startedAt = System.currentTimeMillis();
+            try (SlamtecResponse connection = slamClient.get(SlamtecReadCache.POSE)) {
+                if (connection.code() == HttpURLConnection.HTTP_OK) {
+                    Pose pose = SlamtecJsonDecoder.readPose(connection.byteStream());
+                    poseFailures = 0;
+                    emitPoseIfChanged(pose.x, pose.y, pose.yaw, startedAt);
+                } else if (poseFailures++ == 0) {
+                    Log.e(TAG, "Pose stream request failed: " + connection.code());
+                }
+            } catch (Exception e) {
+                // Log the first failure of a streak only, the stream keeps retrying
+                if (poseFailures++ == 0) {
+                    Log.e(TAG, "Pose stream error: " + e.getMessage());
+                }
+            }
+
+            if (generation == poseGeneration) {
+                long elapsed = System.currentTimeMillis() - startedAt;
+                poseHandler.postDelayed(this, Math.max(0, poseIntervalMs - elapsed));
+            }
+        }
+    }
+
+    private void emitPoseIfChanged(double x, double y, double yaw, long timestamp) {
+        if (hasEmittedPose) {
+            double distance = Math.hypot(x - lastPoseX, y - lastPoseY);
+            // Wrap the yaw difference into [-pi, pi] so crossing +-pi counts as a small turn
+            double yawDelta = Math.abs(Math.atan2(Math.sin(yaw - lastPoseYaw), Math.cos(yaw - lastPoseYaw)));
+            if (distance < poseMinDistance && yawDelta < poseMinYaw) {
+                return;
+            }
+        }
+        hasEmittedPose = true;
+        lastPoseX = x;
+        lastPoseY = y;
+        lastPoseYaw = yaw;
+
+        WritableMap params = Arguments.createMap();
+        params.putDouble("x", x);
+        params.putDouble("y", y);
+        params.putDouble("yaw", yaw);
+        params.putDouble("timestamp", timestamp);
+        sendEvent(POSE_EVENT, params);
+    }
+
     @ReactMethod
     public void navigate(double x, double y, double yaw, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.MOTION, () -> {
             try {
-                String url = BASE_URL + "/api/core/motion/v1/actions";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                
-                JSONObject actionOptions = new JSONObject()
-                    .put("action_name", "slamtec.agent.actions.MoveToAction")
-                    .put("options", new JSONObject()
-                        .put("target", new JSONObject()
-                            .put("x", x)
-                            .put("y", y)
-                            .put("z", 0))
-                        .put("move_options", new JSONObject()
-                            .put("mode", 0)
-                            .put("flags", new JSONArray().put("with_yaw"))
-                            .put("yaw", yaw)
-                            .put("acceptable_precision", 0)
-                            .put("fail_retry_count", 0)));
-
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                try (java.io.OutputStream os = connection.getOutputStream()) {
-                    byte[] input = actionOptions.toString().getBytes("utf-8");
-                    os.write(input, 0, input.length);
-                }
+                RequestBody actionOptions = SlamtecActionEncoder.moveTo(SlamtecActionEncoder.NAVIGATE, x, y, yaw);
 
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
-                    StringBuilder result = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            result.append(line);
-                        }
+                String actionId;
+                try (SlamtecResponse connection = slamClient.post("/api/core/motion/v1/actions", actionOptions)) {
+                    if (!connection.isSuccess()) {
+                        final int responseCode = connection.code();
+                        mainHandler.post(() -> promise.reject("NAVIGATION_ERROR", "Navigation failed: " + responseCode));
+                        return;
                     }
-                    JSONObject response = new JSONObject(result.toString());
-                    monitorAction(response.getString("action_id"), promise);
-                } else {
-                    final int responseCode = connection.getResponseCode();
-                    mainHandler.post(() -> promise.reject("NAVIGATION_ERROR", "Navigation failed: " + responseCode));
+                    actionId = readActionId(connection);
                 }
+                monitorAction(actionId, promise);
             } catch (Exception e) {
                 mainHandler.post(() -> promise.reject("NAVIGATION_ERROR", "Error during navigation: " + e.getMessage()));
             }
@@ -202,50 +296,20 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void navigateProduct(double x, double y, double yaw, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.MOTION, () -> {
             try {
-                String url = BASE_URL + "/api/core/motion/v1/actions";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                
-                JSONObject actionOptions = new JSONObject()
-                    .put("action_name", "slamtec.agent.actions.MoveToAction")
-                    .put("options", new JSONObject()
-                        .put("target", new JSONObject()
-                            .put("x", x)
-                            .put("y", y)
-                            .put("z", 0))
-                        .put("move_options", new JSONObject()
-                            .put("mode", 0)
-                            .put("flags", new JSONArray()
-                                .put("with_yaw")
-                                .put("precise"))
-                            .put("yaw", yaw)
-                            .put("acceptable_precision", 0.5)
-                            .put("fail_retry_count", 3)));
-
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                try (java.io.OutputStream os = connection.getOutputStream()) {
-                    byte[] input = actionOptions.toString().getBytes("utf-8");
-                    os.write(input, 0, input.length);
-                }
+                RequestBody actionOptions = SlamtecActionEncoder.moveTo(SlamtecActionEncoder.NAVIGATE_PRECISE, x, y, yaw);
 
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
-                    StringBuilder result = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            result.append(line);
-                        }
+                String actionId;
+                try (SlamtecResponse connection = slamClient.post("/api/core/motion/v1/actions", actionOptions)) {
+                    if (!connection.isSuccess()) {
+                        final int responseCode = connection.code();
+                        mainHandler.post(() -> promise.reject("NAVIGATION_ERROR", "Navigation failed: " + responseCode));
+                        return;
                     }
-                    JSONObject response = new JSONObject(result.toString());
-                    monitorAction(response.getString("action_id"), promise);
-                } else {
-                    final int responseCode = connection.getResponseCode();
-                    mainHandler.post(() -> promise.reject("NAVIGATION_ERROR", "Navigation failed: " + responseCode));
+                    actionId = readActionId(connection);
                 }
+                monitorAction(actionId, promise);
             } catch (Exception e) {
                 mainHandler.post(() -> promise.reject("NAVIGATION_ERROR", "Error during navigation: " + e.getMessage()));
             }
@@ -284,56 +348,28 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void seriesNavigate(ReadableArray targets, double yaw, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.MOTION, () -> {
             try {
-                String url = BASE_URL + "/api/core/motion/v1/actions";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-
-                // Build the targets JSONArray, always set z = 0
-                org.json.JSONArray targetsArray = new org.json.JSONArray();
+                // Collect the targets as x/y pairs, the encoder always sets z = 0
+                // (yaw is not sent: with_yaw is disabled for series moves)
+                double[] targetsXY = new double[targets.size() * 2];
                 for (int i = 0; i < targets.size(); i++) {
                     ReadableMap target = targets.getMap(i);
-                    org.json.JSONObject targetObj = new org.json.JSONObject();
-                    targetObj.put("x", target.getDouble("x"));
-                    targetObj.put("y", target.getDouble("y"));
-                    targetObj.put("z", 0); // Always set z = 0
-                    targetsArray.put(targetObj);
-                }
-
-                org.json.JSONObject actionOptions = new org.json.JSONObject()
-                    .put("action_name", "slamtec.agent.actions.SeriesMoveToAction")
-                    .put("options", new org.json.JSONObject()
-                        .put("targets", targetsArray)
-                        .put("move_options", new org.json.JSONObject()
-                            .put("mode", 0)
-                            //.put("flags", new org.json.JSONArray().put("with_yaw"))
-                            //.put("yaw", yaw)
-                            .put("acceptable_precision", 10)
-                            .put("fail_retry_count", 0)));
-
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                try (java.io.OutputStream os = connection.getOutputStream()) {
-                    byte[] input = actionOptions.toString().getBytes("utf-8");
-                    os.write(input, 0, input.length);
+                    targetsXY[2 * i] = target.getDouble("x");
+                    targetsXY[2 * i + 1] = target.getDouble("y");
                 }
+                RequestBody actionOptions = SlamtecActionEncoder.seriesMoveTo(targetsXY);
 
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
-                    StringBuilder result = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            result.append(line);
-                        }
+                String actionId;
+                try (SlamtecResponse connection = slamClient.post("/api/core/motion/v1/actions", actionOptions)) {
+                    if (!connection.isSuccess()) {
+                        final int responseCode = connection.code();
+                        mainHandler.post(() -> promise.reject("SERIES_NAVIGATION_ERROR", "Series navigation failed: " + responseCode));
+                        return;
                     }
-                    org.json.JSONObject response = new org.json.JSONObject(result.toString());
-                    monitorAction(response.getString("action_id"), promise);
-                } else {
-                    final int responseCode = connection.getResponseCode();
-                    mainHandler.post(() -> promise.reject("SERIES_NAVIGATION_ERROR", "Series navigation failed: " + responseCode));
+                    actionId = readActionId(connection);
                 }
+                monitorAction(actionId, promise);
             } catch (Exception e) {
                 mainHandler.post(() -> promise.reject("SERIES_NAVIGATION_ERROR", "Error during series navigation: " + e.getMessage()));
             }
@@ -479,9 +515,6 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
             String logMsg = String.format("Creating POI '%s' at [%.2f, %.2f, %.2f]", displayName, x, y, yaw);
             Log.d(TAG, logMsg);
             logToFile(logMsg);
-            String url = BASE_URL + "/api/core/artifact/v1/pois";
-            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-            
             JSONObject body = new JSONObject()
                 .put("id", java.util.UUID.randomUUID().toString())
                 .put("pose", new JSONObject()
@@ -496,37 +529,27 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
             Log.d(TAG, "POI request body: " + body.toString());
             logToFile("POI request body: " + body.toString());
 
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setDoOutput(true);
-            
-            try (java.io.OutputStream os = connection.getOutputStream()) {
-                byte[] input = body.toString().getBytes("utf-8");
-                os.write(input, 0, input.length);
-            }
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode >= 200 && responseCode <= 204) {
-                String successMsg = "Successfully created POI: " + displayName + " (response code: " + responseCode + ")";
-                Log.d(TAG, successMsg);
-                logToFile(successMsg);
-            } else {
-                String errorMsg = "Failed to create POI: " + displayName + ", code: " + responseCode;
-                Log.e(TAG, errorMsg);
-                logToFile("ERROR: " + errorMsg);
-                // Try to read error response
-                try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                        new java.io.InputStreamReader(connection.getErrorStream()))) {
-                    String line;
-                    StringBuilder errorResponse = new StringBuilder();
-                    while ((line = reader.readLine()) != null) {
-                        errorResponse.append(line);
+            try (SlamtecResponse connection = slamClient.post("/api/core/artifact/v1/pois",
+                    RequestBody.create(body.toString(), SlamtecHttpClient.JSON))) {
+                readCache.invalidate(SlamtecReadCache.POIS);
+                int responseCode = connection.code();
+                if (connection.isSuccess()) {
+                    String successMsg = "Successfully created POI: " + displayName + " (response code: " + responseCode + ")";
+                    Log.d(TAG, successMsg);
+                    logToFile(successMsg);
+                } else {
+                    String errorMsg = "Failed to create POI: " + displayName + ", code: " + responseCode;
+                    Log.e(TAG, errorMsg);
+                    logToFile("ERROR: " + errorMsg);
+                    // Try to read error response
+                    try {
+                        String errorResponse = connection.bodyString();
+                        Log.e(TAG, "Error response: " + errorResponse);
+                        logToFile("ERROR response: " + errorResponse);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Could not read error response: " + e.getMessage());
+                        logToFile("ERROR: Could not read error response: " + e.getMessage());
                     }
-                    Log.e(TAG, "Error response: " + errorResponse.toString());
-                    logToFile("ERROR response: " + errorResponse.toString());
-                } catch (Exception e) {
-                    Log.e(TAG, "Could not read error response: " + e.getMessage());
-                    logToFile("ERROR: Could not read error response: " + e.getMessage());
                 }
             }
         } catch (Exception e) {
@@ -571,57 +594,36 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void getPOIs(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.TELEMETRY, () -> {
             try {
-                String url = BASE_URL + "/api/core/artifact/v1/pois";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setRequestMethod("GET");
-                connection.setRequestProperty("Content-Type", "application/json");
-
-                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    StringBuilder result = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            result.append(line);
-                        }
+                SlamtecReadCache.Result<Object> result = readCache.get(SlamtecReadCache.POIS, TREE_BODY);
+                if (result.code == HttpURLConnection.HTTP_OK) {
+                    if (!(result.value instanceof List)) {
+                        String errorMsg = "Failed to parse response: expected a JSON array of POIs";
+                        Log.e(TAG, errorMsg);
+                        mainHandler.post(() -> promise.reject("JSON_ERROR", errorMsg));
+                        return;
                     }
+                    @SuppressWarnings("unchecked")
+                    List<Object> pois = (List<Object>) result.value;
+                    Log.d(TAG, "Decoded " + pois.size() + " POIs");
                     
-                    String response = result.toString();
-                    Log.d(TAG, "Raw POIs response: " + response);
-                    
-                    mainHandler.post(() -> {
-                        try {
-                            JSONArray jsonArray = new JSONArray(response);
-                            Log.d(TAG, "Successfully parsed as JSONArray with " + jsonArray.length() + " items");
-                            
-                            WritableArray poisArray = Arguments.createArray();
-                            if (jsonArray.length() == 0) {
-                                Log.d(TAG, "No POIs found, initializing default POIs");
-                                
-                                // Initialize default POIs
-                                initializeDefaultPOIs(promise);
-                                
-                                // Return empty array for now, next getPOIs call will return the new POIs
-                                promise.resolve(poisArray);
-                            } else {
-                                for (int i = 0; i < jsonArray.length(); i++) {
-                                    JSONObject poi = jsonArray.getJSONObject(i);
-                                    poisArray.pushMap(convertJsonToWritableMap(poi));
-                                    Log.d(TAG, "Added POI: " + poi.toString());
-                                }
-                                promise.resolve(poisArray);
-                            }
-                        } catch (Exception e) {
-                            String errorMsg = "Failed to parse response.\nRaw response: " + response + 
-                                            "\nParse error: " + e.getMessage();
-                            Log.e(TAG, errorMsg);
-                            promise.reject("JSON_ERROR", errorMsg);
-                        }
-                    });
+                    if (pois.isEmpty()) {
+                        Log.d(TAG, "No POIs found, initializing default POIs");
+                        
+                        // Initialize default POIs
+                        initializeDefaultPOIs(promise);
+                        
+                        // Return empty array for now, next getPOIs call will return the new POIs
+                        WritableArray poisArray = Arguments.createArray();
+                        mainHandler.post(() -> promise.resolve(poisArray));
+                    } else {
+                        // The cached list is shared, each caller gets its own WritableArray
+                        WritableArray poisArray = SlamtecJsonDecoder.toWritableArray(pois);
+                        mainHandler.post(() -> promise.resolve(poisArray));
+                    }
                 } else {
-                    String errorMsg = "Failed to get POIs: " + connection.getResponseCode();
+                    String errorMsg = "Failed to get POIs: " + result.code;
                     Log.e(TAG, errorMsg);
                     mainHandler.post(() -> promise.reject("POI_ERROR", errorMsg));
                 }
@@ -635,41 +637,19 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void goHome(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.MOTION, () -> {
             try {
-                String url = BASE_URL + "/api/core/motion/v1/actions";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                
-                JSONObject actionOptions = new JSONObject()
-                    .put("action_name", "slamtec.agent.actions.GoHomeAction")
-                    .put("gohome_options", new JSONObject()
-                        .put("flags", "dock")
-                        .put("back_to_landing", true)
-                        .put("charging_retry_count", 3));
-
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                try (java.io.OutputStream os = connection.getOutputStream()) {
-                    byte[] input = actionOptions.toString().getBytes("utf-8");
-                    os.write(input, 0, input.length);
-                }
-
-                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    StringBuilder result = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            result.append(line);
-                        }
+                String actionId;
+                try (SlamtecResponse connection = slamClient.post("/api/core/motion/v1/actions",
+                        SlamtecActionEncoder.goHome())) {
+                    if (connection.code() != HttpURLConnection.HTTP_OK) {
+                        final int responseCode = connection.code();
+                        mainHandler.post(() -> promise.reject("HOME_ERROR", "Go home command failed: " + responseCode));
+                        return;
                     }
-                    JSONObject response = new JSONObject(result.toString());
-                    monitorAction(response.getString("action_id"), promise);
-                } else {
-                    final int responseCode = connection.getResponseCode();
-                    mainHandler.post(() -> promise.reject("HOME_ERROR", "Go home command failed: " + responseCode));
+                    actionId = readActionId(connection);
                 }
+                monitorAction(actionId, promise);
             } catch (Exception e) {
                 mainHandler.post(() -> promise.reject("HOME_ERROR", "Error during go home: " + e.getMessage()));
             }
@@ -678,7 +658,7 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void uploadMap(String filePath, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.BULK, () -> {
             try {
                 File file = new File(filePath);
                 Log.d(TAG, "Attempting to upload map from: " + file.getAbsolutePath());
@@ -690,27 +670,12 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                     return;
                 }
 
-                String url = BASE_URL + "/api/core/slam/v1/maps/stcm";
+                String url = slamClient.getBaseUrl() + "/api/core/slam/v1/maps/stcm";
                 Log.d(TAG, "Uploading to URL: " + url);
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                
-                connection.setRequestMethod("PUT");
-                connection.setRequestProperty("Content-Type", "application/octet-stream");
-                connection.setDoOutput(true);
-
-                try (java.io.FileInputStream fileInputStream = new java.io.FileInputStream(file);
-                     java.io.OutputStream outputStream = connection.getOutputStream()) {
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    int totalBytes = 0;
-                    while ((bytesRead = fileInputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                        totalBytes += bytesRead;
-                    }
-                    Log.d(TAG, "Uploaded " + totalBytes + " bytes");
-                }
-
-                int responseCode = connection.getResponseCode();
+                mapCache.forgetRobotMap();
+                MapUploadBody body = mapUploadBody(file);
+                int responseCode = slamClient.send("PUT", "/api/core/slam/v1/maps/stcm", body);
+                Log.d(TAG, "Uploaded " + file.length() + " bytes at " + body.bytesPerSecond() + " bytes/s");
                 Log.d(TAG, "Upload response code: " + responseCode);
                 
                 if (responseCode >= 200 && responseCode <= 204) {
@@ -728,11 +693,8 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setHomeDock(double x, double y, double z, double yaw, double pitch, double roll, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.COMMAND, () -> {
             try {
-                String url = BASE_URL + "/api/core/slam/v1/homepose";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                
                 JSONObject body = new JSONObject()
                     .put("x", x)
                     .put("y", y)
@@ -741,18 +703,11 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                     .put("pitch", pitch)
                     .put("roll", roll);
 
-                connection.setRequestMethod("PUT");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                try (java.io.OutputStream os = connection.getOutputStream()) {
-                    byte[] input = body.toString().getBytes("utf-8");
-                    os.write(input, 0, input.length);
-                }
-
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
+                final int responseCode = slamClient.send("PUT", "/api/core/slam/v1/homepose",
+                    RequestBody.create(body.toString(), SlamtecHttpClient.JSON));
+                if (responseCode >= 200 && responseCode <= 204) {
                     mainHandler.post(() -> promise.resolve(true));
                 } else {
-                    final int responseCode = connection.getResponseCode();
                     mainHandler.post(() -> promise.reject("HOMEDOCK_ERROR", "Failed to set home dock: " + responseCode));
                 }
             } catch (Exception e) {
@@ -763,6 +718,7 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void clearMap(Promise promise) {
+        mapCache.forgetRobotMap();
         sendDeleteRequest("/api/core/slam/v1/maps", "MAP_CLEAR_ERROR", promise);
     }
 
@@ -778,11 +734,8 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setPose(double x, double y, double z, double yaw, double pitch, double roll, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.COMMAND, () -> {
             try {
-                String url = BASE_URL + "/api/core/slam/v1/localization/pose";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                
                 JSONObject body = new JSONObject()
                     .put("x", x)
                     .put("y", y)
@@ -791,18 +744,12 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                     .put("pitch", pitch)
                     .put("roll", roll);
 
-                connection.setRequestMethod("PUT");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                try (java.io.OutputStream os = connection.getOutputStream()) {
-                    byte[] input = body.toString().getBytes("utf-8");
-                    os.write(input, 0, input.length);
-                }
-
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
+                final int responseCode = slamClient.send("PUT", "/api/core/slam/v1/localization/pose",
+                    RequestBody.create(body.toString(), SlamtecHttpClient.JSON));
+                readCache.invalidate(SlamtecReadCache.POSE);
+                if (responseCode >= 200 && responseCode <= 204) {
                     mainHandler.post(() -> promise.resolve(true));
                 } else {
-                    final int responseCode = connection.getResponseCode();
                     mainHandler.post(() -> promise.reject("POSE_ERROR", "Failed to set pose: " + responseCode));
                 }
             } catch (Exception e) {
@@ -813,27 +760,17 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setMaxLineSpeed(String speedStr, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.MOTION, () -> {
             try {
-                String url = BASE_URL + "/api/core/system/v1/parameter";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                
                 JSONObject body = new JSONObject()
                     .put("param", "base.max_moving_speed")
                     .put("value", speedStr);
 
-                connection.setRequestMethod("PUT");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                try (java.io.OutputStream os = connection.getOutputStream()) {
-                    byte[] input = body.toString().getBytes("utf-8");
-                    os.write(input, 0, input.length);
-                }
-
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
+                final int responseCode = slamClient.send("PUT", "/api/core/system/v1/parameter",
+                    RequestBody.create(body.toString(), SlamtecHttpClient.JSON));
+                if (responseCode >= 200 && responseCode <= 204) {
                     mainHandler.post(() -> promise.resolve(true));
                 } else {
-                    final int responseCode = connection.getResponseCode();
                     mainHandler.post(() -> promise.reject("SPEED_ERROR", "Failed to set max speed: " + responseCode));
                 }
             } catch (Exception e) {
@@ -844,12 +781,13 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void processAndUploadMap(ReadableMap settings, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.BULK, () -> {
             try {
                 // Extract settings
                 double homeDockX = settings.getDouble("homeDockX");
                 double homeDockY = settings.getDouble("homeDockY");
                 double homeDockYaw = settings.getDouble("homeDockYaw");
+                String homeDockSource = "settings";
                 
                 // Check if home dock coordinates are valid (non-zero)
                 boolean validHomeDock = (Math.abs(homeDockX) > 0.001 || Math.abs(homeDockY) > 0.001);
@@ -865,6 +803,7 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                         homeDockX = homedock[0];
                         homeDockY = homedock[1];
                         homeDockYaw = homedock[3]; // yaw is at index 3
+                        homeDockSource = "config";
                         Log.d(TAG, String.format("Using homedock from config: [%.4f, %.4f, %.4f, %.4f, %.4f, %.4f]", 
                             homedock[0], homedock[1], homedock[2], homedock[3], homedock[4], homedock[5]));
                         validHomeDock = true;
@@ -874,6 +813,7 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                         homeDockX = 0.0;
                         homeDockY = 0.0;
                         homeDockYaw = 0.0;
+                        homeDockSource = "default";
                         validHomeDock = true;
                     }
                 }
@@ -882,6 +822,7 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                 final double finalHomeDockX = homeDockX;
                 final double finalHomeDockY = homeDockY;
                 final double finalHomeDockYaw = homeDockYaw;
+                final String finalHomeDockSource = homeDockSource;
                 
                 // Get the STCM map from DomainUtils
                 Log.d(TAG, "Retrieving STCM map from DomainUtils...");
@@ -899,120 +840,16 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                             if (domainUtils != null) {
                                 Log.d(TAG, "Successfully obtained DomainUtilsModule");
                                 
-                                // Call getStcmMap and get the result
-                                domainUtils.getStcmMap(20, new Promise() {
-                                    @Override
-                                    public void resolve(Object value) {
-                                        try {
-                                            if (value instanceof ReadableMap) {
-                                                ReadableMap stcmMapResult = (ReadableMap) value;
-                                                String imagePath = stcmMapResult.getString("filePath");
-                                                
-                                                try {
-                                                    // Execute operations sequentially
-                                                    clearMapSync();
-                                                    clearPOIsSync();
-                                                    
-                                                    // Upload new map
-                    File stcmFile = new File(imagePath);
-                    if (!stcmFile.exists()) {
-                        throw new Exception("Map file not found");
-                    }
-                                                    Log.d(TAG, "Uploading STCM map from: " + stcmFile.getAbsolutePath());
-                                                    uploadMapSync(stcmFile.getAbsolutePath());
-                    
-                                                    // Skip clearing home docks as it's causing 404 errors
-                                                    // clearHomeDocksSync();
-                    
-                                                    // Set home dock directly
-                                                    setHomeDockSync(finalHomeDockX, finalHomeDockY, 0, finalHomeDockYaw, 0, 0);
-                    
-                                                    try {
-                    double[] pose = calculatePose(new double[]{
-                                                            finalHomeDockX, finalHomeDockY, 0,
-                                                            finalHomeDockYaw, 0, 0
-                                                        });
-                                                        setPoseSync(pose[0], pose[1], pose[2], pose[3], pose[4], pose[5]);
-                                                    } catch (Exception e) {
-                                                        // Log error but continue with the process
-                                                        Log.e(TAG, "Error setting pose: " + e.getMessage() + ". Continuing with map upload.");
-                                                    }
-                                                    
-                                                    try {
-                                                        savePersistentMapSync();
-                                                    } catch (Exception e) {
-                                                        // Log error but continue with the process
-                                                        Log.e(TAG, "Error saving persistent map: " + e.getMessage() + ". Continuing with process.");
-                                                    }
-                    
-                    // Success - all operations completed
-                        WritableMap response = Arguments.createMap();
-                        response.putString("status", "success");
-                        response.putString("message", "Map processed and uploaded successfully");
-                                                    mainHandler.post(() -> promise.resolve(response));
-                                                } catch (Exception e) {
-                                                    Log.e(TAG, "Error during map processing: " + e.getMessage(), e);
-                                                    mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", e.getMessage()));
-                                                }
-                                            } else {
-                                                mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Unexpected result type from getStcmMap"));
-                                            }
-                                        } catch (Exception e) {
-                                            Log.e(TAG, "Error processing map result: " + e.getMessage(), e);
-                                            mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error processing map result: " + e.getMessage()));
-                                        }
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code, String message) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + message));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code, Throwable e) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + e.getMessage(), e));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code, String message, Throwable e) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + message, e));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(Throwable e) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + e.getMessage(), e));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + code));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code, WritableMap userInfo) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map", userInfo));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code, String message, WritableMap userInfo) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + message));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code, String message, Throwable e, WritableMap userInfo) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + message, e));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(String code, Throwable e, WritableMap userInfo) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + e.getMessage(), e));
-                                    }
-                                    
-                                    @Override
-                                    public void reject(Throwable e, WritableMap userInfo) {
-                                        mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", "Error retrieving STCM map: " + e.getMessage(), e));
-                                    }
-                                });
+                                // Download, clear, upload, homedock, pose and save as one pipeline
+                                double[] dock = {finalHomeDockX, finalHomeDockY, 0, finalHomeDockYaw, 0, 0};
+                                MapDeploymentPipeline.Result result = domainUtils.deployMapBlocking(SLAM_DEPLOY_OPTIONS,
+                                    new MapDeploymentPipeline.Homedock(dock, calculatePose(dock), finalHomeDockSource));
+                                if ("failed".equals(result.getStatus())) {
+                                    mainHandler.post(() -> promise.reject("MAP_PROCESS_ERROR", result.getMessage()));
+                                } else {
+                                    WritableMap response = SlamtecJsonDecoder.toWritableMap(result.toMap());
+                                    mainHandler.post(() -> promise.resolve(response));
+                                }
                                 return;
                             } else {
                                 Log.e(TAG, "DomainUtilsModule is null even though it's registered");
@@ -1091,18 +928,14 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void savePersistentMap(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.BULK, () -> {
             try {
                 // Updated endpoint and method based on Python example
-                String url = BASE_URL + "/api/multi-floor/map/v1/stcm/:save";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/octet-stream");
-
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
+                final int responseCode = slamClient.send("POST", "/api/multi-floor/map/v1/stcm/:save",
+                    RequestBody.create(new byte[0], SlamtecHttpClient.OCTET_STREAM));
+                if (responseCode >= 200 && responseCode <= 204) {
                     mainHandler.post(() -> promise.resolve(true));
                 } else {
-                    final int responseCode = connection.getResponseCode();
                     mainHandler.post(() -> promise.reject("MAP_ERROR", "Failed to save persistent map: " + responseCode));
                 }
             } catch (Exception e) {
@@ -1137,14 +970,10 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
     }
 
     private void sendDeleteRequest(String endpoint, String errorCode, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.COMMAND, () -> {
             try {
-                String url = BASE_URL + endpoint;
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setRequestMethod("DELETE");
-                connection.setRequestProperty("Content-Type", "application/json");
-
-                final int responseCode = connection.getResponseCode();
+                final int responseCode = slamClient.send("DELETE", endpoint, null);
+                readCache.invalidate(endpoint);
                 if (responseCode >= 200 && responseCode <= 204) {
                     mainHandler.post(() -> promise.resolve(true));
                 } else {
@@ -1157,153 +986,84 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
     }
 
     private void monitorAction(String actionId, Promise promise) {
-        executorService.execute(() -> {
-            try {
-                String url = BASE_URL + "/api/core/motion/v1/actions/" + actionId;
-                long startTime = System.currentTimeMillis();
-                final long TIMEOUT_MS = 300000; // 5 minutes timeout
-                int retryCount = 0;
-                final int MAX_RETRIES = 3;
-                
-                while (true) {
-                    // Check for timeout
-                    if (System.currentTimeMillis() - startTime > TIMEOUT_MS) {
-                        Log.e(TAG, "Action monitoring timed out after " + TIMEOUT_MS/1000 + " seconds");
-                        mainHandler.post(() -> promise.reject("ACTION_ERROR", "Action monitoring timed out"));
-                        break;
-                    }
+        actionMonitor.track(actionId, new SlamtecActionMonitor.Listener() {
+            @Override
+            public void onProgress(String id, String actionName, String stage, int status, long elapsedMs) {
+                WritableMap params = Arguments.createMap();
+                params.putString("actionId", id);
+                params.putString("actionName", actionName);
+                params.putString("stage", stage);
+                params.putInt("status", status);
+                params.putDouble("elapsedMs", elapsedMs);
+                sendEvent(ACTION_PROGRESS_EVENT, params);
+            }
 
-                    HttpURLConnection connection = null;
-                    try {
-                        connection = (HttpURLConnection) new URL(url).openConnection();
-                        connection.setRequestMethod("GET");
-                        connection.setRequestProperty("Content-Type", "application/json");
-                        connection.setConnectTimeout(5000); // 5 second connection timeout
-                        connection.setReadTimeout(5000);    // 5 second read timeout
-
-                        int responseCode = connection.getResponseCode();
-                        if (responseCode == HttpURLConnection.HTTP_OK) {
-                            StringBuilder result = new StringBuilder();
-                            try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                                    new java.io.InputStreamReader(connection.getInputStream()))) {
-                                String line;
-                                while ((line = reader.readLine()) != null) {
-                                    result.append(line);
-                                }
-                            }
-                            
-                            JSONObject response = new JSONObject(result.toString());
-                            if (!response.has("action_name")) {
-                                Log.d(TAG, "Action completed successfully");
-                                mainHandler.post(() -> promise.resolve(true));
-                                break;
-                            }
-                            retryCount = 0; // Reset retry count on successful response
-                        } else {
-                            Log.e(TAG, "Action monitoring failed with response code: " + responseCode);
-                            if (retryCount < MAX_RETRIES) {
-                                retryCount++;
-                                Log.d(TAG, "Retrying action monitoring (attempt " + retryCount + "/" + MAX_RETRIES + ")");
-                                Thread.sleep(1000); // Wait 1 second before retry
-                                continue;
-                            }
-                            mainHandler.post(() -> promise.reject("ACTION_ERROR", "Action monitoring failed: " + responseCode));
-                            break;
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error during action monitoring: " + e.getMessage());
-                        if (retryCount < MAX_RETRIES) {
-                            retryCount++;
-                            Log.d(TAG, "Retrying action monitoring after error (attempt " + retryCount + "/" + MAX_RETRIES + ")");
-                            Thread.sleep(1000); // Wait 1 second before retry
-                            continue;
-                        }
-                        mainHandler.post(() -> promise.reject("ACTION_ERROR", "Error monitoring action: " + e.getMessage()));
-                        break;
-                    } finally {
-                        if (connection != null) {
-                            connection.disconnect();
-                        }
-                    }
+            @Override
+            public void onComplete(String id, long elapsedMs) {
+                Log.d(TAG, "Action completed successfully");
+                WritableMap params = Arguments.createMap();
+                params.putString("actionId", id);
+                params.putBoolean("success", true);
+                params.putDouble("elapsedMs", elapsedMs);
+                sendEvent(ACTION_COMPLETE_EVENT, params);
+                mainHandler.post(() -> promise.resolve(true));
+            }
 
-                    Thread.sleep(500); // Wait 500ms before next check
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Fatal error in action monitoring: " + e.getMessage());
-                mainHandler.post(() -> promise.reject("ACTION_ERROR", "Fatal error monitoring action: " + e.getMessage()));
+            @Override
+            public void onFailed(String id, String message) {
+                Log.e(TAG, message);
+                WritableMap params = Arguments.createMap();
+                params.putString("actionId", id);
+                params.putBoolean("success", false);
+                params.putString("error", message);
+                sendEvent(ACTION_COMPLETE_EVENT, params);
+                mainHandler.post(() -> promise.reject("ACTION_ERROR", message));
             }
         });
     }
 
-    private WritableMap convertJsonToWritableMap(JSONObject jsonObject) throws Exception {
-        WritableMap map = Arguments.createMap();
-        java.util.Iterator<String> iterator = jsonObject.keys();
-        while (iterator.hasNext()) {
-            String key = iterator.next();
-            Object value = jsonObject.get(key);
-            if (value instanceof JSONObject) {
-                map.putMap(key, convertJsonToWritableMap((JSONObject) value));
-            } else if (value instanceof JSONArray) {
-                map.putArray(key, convertJsonToWritableArray((JSONArray) value));
-            } else if (value instanceof Boolean) {
-                map.putBoolean(key, (Boolean) value);
-            } else if (value instanceof Integer) {
-                map.putInt(key, (Integer) value);
-            } else if (value instanceof Double) {
-                map.putDouble(key, (Double) value);
-            } else if (value instanceof String) {
-                map.putString(key, (String) value);
-            } else {
-                map.putString(key, value.toString());
-            }
-        }
-        return map;
-    }
-
-    private WritableArray convertJsonToWritableArray(JSONArray jsonArray) throws Exception {
-        WritableArray array = Arguments.createArray();
-        for (int i = 0; i < jsonArray.length(); i++) {
-            Object value = jsonArray.get(i);
-            if (value instanceof JSONObject) {
-                array.pushMap(convertJsonToWritableMap((JSONObject) value));
-            } else if (value instanceof JSONArray) {
-                array.pushArray(convertJsonToWritableArray((JSONArray) value));
-            } else if (value instanceof Boolean) {
-                array.pushBoolean((Boolean) value);
-            } else if (value instanceof Integer) {
-                array.pushInt((Integer) value);
-            } else if (value instanceof Double) {
-                array.pushDouble((Double) value);
-            } else if (value instanceof String) {
-                array.pushString((String) value);
-            } else {
-                array.pushString(value.toString());
-            }
+    private static String readActionId(SlamtecResponse connection) throws Exception {
+        String actionId = SlamtecJsonDecoder.readStringField(connection.byteStream(), "action_id");
+        if (actionId == null) {
+            throw new Exception("No action_id in response");
         }
-        return array;
+        return actionId;
+    }
+
+    // Streams the map from disk, emitting MapUploadProgress events as it goes
+    private MapUploadBody mapUploadBody(File file) {
+        return new MapUploadBody(file, (bytesSent, totalBytes, bytesPerSecond) -> {
+            WritableMap progress = Arguments.createMap();
+            progress.putDouble("bytesSent", bytesSent);
+            progress.putDouble("totalBytes", totalBytes);
+            progress.putDouble("bytesPerSecond", bytesPerSecond);
+            sendEvent(MAP_UPLOAD_PROGRESS_EVENT, progress);
+        });
+    }
+
+    private void sendEvent(String eventName, WritableMap params) {
+        getReactApplicationContext()
+            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+            .emit(eventName, params);
     }
 
     @ReactMethod
     public void downloadYamlFile(Promise promise) {
-        executorService.execute(() -> {
-            try {
-                String url = BASE_URL + "/api/core/slam/v1/maps/yaml";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setRequestMethod("GET");
-
-                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+        scheduler.execute(Priority.BULK, () -> {
+            try (SlamtecResponse connection = slamClient.get("/api/core/slam/v1/maps/yaml")) {
+                if (connection.code() == HttpURLConnection.HTTP_OK) {
                     // Create CactusAssistant directory in home
                     File homeDir = new File(System.getProperty("user.home"));
                     File cactusDir = new File(homeDir, "CactusAssistant");
                     if (!cactusDir.exists()) {
                         cactusDir.mkdirs();
                     }
-                    
+                
                     File yamlFile = new File(cactusDir, "map.yaml");
                     Log.d(TAG, "Saving YAML to: " + yamlFile.getAbsolutePath());
-                    
+                
                     try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()));
+                            new java.io.InputStreamReader(connection.byteStream()));
                          java.io.FileWriter writer = new java.io.FileWriter(yamlFile)) {
                         String line;
                         while ((line = reader.readLine()) != null) {
@@ -1315,7 +1075,7 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
                     response.putString("yamlPath", yamlFile.getAbsolutePath());
                     mainHandler.post(() -> promise.resolve(response));
                 } else {
-                    final int responseCode = connection.getResponseCode();
+                    final int responseCode = connection.code();
                     mainHandler.post(() -> promise.reject("YAML_ERROR", "Failed to download YAML: " + responseCode));
                 }
             } catch (Exception e) {
@@ -1326,7 +1086,7 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void readYamlFile(String yamlPath, Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.TELEMETRY, () -> {
             try {
                 File yamlFile = new File(yamlPath);
                 if (!yamlFile.exists()) {
@@ -1353,73 +1113,214 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void downloadMapImage(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.BULK, () -> {
             try {
-                // Create CactusAssistant directory in home
-                File homeDir = new File(System.getProperty("user.home"));
-                File cactusDir = new File(homeDir, "CactusAssistant");
-                if (!cactusDir.exists()) {
-                    cactusDir.mkdirs();
+                File bmpFile = new File(mapImageDir(), "map.bmp");
+                installMapImage(fetchMapImage(), bmpFile);
+
+                WritableMap response = Arguments.createMap();
+                response.putString("bmpPath", bmpFile.getAbsolutePath());
+                mainHandler.post(() -> promise.resolve(response));
+            } catch (Exception e) {
+                Log.e(TAG, "Error downloading map image: " + e.getMessage(), e);
+                mainHandler.post(() -> promise.reject("IMAGE_ERROR", "Error downloading map image: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Keeps map.bmp and its tiles current in the background. Every interval the robot's
+     * known area is checked, and the BMP is downloaded only when that changed; the tiles
+     * over changed blocks are then re-rendered and emitted as a MapTilesChanged event.
+     */
+    @ReactMethod
+    public void startMapRefresh(int intervalMs, Promise promise) {
+        if (intervalMs <= 0) {
+            promise.reject("MAP_REFRESH_ERROR", "Map refresh interval must be positive: " + intervalMs);
+            return;
+        }
+        synchronized (this) {
+            mapRefreshIntervalMs = intervalMs;
+            if (mapRefreshThread == null) {
+                mapRefreshThread = new HandlerThread("MapRefreshThread");
+                mapRefreshThread.start();
+                mapRefreshHandler = new Handler(mapRefreshThread.getLooper());
+            }
+            if (!isMapRefreshing) {
+                isMapRefreshing = true;
+                mapRefresh = new MapRefresh(++mapRefreshGeneration);
+                mapRefreshHandler.post(mapRefresh);
+                Log.d(TAG, "Map refresh started every " + intervalMs + " ms");
+            }
+        }
+        promise.resolve(true);
+    }
+
+    @ReactMethod
+    public void stopMapRefresh(Promise promise) {
+        synchronized (this) {
+            if (isMapRefreshing) {
+                isMapRefreshing = false;
+                mapRefreshGeneration++;
+                mapRefreshHandler.removeCallbacks(mapRefresh);
+                mapRefresh = null;
+                Log.d(TAG, "Map refresh stopped");
+            }
+        }
+        promise.resolve(true);
+    }
+
+    /**
+     * One refresh chain. Each refresh runs as a BULK task that removeCallbacks cannot reach,
+     * so a chain checks its generation before refreshing and again before reposting.
+     */
+    private final class MapRefresh implements Runnable {
+        private final int generation;
+        private boolean started;
+
+        MapRefresh(int generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            if (generation != mapRefreshGeneration) return;
+
+            scheduler.execute(Priority.BULK, () -> {
+                if (generation != mapRefreshGeneration) return;
+                if (!started) {
+                    // A new refresh starts from a full download, not the last one's revision
+                    started = true;
+                    lastMapRevision = null;
+                    unchangedMapPolls = 0;
+                    mapRefreshFailures = 0;
+                }
+                refreshMapImage();
+                if (generation == mapRefreshGeneration) {
+                    mapRefreshHandler.postDelayed(this, mapRefreshIntervalMs);
                 }
+            });
+        }
+    }
 
-                // Download BMP map
-                String bmpUrl = BASE_URL + "/api/core/slam/v1/maps?format=bmp";
-                Log.d(TAG, "Attempting to download map from: " + bmpUrl);
-                
-                HttpURLConnection bmpConnection = (HttpURLConnection) new URL(bmpUrl).openConnection();
-                bmpConnection.setRequestMethod("GET");
-                bmpConnection.setConnectTimeout(TIMEOUT_MS);
-                bmpConnection.setReadTimeout(TIMEOUT_MS);
+    private void refreshMapImage() {
+        try {
+            File bmpFile = new File(mapImageDir(), "map.bmp");
+            String revision = probeMapRevision();
+            // The known area does not grow while mapping fills in space inside it, so
+            // refetch now and then even when it is unchanged
+            if (revision != null && revision.equals(lastMapRevision) && bmpFile.exists()
+                && ++unchangedMapPolls < configManager.getNestedInt("map_refresh.max_unchanged_polls", 12)) {
+                return;
+            }
+            unchangedMapPolls = 0;
+            installMapImage(fetchMapImage(), bmpFile);
+            lastMapRevision = revision;
+            mapRefreshFailures = 0;
+        } catch (Exception e) {
+            // Log the first failure of a streak only, the refresh keeps retrying
+            if (mapRefreshFailures++ == 0) {
+                Log.e(TAG, "Map refresh error: " + e.getMessage());
+            }
+        }
+    }
 
-                int responseCode = bmpConnection.getResponseCode();
-                Log.d(TAG, "Map download response code: " + responseCode);
+    // Known area of the map as the robot reports it, or null if it cannot
+    private String probeMapRevision() {
+        String path = configManager.getNestedString("map_refresh.revision_path", "/api/core/slam/v1/knownarea");
+        try (SlamtecResponse connection = slamClient.get(path)) {
+            return connection.code() == HttpURLConnection.HTTP_OK ? connection.bodyString() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
 
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    File bmpFile = new File(cactusDir, "map.bmp");
-                    Log.d(TAG, "Saving BMP map to: " + bmpFile.getAbsolutePath());
-                    
-                    try (java.io.InputStream inputStream = bmpConnection.getInputStream();
-                         java.io.FileOutputStream outputStream = new java.io.FileOutputStream(bmpFile)) {
-                        byte[] buffer = new byte[4096];
-                        int bytesRead;
-                        int totalBytes = 0;
-                        while ((bytesRead = inputStream.read(buffer)) != -1) {
-                            outputStream.write(buffer, 0, bytesRead);
-                            totalBytes += bytesRead;
-                        }
-                        Log.d(TAG, "Downloaded " + totalBytes + " bytes");
-                    }
+    static File mapImageDir() {
+        // Create CactusAssistant directory in home
+        File homeDir = new File(System.getProperty("user.home"));
+        File cactusDir = new File(homeDir, "CactusAssistant");
+        if (!cactusDir.exists()) {
+            cactusDir.mkdirs();
+        }
+        return cactusDir;
+    }
 
-                    if (bmpFile.exists() && bmpFile.length() > 0) {
-                        WritableMap response = Arguments.createMap();
-                        response.putString("bmpPath", bmpFile.getAbsolutePath());
-                        mainHandler.post(() -> promise.resolve(response));
-                    } else {
-                        throw new Exception("Downloaded file is empty or does not exist");
-                    }
-                } else {
-                    // Try to read error message from response
-                    StringBuilder errorMessage = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(bmpConnection.getErrorStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            errorMessage.append(line);
-                        }
-                    } catch (Exception e) {
-                        errorMessage.append("No error message available");
-                    }
-                    
-                    String error = "Failed to download map. Response code: " + responseCode + 
-                                 ", Error: " + errorMessage.toString();
-                    Log.e(TAG, error);
-                    mainHandler.post(() -> promise.reject("IMAGE_ERROR", error));
+    // Downloads the robot's BMP map to a temporary file next to map.bmp
+    private File fetchMapImage() throws Exception {
+        String bmpPath = "/api/core/slam/v1/maps?format=bmp";
+        Log.d(TAG, "Attempting to download map from: " + slamClient.getBaseUrl() + bmpPath);
+
+        try (SlamtecResponse bmpConnection = slamClient.get(bmpPath)) {
+            int responseCode = bmpConnection.code();
+            Log.d(TAG, "Map download response code: " + responseCode);
+
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                // Try to read error message from response
+                String errorMessage;
+                try {
+                    errorMessage = bmpConnection.bodyString();
+                } catch (Exception e) {
+                    errorMessage = "No error message available";
+                }
+                throw new Exception("Failed to download map. Response code: " + responseCode
+                    + ", Error: " + errorMessage);
+            }
+
+            File staged = File.createTempFile("map", ".bmp.tmp", mapImageDir());
+            try (java.io.InputStream inputStream = bmpConnection.byteStream();
+                 java.io.FileOutputStream outputStream = new java.io.FileOutputStream(staged)) {
+                byte[] buffer = new byte[4096];
+                int bytesRead;
+                int totalBytes = 0;
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, bytesRead);
+                    totalBytes += bytesRead;
                 }
+                Log.d(TAG, "Downloaded " + totalBytes + " bytes");
             } catch (Exception e) {
-                Log.e(TAG, "Error downloading map image: " + e.getMessage(), e);
-                mainHandler.post(() -> promise.reject("IMAGE_ERROR", "Error downloading map image: " + e.getMessage()));
+                staged.delete();
+                throw e;
             }
-        });
+            if (staged.length() == 0) {
+                staged.delete();
+                throw new Exception("Downloaded file is empty or does not exist");
+            }
+            return staged;
+        }
+    }
+
+    /**
+     * Moves a downloaded map image into place as bmpFile and brings the tiles up to date:
+     * only those over changed blocks if the previous image can be diffed against, all of
+     * them otherwise, and none if nothing changed.
+     */
+    private void installMapImage(File staged, File bmpFile) throws java.io.IOException {
+        synchronized (mapImageLock) {
+            List<int[]> changed = null;
+            if (bmpFile.exists() && mapTiles.hasTiles()) {
+                try {
+                    changed = MapRasterDiff.changedBlocks(bmpFile, staged, MapTilePyramid.TILE_SIZE);
+                } catch (java.io.IOException e) {
+                    Log.w(TAG, "Cannot diff map images, rebuilding tiles: " + e.getMessage());
+                }
+            }
+            if (changed != null && changed.isEmpty()) {
+                staged.delete();
+                Log.d(TAG, "Map image unchanged");
+                return;
+            }
+            if (!staged.renameTo(bmpFile)) {
+                staged.delete();
+                throw new java.io.IOException("Cannot move map image to " + bmpFile.getAbsolutePath());
+            }
+            Log.d(TAG, "Saved BMP map to: " + bmpFile.getAbsolutePath());
+            if (changed == null) {
+                buildMapTiles(bmpFile, null);
+            } else {
+                Log.d(TAG, changed.size() + " map image blocks changed");
+                updateMapTiles(bmpFile, changed);
+            }
+        }
     }
 
     @ReactMethod
@@ -1444,23 +1345,186 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Cuts a map image into tiles for getMapTile. downloadMapImage already does this for
+     * the map it downloads; this is for an image kept from an earlier session.
+     */
+    @ReactMethod
+    public void buildMapTiles(String imagePath, Promise promise) {
+        File imageFile = new File(imagePath);
+        if (!imageFile.exists()) {
+            promise.reject("IMAGE_ERROR", "Image file does not exist");
+            return;
+        }
+        buildMapTiles(imageFile, promise);
+    }
+
+    /** Resolves {revision, width, height, tileSize, maxZoom} of the current map tiles. */
+    @ReactMethod
+    public void getMapTileInfo(Promise promise) {
+        mapTiles.info(new MapTilePyramid.Callback<MapTilePyramid.Info>() {
+            @Override
+            public void onResult(MapTilePyramid.Info info) {
+                WritableMap result = mapTileInfo(info);
+                mainHandler.post(() -> promise.resolve(result));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                mainHandler.post(() -> promise.reject("IMAGE_ERROR", "Failed to get map tiles: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Resolves the file:// URI of map tile (z, x, y). Zoom 0 is the whole map in one tile,
+     * maxZoom its native resolution; edge tiles are cropped to the map.
+     */
+    @ReactMethod
+    public void getMapTile(int z, int x, int y, Promise promise) {
+        mapTiles.tile(z, x, y, new MapTilePyramid.Callback<File>() {
+            @Override
+            public void onResult(File tile) {
+                String uri = "file://" + tile.getAbsolutePath();
+                mainHandler.post(() -> promise.resolve(uri));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                mainHandler.post(() -> promise.reject("IMAGE_ERROR", "Failed to get map tile: " + e.getMessage()));
+            }
+        });
+    }
+
+    // Builds in the background and emits MapTilesReady; promise, if any, resolves with the info
+    private void buildMapTiles(File imageFile, Promise promise) {
+        mapTiles.build(imageFile, new MapTilePyramid.Callback<MapTilePyramid.Info>() {
+            @Override
+            public void onResult(MapTilePyramid.Info info) {
+                sendEvent(MAP_TILES_READY_EVENT, mapTileInfo(info));
+                if (promise != null) {
+                    WritableMap result = mapTileInfo(info);
+                    mainHandler.post(() -> promise.resolve(result));
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error building map tiles: " + e.getMessage(), e);
+                if (promise != null) {
+                    mainHandler.post(() -> promise.reject("IMAGE_ERROR", "Failed to build map tiles: " + e.getMessage()));
+                }
+            }
+        });
+    }
+
+    // Re-renders the tiles over changed blocks and emits them as MapTilesChanged
+    private void updateMapTiles(File imageFile, List<int[]> changedBlocks) {
+        mapTiles.update(imageFile, changedBlocks, new MapTilePyramid.Callback<MapTilePyramid.Update>() {
+            @Override
+            public void onResult(MapTilePyramid.Update update) {
+                WritableMap params = mapTileInfo(update.info);
+                if (update.rebuilt) {
+                    sendEvent(MAP_TILES_READY_EVENT, params);
+                    return;
+                }
+                WritableArray tiles = Arguments.createArray();
+                for (MapTilePyramid.Tile tile : update.tiles) {
+                    WritableMap entry = Arguments.createMap();
+                    entry.putInt("z", tile.z);
+                    entry.putInt("x", tile.x);
+                    entry.putInt("y", tile.y);
+                    entry.putString("uri", "file://" + tile.file.getAbsolutePath());
+                    tiles.pushMap(entry);
+                }
+                params.putArray("tiles", tiles);
+                sendEvent(MAP_TILES_CHANGED_EVENT, params);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error updating map tiles: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static WritableMap mapTileInfo(MapTilePyramid.Info info) {
+        WritableMap result = Arguments.createMap();
+        result.putString("revision", info.revision);
+        result.putInt("width", info.width);
+        result.putInt("height", info.height);
+        result.putInt("tileSize", MapTilePyramid.TILE_SIZE);
+        result.putInt("maxZoom", info.maxZoom);
+        return result;
+    }
+
+    /**
+     * Resolves the occupancy grid of the downloaded map.bmp and map.yaml:
+     * {width, height, resolution, originX, originY, freeCells, occupiedCells, unknownCells}.
+     * The grid is built on first use and after either file changes.
+     */
+    @ReactMethod
+    public void getOccupancyGridInfo(Promise promise) {
+        scheduler.execute(Priority.TELEMETRY, () -> {
+            try {
+                OccupancyGrid grid = occupancyGrid();
+                WritableMap result = Arguments.createMap();
+                result.putInt("width", grid.width);
+                result.putInt("height", grid.height);
+                result.putDouble("resolution", grid.resolution);
+                result.putDouble("originX", grid.originX);
+                result.putDouble("originY", grid.originY);
+                result.putInt("freeCells", grid.count(OccupancyGrid.FREE));
+                result.putInt("occupiedCells", grid.count(OccupancyGrid.OCCUPIED));
+                result.putInt("unknownCells", grid.count(OccupancyGrid.UNKNOWN));
+                mainHandler.post(() -> promise.resolve(result));
+            } catch (Exception e) {
+                mainHandler.post(() -> promise.reject("GRID_ERROR", "Error loading occupancy grid: " + e.getMessage()));
+            }
+        });
+    }
+
+    /** Resolves {state: free|occupied|unknown, cellX, cellY} of world point (x, y). */
+    @ReactMethod
+    public void getOccupancy(double x, double y, Promise promise) {
+        scheduler.execute(Priority.TELEMETRY, () -> {
+            try {
+                OccupancyGrid grid = occupancyGrid();
+                int cx = grid.toCellX(x);
+                int cy = grid.toCellY(y);
+                WritableMap result = Arguments.createMap();
+                result.putString("state", OccupancyGrid.stateName(grid.state(cx, cy)));
+                result.putInt("cellX", cx);
+                result.putInt("cellY", cy);
+                mainHandler.post(() -> promise.resolve(result));
+            } catch (Exception e) {
+                mainHandler.post(() -> promise.reject("GRID_ERROR", "Error reading occupancy grid: " + e.getMessage()));
+            }
+        });
+    }
+
+    // Grid of the map files downloadMapImage and downloadYamlFile keep in mapImageDir
+    static OccupancyGrid occupancyGrid() throws java.io.IOException {
+        File dir = mapImageDir();
+        return OccupancyGrid.forFiles(new File(dir, "map.bmp"), new File(dir, "map.yaml"));
+    }
+
     @ReactMethod
     public void clearAndInitializePOIs(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.COMMAND, () -> {
             try {
                 Log.d(TAG, "Starting POI reset process...");
                 // First clear existing POIs
-                String url = BASE_URL + "/api/core/artifact/v1/pois";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setRequestMethod("DELETE");
+                int responseCode = slamClient.send("DELETE", "/api/core/artifact/v1/pois", null);
+                readCache.invalidate(SlamtecReadCache.POIS);
                 
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
+                if (responseCode >= 200 && responseCode <= 204) {
                     Log.d(TAG, "Successfully cleared existing POIs");
                     // Initialize new POIs
                     initializeDefaultPOIs(promise);
                     mainHandler.post(() -> promise.resolve(true));
                 } else {
-                    String errorMsg = "Failed to clear POIs: " + connection.getResponseCode();
+                    String errorMsg = "Failed to clear POIs: " + responseCode;
                     Log.e(TAG, errorMsg);
                     mainHandler.post(() -> promise.reject("POI_ERROR", errorMsg));
                 }
@@ -1474,18 +1538,18 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void stopNavigation(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.MOTION, () -> {
             try {
                 Log.d(TAG, "Stopping current navigation...");
-                String url = BASE_URL + "/api/core/motion/v1/actions/:current";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setRequestMethod("DELETE");
+                int responseCode = slamClient.send("DELETE", "/api/core/motion/v1/actions/:current", null);
                 
-                if (connection.getResponseCode() >= 200 && connection.getResponseCode() <= 204) {
+                if (responseCode >= 200 && responseCode <= 204) {
                     Log.d(TAG, "Successfully stopped navigation");
+                    // Let pending navigate promises settle now rather than on their next slow poll
+                    actionMonitor.pollNow();
                     mainHandler.post(() -> promise.resolve(true));
                 } else {
-                    String errorMsg = "Failed to stop navigation: " + connection.getResponseCode();
+                    String errorMsg = "Failed to stop navigation: " + responseCode;
                     Log.e(TAG, errorMsg);
                     mainHandler.post(() -> promise.reject("NAVIGATION_ERROR", errorMsg));
                 }
@@ -1498,81 +1562,14 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
     }
 
     // Synchronous versions of the map operations to avoid multiple promise resolutions
-    private void clearMapSync() throws Exception {
-        String url = BASE_URL + "/api/core/slam/v1/maps";
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.setRequestMethod("DELETE");
-        
-        int responseCode = connection.getResponseCode();
-        if (responseCode < 200 || responseCode > 204) {
-            throw new Exception("Failed to clear map: " + responseCode);
-        }
-    }
-    
-    private void clearPOIsSync() throws Exception {
-        String url = BASE_URL + "/api/core/slam/v1/pois";
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.setRequestMethod("DELETE");
-        
-        int responseCode = connection.getResponseCode();
-        if (responseCode < 200 || responseCode > 204) {
-            throw new Exception("Failed to clear POIs: " + responseCode);
-        }
-    }
-    
-    private void uploadMapSync(String filePath) throws Exception {
-        File file = new File(filePath);
-        Log.d(TAG, "Attempting to upload map from: " + file.getAbsolutePath());
-        Log.d(TAG, "File exists: " + file.exists());
-        Log.d(TAG, "File size: " + file.length() + " bytes");
-        
-        if (!file.exists()) {
-            throw new Exception("Map file does not exist at: " + file.getAbsolutePath());
-        }
-
-        String url = BASE_URL + "/api/core/slam/v1/maps/stcm";
-        Log.d(TAG, "Uploading to URL: " + url);
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("Content-Type", "application/octet-stream");
-        connection.setDoOutput(true);
-
-        try (java.io.FileInputStream fileInputStream = new java.io.FileInputStream(file);
-             java.io.OutputStream outputStream = connection.getOutputStream()) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            int totalBytes = 0;
-            while ((bytesRead = fileInputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-                totalBytes += bytesRead;
-            }
-            Log.d(TAG, "Uploaded " + totalBytes + " bytes");
-        }
-
-        int responseCode = connection.getResponseCode();
-        Log.d(TAG, "Upload response code: " + responseCode);
-        
-        if (responseCode < 200 || responseCode > 204) {
-            throw new Exception("Failed to upload map: " + responseCode);
-        }
-    }
-    
     private void clearHomeDocksSync() throws Exception {
-        String url = BASE_URL + "/api/core/slam/v1/homepose";
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.setRequestMethod("DELETE");
-        
-        int responseCode = connection.getResponseCode();
+        int responseCode = slamClient.send("DELETE", "/api/core/slam/v1/homepose", null);
         if (responseCode < 200 || responseCode > 204) {
             throw new Exception("Failed to clear home docks: " + responseCode);
         }
     }
     
     private void setHomeDockSync(double x, double y, double z, double yaw, double pitch, double roll) throws Exception {
-        String url = BASE_URL + "/api/core/slam/v1/homepose";
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        
         JSONObject body = new JSONObject()
             .put("x", x)
             .put("y", y)
@@ -1581,26 +1578,15 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
             .put("pitch", pitch)
             .put("roll", roll);
         
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setDoOutput(true);
-        
-        try (java.io.OutputStream os = connection.getOutputStream()) {
-            byte[] input = body.toString().getBytes("utf-8");
-            os.write(input, 0, input.length);
-        }
-        
-        int responseCode = connection.getResponseCode();
+        int responseCode = slamClient.send("PUT", "/api/core/slam/v1/homepose",
+            RequestBody.create(body.toString(), SlamtecHttpClient.JSON));
         if (responseCode < 200 || responseCode > 204) {
             throw new Exception("Failed to set home dock: " + responseCode);
         }
     }
     
     private void setPoseSync(double x, double y, double z, double yaw, double pitch, double roll) throws Exception {
-        String url = BASE_URL + "/api/core/slam/v1/localization/pose";
         Log.d(TAG, "Setting robot pose to: [" + x + ", " + y + ", " + z + ", " + yaw + ", " + pitch + ", " + roll + "]");
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        
         JSONObject body = new JSONObject()
             .put("x", x)
             .put("y", y)
@@ -1609,16 +1595,9 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
             .put("pitch", pitch)
             .put("roll", roll);
         
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setDoOutput(true);
-        
-        try (java.io.OutputStream os = connection.getOutputStream()) {
-            byte[] input = body.toString().getBytes("utf-8");
-            os.write(input, 0, input.length);
-        }
-        
-        int responseCode = connection.getResponseCode();
+        int responseCode = slamClient.send("PUT", "/api/core/slam/v1/localization/pose",
+            RequestBody.create(body.toString(), SlamtecHttpClient.JSON));
+        readCache.invalidate(SlamtecReadCache.POSE);
         Log.d(TAG, "Set pose response code: " + responseCode);
         
         if (responseCode < 200 || responseCode > 204) {
@@ -1626,53 +1605,20 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
         }
     }
     
-    private void savePersistentMapSync() throws Exception {
-        // Updated endpoint and method based on Python example
-        String url = BASE_URL + "/api/multi-floor/map/v1/stcm/:save";
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/octet-stream");
-        
-        int responseCode = connection.getResponseCode();
-        if (responseCode < 200 || responseCode > 204) {
-            throw new Exception("Failed to save persistent map: " + responseCode);
-        }
-    }
-
     @ReactMethod
     public void getDeviceInfo(Promise promise) {
-        executorService.execute(() -> {
+        scheduler.execute(Priority.TELEMETRY, () -> {
             try {
-                String url = BASE_URL + "/api/core/system/v1/robot/info";
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setConnectTimeout(TIMEOUT_MS);
-                connection.setReadTimeout(TIMEOUT_MS);
-                connection.setRequestMethod("GET");
-
-                try {
-                    WritableMap response = Arguments.createMap();
-                    connection.connect();
-                    
-                    if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                        StringBuilder result = new StringBuilder();
-                        try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                                new java.io.InputStreamReader(connection.getInputStream()))) {
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                result.append(line);
-                            }
-                        }
-                        
-                        JSONObject info = new JSONObject(result.toString());
-                        response.putString("deviceId", info.optString("device_id", ""));
-                        response.putString("macAddress", info.optString("mac_address", ""));
-                        mainHandler.post(() -> promise.resolve(response));
-                    } else {
-                        final int code = connection.getResponseCode();
-                        mainHandler.post(() -> promise.reject("DEVICE_INFO_ERROR", "Failed to get device info: " + code));
-                    }
-                } finally {
-                    connection.disconnect();
+                SlamtecReadCache.Result<Object> result = readCache.get(SlamtecReadCache.DEVICE_INFO, TREE_BODY);
+                WritableMap response = Arguments.createMap();
+                
+                if (result.code == HttpURLConnection.HTTP_OK) {
+                    Map<?, ?> info = (Map<?, ?>) result.value;
+                    response.putString("deviceId", info.get("device_id") != null ? info.get("device_id").toString() : "");
+                    response.putString("macAddress", info.get("mac_address") != null ? info.get("mac_address").toString() : "");
+                    mainHandler.post(() -> promise.resolve(response));
+                } else {
+                    mainHandler.post(() -> promise.reject("DEVICE_INFO_ERROR", "Failed to get device info: " + result.code));
                 }
             } catch (Exception e) {
                 mainHandler.post(() -> promise.reject("DEVICE_INFO_ERROR", "Error getting device info: " + e.getMessage()));
@@ -1682,49 +1628,72 @@ public class SlamtecUtilsModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void getPowerStatus(Promise promise) {
-        executorService.execute(() -> {
-            HttpURLConnection connection = null;
+        scheduler.execute(Priority.TELEMETRY, () -> {
             try {
-                String url = BASE_URL + "/api/core/system/v1/power/status";
-                connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setConnectTimeout(TIMEOUT_MS);
-                connection.setReadTimeout(TIMEOUT_MS);
-                connection.setRequestMethod("GET");
-
-                connection.connect();
-                int responseCode = connection.getResponseCode();
+                SlamtecReadCache.Result<PowerStatus> result = readCache.get(SlamtecReadCache.POWER_STATUS, POWER_BODY);
+                int responseCode = result.code;
                 if (responseCode == HttpURLConnection.HTTP_OK) {
-                    StringBuilder result = new StringBuilder();
-                    try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                            new java.io.InputStreamReader(connection.getInputStream()))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            result.append(line);
-                        }
-                    }
-                    JSONObject powerStatus = new JSONObject(result.toString());
+                    PowerStatus powerStatus = result.value;
                     WritableMap response = Arguments.createMap();
-                    response.putInt("batteryPercentage", powerStatus.optInt("batteryPercentage", -1));
-                    response.putString("dockingStatus", powerStatus.optString("dockingStatus", ""));
-                    response.putBoolean("isCharging", powerStatus.optBoolean("isCharging", false));
-                    response.putBoolean("isDCConnected", powerStatus.optBoolean("isDCConnected", false));
-                    response.putString("powerStage", powerStatus.optString("powerStage", ""));
-                    response.putString("sleepMode", powerStatus.optString("sleepMode", ""));
+                    response.putInt("batteryPercentage", powerStatus.batteryPercentage);
+                    response.putString("dockingStatus", powerStatus.dockingStatus);
+                    response.putBoolean("isCharging", powerStatus.isCharging);
+                    response.putBoolean("isDCConnected", powerStatus.isDCConnected);
+                    response.putString("powerStage", powerStatus.powerStage);
+                    response.putString("sleepMode", powerStatus.sleepMode);
                     mainHandler.post(() -> promise.resolve(response));
                 } else {
                     mainHandler.post(() -> promise.reject("POWER_STATUS_ERROR", "Failed to get power status: " + responseCode));
                 }
             } catch (Exception e) {
                 mainHandler.post(() -> promise.reject("POWER_STATUS_ERROR", "Error getting power status: " + e.getMessage()));
-            } finally {
-                if (connection != null) {
-                    try {
-                        connection.disconnect();
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error disconnecting: " + e.getMessage());
-                    }
-                }
             }
         });
     }
-} 
\ No newline at end of file
+
+    @ReactMethod
+    public void getSchedulerMetrics(Promise promise) {
+        try {
+            WritableMap response = Arguments.createMap();
+            response.putInt("threadBudget", scheduler.getThreadBudget());
+            response.putInt("activeThreads", scheduler.getActiveThreads());
+            response.putInt("queueDepth", scheduler.getQueueDepth());
+            for (Map.Entry<String, Map<String, Number>> entry : scheduler.snapshot().entrySet()) {
+                WritableMap classMetrics = Arguments.createMap();
+                for (Map.Entry<String, Number> metric : entry.getValue().entrySet()) {
+                    classMetrics.putDouble(metric.getKey(), metric.getValue().doubleValue());
+                }
+                response.putMap(entry.getKey(), classMetrics);
+            }
+            promise.resolve(response);
+        } catch (Exception e) {
+            promise.reject("SCHEDULER_ERROR", "Error reading scheduler metrics: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getReadCacheMetrics(Promise promise) {
+        try {
+            WritableMap response = Arguments.createMap();
+            for (Map.Entry<String, Map<String, Number>> entry : readCache.snapshot().entrySet()) {
+                WritableMap endpointMetrics = Arguments.createMap();
+                for (Map.Entry<String, Number> metric : entry.getValue().entrySet()) {
+                    endpointMetrics.putDouble(metric.getKey(), metric.getValue().doubleValue());
+                }
+                response.putMap(entry.getKey(), endpointMetrics);
+            }
+            promise.resolve(response);
+        } catch (Exception e) {
+            promise.reject("CACHE_ERROR", "Error reading cache metrics: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getTransportMetrics(Promise promise) {
+        try {
+            promise.resolve(SlamtecJsonDecoder.toWritableMap(TransportMetrics.getInstance().snapshot()));
+        } catch (Exception e) {
+            promise.reject("METRICS_ERROR", "Error reading transport metrics: " + e.getMessage());
+        }
+    }
+}
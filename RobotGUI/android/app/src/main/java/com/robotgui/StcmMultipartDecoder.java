@@ -0,0 +1,289 @@
+package com.robotgui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams the STCM map out of a domain crosssection response into a file.
+ *
+ * The multipart body is scanned once through a fixed read buffer: parts are skipped
+ * until the one whose headers name "img", and its base64 payload is decoded on the fly
+ * (whitespace ignored) into a direct buffer that is drained to the output channel. Memory
+ * use is the two buffers, whatever the size of the map.
+ */
+public final class StcmMultipartDecoder {
+
+    /** Called at most every {@link #PROGRESS_STEP} bytes read, and once at the end. */
+    public interface ProgressListener {
+        /** totalBytes is the response Content-Length, or -1 if the server did not send one. */
+        void onProgress(long bytesRead, long totalBytes, long bytesWritten);
+    }
+
+    static final int PROGRESS_STEP = 256 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^;\\s\"]+)");
+    private static final byte[] IMG_NAME = "name=\"img\"".getBytes(StandardCharsets.US_ASCII);
+    private static final int[] DECODE = new int[128];
+
+    static {
+        java.util.Arrays.fill(DECODE, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final InputStream in;
+    private final long totalBytes;
+    private final ProgressListener listener;
+    private final byte[] readBuffer = new byte[BUFFER_SIZE];
+    private int readPos;
+    private int readLimit;
+    private long bytesRead;
+    private long nextProgress = PROGRESS_STEP;
+
+    private StcmMultipartDecoder(InputStream in, long totalBytes, ProgressListener listener) {
+        this.in = in;
+        this.totalBytes = totalBytes;
+        this.listener = listener;
+    }
+
+    /** The boundary parameter of a multipart Content-Type, without the leading dashes. */
+    public static String boundary(String contentType) throws IOException {
+        Matcher matcher = BOUNDARY.matcher(contentType);
+        if (!matcher.find()) {
+            throw new IOException("Could not find boundary in Content-Type header");
+        }
+        return matcher.group(1);
+    }
+
+    /**
+     * Decodes the "img" part of a multipart body into out, starting at its current position.
+     * Returns the number of STCM bytes written.
+     */
+    public static long decodeImgPart(InputStream in, String boundary, long totalBytes, WritableByteChannel out,
+                                     ProgressListener listener) throws IOException {
+        return new StcmMultipartDecoder(in, totalBytes, listener).decodeImgPart(
+            ("--" + boundary).getBytes(StandardCharsets.US_ASCII), out);
+    }
+
+    /** Copies a raw (non-multipart) STCM body into out. Returns the number of bytes written. */
+    public static long copy(InputStream in, long totalBytes, WritableByteChannel out, ProgressListener listener)
+            throws IOException {
+        StcmMultipartDecoder decoder = new StcmMultipartDecoder(in, totalBytes, listener);
+        long written = 0;
+        while (decoder.fill()) {
+            int n = decoder.readLimit - decoder.readPos;
+            ByteBuffer chunk = ByteBuffer.wrap(decoder.readBuffer, decoder.readPos, n);
+            while (chunk.hasRemaining()) {
+                written += out.write(chunk);
+            }
+            decoder.readPos = decoder.readLimit;
+            decoder.progress(written, false);
+        }
+        decoder.progress(written, true);
+        return written;
+    }
+
+    private long decodeImgPart(byte[] delimiter, WritableByteChannel out) throws IOException {
+        int[] fallback = fallbackTable(delimiter);
+        if (!skipPast(delimiter, fallback)) {
+            throw new IOException("Boundary not found in multipart body");
+        }
+        while (true) {
+            // After a delimiter: "--" closes the body, otherwise a part's headers follow
+            if (!ensure(2)) {
+                break;
+            }
+            if (readBuffer[readPos] == '-' && readBuffer[readPos + 1] == '-') {
+                break;
+            }
+            if (readHeadersNamingImg()) {
+                return decodeBase64(out);
+            }
+            if (!skipPast(delimiter, fallback)) {
+                break;
+            }
+        }
+        throw new IOException("Failed to extract STCM data from response");
+    }
+
+    /** Consumes one part's headers through the blank line; true if they name the img part. */
+    private boolean readHeadersNamingImg() throws IOException {
+        byte[] headers = new byte[MAX_HEADER_BYTES];
+        int length = 0;
+        while (true) {
+            if (!ensure(1)) {
+                throw new IOException("Multipart body ended inside part headers");
+            }
+            if (length == headers.length) {
+                throw new IOException("Multipart part headers exceed " + MAX_HEADER_BYTES + " bytes");
+            }
+            headers[length++] = readBuffer[readPos++];
+            if (length >= 4 && headers[length - 4] == '\r' && headers[length - 3] == '\n'
+                    && headers[length - 2] == '\r' && headers[length - 1] == '\n') {
+                return indexOf(headers, length, IMG_NAME) >= 0;
+            }
+        }
+    }
+
+    /**
+     * Decodes base64 up to the next delimiter. The base64 alphabet has no '-', so the first
+     * dash marks the start of the closing delimiter.
+     */
+    private long decodeBase64(WritableByteChannel out) throws IOException {
+        ByteBuffer decoded = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long written = 0;
+        int quantum = 0;
+        int sextets = 0;
+        boolean padded = false;
+        while (ensure(1)) {
+            int limit = readLimit;
+            int pos = readPos;
+            byte[] buffer = readBuffer;
+            for (; pos < limit; pos++) {
+                int c = buffer[pos];
+                if (c == '-') {
+                    readPos = pos;
+                    return finish(out, decoded, written, quantum, sextets);
+                }
+                if (c == '\r' || c == '\n' || c == ' ' || c == '\t') {
+                    continue;
+                }
+                if (c == '=') {
+                    padded = true;
+                    continue;
+                }
+                int value = c >= 0 ? DECODE[c] : -1;
+                if (value < 0 || padded) {
+                    throw new IOException("Invalid base64 in STCM part at byte " + (bytesRead - (limit - pos)));
+                }
+                quantum = (quantum << 6) | value;
+                if (++sextets == 4) {
+                    if (decoded.remaining() < 3) {
+                        written += drain(out, decoded);
+                    }
+                    decoded.put((byte) (quantum >> 16)).put((byte) (quantum >> 8)).put((byte) quantum);
+                    quantum = 0;
+                    sextets = 0;
+                }
+            }
+            readPos = pos;
+            progress(written + decoded.position(), false);
+        }
+        return finish(out, decoded, written, quantum, sextets);
+    }
+
+    private long finish(WritableByteChannel out, ByteBuffer decoded, long written, int quantum, int sextets)
+            throws IOException {
+        // A padded tail leaves two or three sextets: one or two more bytes
+        if (sextets == 1) {
+            throw new IOException("Truncated base64 in STCM part");
+        }
+        if (decoded.remaining() < 2) {
+            written += drain(out, decoded);
+        }
+        if (sextets == 2) {
+            decoded.put((byte) (quantum >> 4));
+        } else if (sextets == 3) {
+            decoded.put((byte) (quantum >> 10)).put((byte) (quantum >> 2));
+        }
+        written += drain(out, decoded);
+        progress(written, true);
+        return written;
+    }
+
+    private static int drain(WritableByteChannel out, ByteBuffer decoded) throws IOException {
+        decoded.flip();
+        int n = decoded.remaining();
+        while (decoded.hasRemaining()) {
+            out.write(decoded);
+        }
+        decoded.clear();
+        return n;
+    }
+
+    /**
+     * Advances past the next occurrence of pattern; false if the stream ends first. Boundaries
+     * often start with a run of dashes, so a plain restart on mismatch would miss matches.
+     */
+    private boolean skipPast(byte[] pattern, int[] fallback) throws IOException {
+        int matched = 0;
+        while (ensure(1)) {
+            byte b = readBuffer[readPos++];
+            while (matched > 0 && b != pattern[matched]) {
+                matched = fallback[matched - 1];
+            }
+            if (b == pattern[matched] && ++matched == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** KMP failure table: longest proper prefix of pattern[0..i] that is also its suffix. */
+    private static int[] fallbackTable(byte[] pattern) {
+        int[] table = new int[pattern.length];
+        for (int i = 1, k = 0; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = table[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                k++;
+            }
+            table[i] = k;
+        }
+        return table;
+    }
+
+    /** Makes at least n unread bytes available (n <= 2 here); false at end of stream. */
+    private boolean ensure(int n) throws IOException {
+        while (readLimit - readPos < n) {
+            if (readPos > 0) {
+                System.arraycopy(readBuffer, readPos, readBuffer, 0, readLimit - readPos);
+                readLimit -= readPos;
+                readPos = 0;
+            }
+            int count = in.read(readBuffer, readLimit, readBuffer.length - readLimit);
+            if (count < 0) {
+                return false;
+            }
+            readLimit += count;
+            bytesRead += count;
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        readPos = 0;
+        readLimit = 0;
+        return ensure(1);
+    }
+
+    private void progress(long bytesWritten, boolean done) {
+        if (listener != null && (done || bytesRead >= nextProgress)) {
+            nextProgress = bytesRead + PROGRESS_STEP;
+            listener.onProgress(bytesRead, totalBytes, bytesWritten);
+        }
+    }
+
+    private static int indexOf(byte[] haystack, int length, byte[] needle) {
+        outer:
+        for (int i = 0; i <= length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
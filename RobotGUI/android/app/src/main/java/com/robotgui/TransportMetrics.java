@@ -0,0 +1,385 @@
+package com.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import org.json.JSONObject;
+
+/**
+ * Per-endpoint latency histograms and counters for every HTTP call to the robot ("slam")
+ * and to posemesh ("domain").
+ *
+ * Each call records up to four phases: queue wait (from the work being submitted to the
+ * call starting, which covers scheduler and dispatcher hops), connect (only when a new
+ * connection is opened), time to first byte and total time. Response codes and
+ * exception types are counted per endpoint, along with request and response body
+ * throughput in bytes/s. Calls are recorded by OkHttp clients built with
+ * {@link #eventListenerFactory}.
+ */
+public final class TransportMetrics {
+
+    /**
+     * Submission time of the work running on this thread, set by SlamtecCommandScheduler and
+     * by DomainUtilsModule's coroutine launches. Holds a one-element array so the first call
+     * can consume it: later calls in the same task have no queue wait of their own.
+     */
+    public static final ThreadLocal<long[]> QUEUED_AT = new ThreadLocal<>();
+
+    /** Histogram bucket upper bounds in milliseconds; a final bucket catches the rest. */
+    private static final long[] BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+
+    private static final String SNAPSHOT_FILE = "transport_metrics.json";
+
+    private static TransportMetrics sharedInstance;
+
+    private final Map<String, Map<String, EndpointStats>> targets = new ConcurrentHashMap<>();
+    private ScheduledExecutorService snapshotExecutor;
+
+    public static synchronized TransportMetrics getInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new TransportMetrics();
+        }
+        return sharedInstance;
+    }
+
+    public static long[] queuedNow() {
+        return new long[] {System.nanoTime()};
+    }
+
+    /** Nanoseconds since this thread's work was submitted, or -1 if unknown or already taken. */
+    static long takeQueueWait(long now) {
+        long[] queuedAt = QUEUED_AT.get();
+        if (queuedAt == null || queuedAt[0] == 0) {
+            return -1;
+        }
+        long wait = now - queuedAt[0];
+        queuedAt[0] = 0;
+        return wait;
+    }
+
+    /** Listener factory for an OkHttpClient; keyByHost adds the host to endpoint names. */
+    public EventListener.Factory eventListenerFactory(String target, boolean keyByHost) {
+        return call -> new CallListener(target, keyByHost);
+    }
+
+    EndpointStats stats(String target, String method, URL url, boolean keyByHost) {
+        String key = method + " " + (keyByHost ? url.getHost() : "") + normalizePath(url.getPath());
+        return targets.computeIfAbsent(target, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(key, k -> new EndpointStats());
+    }
+
+    /** Replaces ID-like path segments (numbers, UUIDs, tokens) with {id}. */
+    static String normalizePath(String path) {
+        StringBuilder normalized = new StringBuilder(path.length());
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start + 1);
+            if (end < 0) {
+                end = path.length();
+            }
+            String segment = path.substring(start, end);
+            normalized.append(isIdSegment(segment) ? "/{id}" : segment);
+            start = end;
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isIdSegment(String segment) {
+        int digits = 0;
+        for (int i = 1; i < segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) {
+                digits++;
+            }
+        }
+        int length = segment.length() - 1;
+        return length > 0 && (digits == length || (digits > 0 && length >= 8));
+    }
+
+    /** {capturedAt, slam: {endpoint: stats}, domain: {endpoint: stats}}, endpoints sorted. */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capturedAt", System.currentTimeMillis());
+        for (Map.Entry<String, Map<String, EndpointStats>> target : new TreeMap<>(targets).entrySet()) {
+            Map<String, Object> endpoints = new LinkedHashMap<>();
+            for (Map.Entry<String, EndpointStats> endpoint : new TreeMap<>(target.getValue()).entrySet()) {
+                endpoints.put(endpoint.getKey(), endpoint.getValue().snapshot());
+            }
+            result.put(target.getKey(), endpoints);
+        }
+        return result;
+    }
+
+    public void reset() {
+        targets.clear();
+    }
+
+    /** Writes {@link #snapshot} to dir/transport_metrics.json every intervalMs; idempotent. */
+    public synchronized void startSnapshots(File dir, long intervalMs) {
+        if (snapshotExecutor != null || intervalMs <= 0) {
+            return;
+        }
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transport-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot(dir);
+            } catch (Exception e) {
+                // Storage may be unavailable or permission not yet granted, try next time
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopSnapshots() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdownNow();
+            snapshotExecutor = null;
+        }
+    }
+
+    /** Writes the snapshot to transport_metrics.json in dir. */
+    public void writeSnapshot(File dir) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        MapCache.writeUtf8(new File(dir, SNAPSHOT_FILE), new JSONObject(snapshot()).toString());
+    }
+
+    /** Counters and phase histograms for one endpoint. */
+    static final class EndpointStats {
+        final AtomicLong calls = new AtomicLong();
+        final Histogram queueWait = new Histogram();
+        final Histogram connect = new Histogram();
+        final Histogram firstByte = new Histogram();
+        final Histogram total = new Histogram();
+        final Throughput requestBody = new Throughput();
+        final Throughput responseBody = new Throughput();
+        final Map<String, AtomicLong> codes = new ConcurrentHashMap<>();
+        final Map<String, AtomicLong> exceptions = new ConcurrentHashMap<>();
+
+        void recordCode(int code) {
+            codes.computeIfAbsent(String.valueOf(code), k -> new AtomicLong()).incrementAndGet();
+        }
+
+        void recordException(Throwable error) {
+            exceptions.computeIfAbsent(error.getClass().getSimpleName(), k -> new AtomicLong()).incrementAndGet();
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("calls", calls.get());
+            result.put("queueWait", queueWait.snapshot());
+            result.put("connect", connect.snapshot());
+            result.put("firstByte", firstByte.snapshot());
+            result.put("total", total.snapshot());
+            result.put("requestBody", requestBody.snapshot());
+            result.put("responseBody", responseBody.snapshot());
+            result.put("codes", counts(codes));
+            result.put("exceptions", counts(exceptions));
+            return result;
+        }
+
+        private static Map<String, Object> counts(Map<String, AtomicLong> counters) {
+            Map<String, Object> result = new TreeMap<>();
+            for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
+            }
+            return result;
+        }
+    }
+
+    /** Fixed log-spaced buckets; percentiles report the upper bound of their bucket. */
+    static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMicros = new AtomicLong();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                return;
+            }
+            long micros = nanos / 1000;
+            int bucket = 0;
+            while (bucket < BOUNDS_MS.length && micros > BOUNDS_MS[bucket] * 1000) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalMicros.addAndGet(micros);
+            long max;
+            do {
+                max = maxMicros.get();
+            } while (micros > max && !maxMicros.compareAndSet(max, micros));
+        }
+
+        Map<String, Object> snapshot() {
+            long n = count.get();
+            double maxMs = maxMicros.get() / 1000.0;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", n);
+            result.put("meanMs", n > 0 ? totalMicros.get() / 1000.0 / n : 0.0);
+            result.put("maxMs", maxMs);
+            result.put("p50Ms", percentile(n, 0.50, maxMs));
+            result.put("p95Ms", percentile(n, 0.95, maxMs));
+            result.put("p99Ms", percentile(n, 0.99, maxMs));
+            List<Object> counts = new ArrayList<>(buckets.length());
+            for (int i = 0; i < buckets.length(); i++) {
+                counts.add(buckets.get(i));
+            }
+            result.put("buckets", counts);
+            return result;
+        }
+
+        private double percentile(long n, double p, double maxMs) {
+            if (n == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(p * n);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_MS.length; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(BOUNDS_MS[i], maxMs);
+                }
+            }
+            return maxMs;
+        }
+    }
+
+    /** Bytes moved and time spent moving them; bytesPerSecond is the aggregate rate. */
+    static final class Throughput {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong lastBytesPerSecond = new AtomicLong();
+
+        void record(long byteCount, long elapsedNanos) {
+            if (byteCount <= 0 || elapsedNanos <= 0) {
+                return;
+            }
+            count.incrementAndGet();
+            bytes.addAndGet(byteCount);
+            nanos.addAndGet(elapsedNanos);
+            lastBytesPerSecond.set((long) (byteCount * 1e9 / elapsedNanos));
+        }
+
+        Map<String, Object> snapshot() {
+            long totalNanos = nanos.get();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", count.get());
+            result.put("bytes", bytes.get());
+            result.put("bytesPerSecond", totalNanos > 0 ? (long) (bytes.get() * 1e9 / totalNanos) : 0L);
+            result.put("lastBytesPerSecond", lastBytesPerSecond.get());
+            return result;
+        }
+    }
+
+    /** Per-call OkHttp listener; callStart runs on the calling thread for execute(). */
+    private final class CallListener extends EventListener {
+        private final String target;
+        private final boolean keyByHost;
+        private EndpointStats stats;
+        private long callStart;
+        private long connectStart = -1;
+        private long requestBodyStart;
+        private long responseBodyStart;
+
+        CallListener(String target, boolean keyByHost) {
+            this.target = target;
+            this.keyByHost = keyByHost;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+            Request request = call.request();
+            stats = stats(target, request.method(), request.url().url(), keyByHost);
+            stats.calls.incrementAndGet();
+            stats.queueWait.record(takeQueueWait(callStart));
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            if (connectStart < 0) {
+                connectStart = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            if (connectStart >= 0) {
+                stats.connect.record(System.nanoTime() - connectStart);
+                connectStart = -1;
+            }
+        }
+
+        @Override
+        public void requestBodyStart(Call call) {
+            requestBodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            stats.requestBody.record(byteCount, System.nanoTime() - requestBodyStart);
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            stats.firstByte.record(System.nanoTime() - callStart);
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            stats.recordCode(response.code());
+        }
+
+        @Override
+        public void responseBodyStart(Call call) {
+            responseBodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            stats.responseBody.record(byteCount, System.nanoTime() - responseBodyStart);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            stats.total.record(System.nanoTime() - callStart);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            stats.total.record(System.nanoTime() - callStart);
+            stats.recordException(ioe);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.robotgui.bench;
+
+import com.robotgui.SlamtecActionEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+import okio.Buffer;
+
+/** A navigate request body, built with org.json as before and with the template encoder. */
+@State(Scope.Thread)
+public class ActionEncodeBenchmark {
+
+    private final Buffer sink = new Buffer();
+    private double x = 1.25;
+
+    @Benchmark
+    public long legacyJsonObject() throws IOException {
+        x += 0.001;
+        sink.clear();
+        LegacyPaths.navigateBody(x, -3.5, 1.5707963267949).writeTo(sink);
+        return sink.size();
+    }
+
+    @Benchmark
+    public long templateEncoder() throws IOException {
+        x += 0.001;
+        sink.clear();
+        SlamtecActionEncoder.moveTo(SlamtecActionEncoder.NAVIGATE, x, -3.5, 1.5707963267949).writeTo(sink);
+        return sink.size();
+    }
+}
@@ -0,0 +1,53 @@
+package com.robotgui.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * One debug log line through DomainUtilsModule.logToFile and FileUtilsModule.appendToFile.
+ * Each iteration starts from an empty file so file growth doesn't skew later iterations.
+ */
+@State(Scope.Thread)
+public class FileLogBenchmark {
+
+    private static final String MESSAGE = "Navigating to product 42 at x=3.141, z=-2.718, yaw=1.57";
+
+    private File dir;
+    private File appendFile;
+    private int sequence;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("robotgui-log-bench").toFile();
+        appendFile = new File(dir, "app_log.txt");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public void logToFile() throws IOException {
+        LegacyPaths.logToFile(dir, MESSAGE + " #" + sequence++);
+    }
+
+    @Benchmark
+    public void appendToFile() throws IOException {
+        LegacyPaths.appendToFile(appendFile, MESSAGE + " #" + sequence++);
+    }
+}
@@ -0,0 +1,55 @@
+package com.robotgui.bench;
+
+import com.facebook.react.bridge.WritableArray;
+import com.robotgui.SlamtecJsonDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * POI list to WritableArray: the old readLine + org.json + convertJsonToWritableMap path
+ * against the streaming decoder, and against the read cache's tree-to-array copy.
+ */
+@State(Scope.Thread)
+public class JsonConversionBenchmark {
+
+    @Param({"8", "64", "512"})
+    public int poiCount;
+
+    private byte[] body;
+    private List<Object> cachedTree;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        body = Payloads.pois(poiCount);
+        cachedTree = (List<Object>) SlamtecJsonDecoder.readTree(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public WritableArray legacyOrgJson() throws IOException {
+        return LegacyPaths.parsePois(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public WritableArray streamingDecoder() throws IOException {
+        return SlamtecJsonDecoder.readWritableArray(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public Object streamingTree() throws IOException {
+        return SlamtecJsonDecoder.readTree(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public WritableArray cachedTreeToArray() {
+        return SlamtecJsonDecoder.toWritableArray(cachedTree);
+    }
+}
@@ -0,0 +1,66 @@
+package com.robotgui.bench;
+
+import com.robotgui.NavmeshMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * quaternionToYaw and the getNavmeshCoordWithToken yaw math over a fixed set of inputs,
+ * plus the log line DomainUtilsModule formats on every quaternion conversion.
+ */
+@State(Scope.Thread)
+public class NavmeshMathBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final double[] quaternions = new double[SIZE * 4];
+    private final double[] points = new double[SIZE * 4];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            // Yaw-only rotations, as lighthouses are mounted upright
+            double half = (random.nextDouble() * 2 - 1) * Math.PI / 2;
+            quaternions[i * 4] = random.nextDouble() * 0.01;
+            quaternions[i * 4 + 1] = random.nextDouble() * 0.01;
+            quaternions[i * 4 + 2] = Math.sin(half);
+            quaternions[i * 4 + 3] = Math.cos(half);
+            for (int j = 0; j < 4; j++) {
+                points[i * 4 + j] = random.nextDouble() * 40 - 20;
+            }
+        }
+    }
+
+    @Benchmark
+    public double quaternionToYaw() {
+        int i = (next++ & (SIZE - 1)) * 4;
+        return NavmeshMath.quaternionToYaw(quaternions[i], quaternions[i + 1], quaternions[i + 2], quaternions[i + 3]);
+    }
+
+    @Benchmark
+    public String quaternionToYawWithLogLine() {
+        int i = (next++ & (SIZE - 1)) * 4;
+        double x = quaternions[i];
+        double y = quaternions[i + 1];
+        double z = quaternions[i + 2];
+        double w = quaternions[i + 3];
+        double yaw = NavmeshMath.quaternionToYaw(x, y, z, w);
+        double pitch = NavmeshMath.quaternionToPitch(x, y, z, w);
+        double roll = NavmeshMath.quaternionToRoll(x, y, z, w);
+        return "Yaw: " + yaw + ", Pitch: " + pitch + ", Roll: " + roll;
+    }
+
+    @Benchmark
+    public double navmeshYaw() {
+        int i = (next++ & (SIZE - 1)) * 4;
+        double z1 = NavmeshMath.flipZ(points[i + 1]);
+        return NavmeshMath.navmeshYaw(points[i], z1, points[i + 2], points[i + 3]);
+    }
+}
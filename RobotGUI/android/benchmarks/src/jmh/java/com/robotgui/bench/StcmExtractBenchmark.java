@@ -0,0 +1,62 @@
+package com.robotgui.bench;
+
+import com.robotgui.StcmMultipartDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Multipart + base64 STCM extraction from DomainUtilsModule.getStcmMap, starting from
+ * the raw body bytes so the response.body.string() decode is included, against the
+ * streaming decoder writing to a file.
+ */
+@State(Scope.Thread)
+public class StcmExtractBenchmark {
+
+    /** Decoded STCM size; store maps are typically a few hundred KB to a few MB. */
+    @Param({"262144", "2097152"})
+    public int stcmBytes;
+
+    private byte[] body;
+    private File file;
+    private RandomAccessFile output;
+    private FileChannel channel;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = Payloads.stcmMultipart(stcmBytes);
+        file = File.createTempFile("stcm-bench", ".stcm");
+        output = new RandomAccessFile(file, "rw");
+        channel = output.getChannel();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        output.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] legacySplitAndDecode() {
+        String responseBody = new String(body, StandardCharsets.UTF_8);
+        return LegacyPaths.extractStcm(Payloads.STCM_CONTENT_TYPE, responseBody);
+    }
+
+    @Benchmark
+    public long streamingToChannel() throws IOException {
+        channel.position(0);
+        return StcmMultipartDecoder.decodeImgPart(new ByteArrayInputStream(body),
+            StcmMultipartDecoder.boundary(Payloads.STCM_CONTENT_TYPE), body.length, channel, null);
+    }
+}
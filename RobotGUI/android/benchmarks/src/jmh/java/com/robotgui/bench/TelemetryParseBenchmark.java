@@ -0,0 +1,38 @@
+package com.robotgui.bench;
+
+import com.robotgui.SlamtecJsonDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/** Pose and power status responses, parsed the old way and with the typed decoders. */
+@State(Scope.Thread)
+public class TelemetryParseBenchmark {
+
+    private final byte[] pose = Payloads.pose();
+    private final byte[] power = Payloads.powerStatus();
+
+    @Benchmark
+    public Object poseLegacy() throws IOException {
+        return LegacyPaths.parsePose(new ByteArrayInputStream(pose));
+    }
+
+    @Benchmark
+    public Object poseStreaming() throws IOException {
+        return SlamtecJsonDecoder.readPose(new ByteArrayInputStream(pose));
+    }
+
+    @Benchmark
+    public Object powerLegacy() throws IOException {
+        return LegacyPaths.parsePowerStatus(new ByteArrayInputStream(power));
+    }
+
+    @Benchmark
+    public Object powerStreaming() throws IOException {
+        return SlamtecJsonDecoder.readPowerStatus(new ByteArrayInputStream(power));
+    }
+}
@@ -0,0 +1,15 @@
+package android.util;
+
+/** JVM stand-in for android.util.JsonToken, same constants as the platform enum. */
+public enum JsonToken {
+    BEGIN_ARRAY,
+    END_ARRAY,
+    BEGIN_OBJECT,
+    END_OBJECT,
+    NAME,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT
+}
@@ -0,0 +1,19 @@
+package com.facebook.react.bridge;
+
+/**
+ * JVM stand-in for Arguments. On a device createMap/createArray return JNI-backed
+ * WritableNative* objects; here they return the Java-only variants, so allocation
+ * figures cover the JVM side of a conversion but not the native copy.
+ */
+public final class Arguments {
+    private Arguments() {
+    }
+
+    public static WritableMap createMap() {
+        return new JavaOnlyMap();
+    }
+
+    public static WritableArray createArray() {
+        return new JavaOnlyArray();
+    }
+}
@@ -0,0 +1,59 @@
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** ArrayList-backed WritableArray, as React Native's own JavaOnlyArray. */
+public final class JavaOnlyArray implements WritableArray {
+    private final List<Object> values = new ArrayList<>();
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    public Object get(int index) {
+        return values.get(index);
+    }
+
+    @Override
+    public void pushNull() {
+        values.add(null);
+    }
+
+    @Override
+    public void pushBoolean(boolean value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushInt(int value) {
+        // React Native stores every number as a double
+        values.add((double) value);
+    }
+
+    @Override
+    public void pushString(String value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushArray(ReadableArray value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushMap(ReadableMap value) {
+        values.add(value);
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
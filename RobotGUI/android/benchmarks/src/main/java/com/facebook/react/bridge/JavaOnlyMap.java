@@ -0,0 +1,59 @@
+package com.facebook.react.bridge;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** HashMap-backed WritableMap, as React Native's own JavaOnlyMap. */
+public final class JavaOnlyMap implements WritableMap {
+    private final Map<String, Object> values = new HashMap<>();
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    @Override
+    public void putNull(String key) {
+        values.put(key, null);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        // React Native stores every number as a double
+        values.put(key, (double) value);
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putArray(String key, ReadableArray value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putMap(String key, ReadableMap value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
@@ -0,0 +1,6 @@
+package com.facebook.react.bridge;
+
+/** JVM stand-in for the React Native bridge type; only what the benchmarks touch. */
+public interface ReadableMap {
+    int size();
+}
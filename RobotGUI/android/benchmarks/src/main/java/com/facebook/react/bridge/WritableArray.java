@@ -0,0 +1,18 @@
+package com.facebook.react.bridge;
+
+/** JVM stand-in for the React Native bridge type; only what the benchmarks touch. */
+public interface WritableArray extends ReadableArray {
+    void pushNull();
+
+    void pushBoolean(boolean value);
+
+    void pushDouble(double value);
+
+    void pushInt(int value);
+
+    void pushString(String value);
+
+    void pushArray(ReadableArray value);
+
+    void pushMap(ReadableMap value);
+}
@@ -0,0 +1,195 @@
+package com.robotgui.bench;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import com.robotgui.SlamtecHttpClient;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.RequestBody;
+
+/**
+ * The native module code paths as they were before the transport rework, copied with
+ * only the Android I/O swapped for its JVM equivalent. They are the baselines the
+ * benchmarks compare the current implementations against.
+ */
+public final class LegacyPaths {
+
+    private LegacyPaths() {
+    }
+
+    /** SlamtecUtilsModule response read: readLine loop into a StringBuilder. */
+    public static String readBody(InputStream in) throws IOException {
+        StringBuilder result = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                result.append(line);
+            }
+        }
+        return result.toString();
+    }
+
+    /** SlamtecUtilsModule.getCurrentPose body handling. */
+    public static WritableMap parsePose(InputStream in) throws IOException {
+        JSONObject pose = new JSONObject(readBody(in));
+        WritableMap response = Arguments.createMap();
+        response.putDouble("x", pose.optDouble("x", 0.0));
+        response.putDouble("y", pose.optDouble("y", 0.0));
+        response.putDouble("yaw", pose.optDouble("yaw", 0.0));
+        return response;
+    }
+
+    /** SlamtecUtilsModule.getPowerStatus body handling. */
+    public static WritableMap parsePowerStatus(InputStream in) throws IOException {
+        JSONObject powerStatus = new JSONObject(readBody(in));
+        WritableMap response = Arguments.createMap();
+        response.putInt("batteryPercentage", powerStatus.optInt("batteryPercentage", -1));
+        response.putString("dockingStatus", powerStatus.optString("dockingStatus", ""));
+        response.putBoolean("isCharging", powerStatus.optBoolean("isCharging", false));
+        response.putBoolean("isDCConnected", powerStatus.optBoolean("isDCConnected", false));
+        response.putString("powerStage", powerStatus.optString("powerStage", ""));
+        response.putString("sleepMode", powerStatus.optString("sleepMode", ""));
+        return response;
+    }
+
+    /** SlamtecUtilsModule.getPOIs: read, parse, then convert each POI. */
+    public static WritableArray parsePois(InputStream in) throws IOException {
+        JSONArray pois = new JSONArray(readBody(in));
+        WritableArray poisArray = Arguments.createArray();
+        for (int i = 0; i < pois.length(); i++) {
+            poisArray.pushMap(convertJsonToWritableMap(pois.getJSONObject(i)));
+        }
+        return poisArray;
+    }
+
+    public static WritableMap convertJsonToWritableMap(JSONObject jsonObject) {
+        WritableMap map = Arguments.createMap();
+        java.util.Iterator<String> iterator = jsonObject.keys();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            Object value = jsonObject.get(key);
+            if (value instanceof JSONObject) {
+                map.putMap(key, convertJsonToWritableMap((JSONObject) value));
+            } else if (value instanceof JSONArray) {
+                map.putArray(key, convertJsonToWritableArray((JSONArray) value));
+            } else if (value instanceof Boolean) {
+                map.putBoolean(key, (Boolean) value);
+            } else if (value instanceof Integer) {
+                map.putInt(key, (Integer) value);
+            } else if (value instanceof Double) {
+                map.putDouble(key, (Double) value);
+            } else if (value instanceof String) {
+                map.putString(key, (String) value);
+            } else {
+                map.putString(key, value.toString());
+            }
+        }
+        return map;
+    }
+
+    public static WritableArray convertJsonToWritableArray(JSONArray jsonArray) {
+        WritableArray array = Arguments.createArray();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            Object value = jsonArray.get(i);
+            if (value instanceof JSONObject) {
+                array.pushMap(convertJsonToWritableMap((JSONObject) value));
+            } else if (value instanceof JSONArray) {
+                array.pushArray(convertJsonToWritableArray((JSONArray) value));
+            } else if (value instanceof Boolean) {
+                array.pushBoolean((Boolean) value);
+            } else if (value instanceof Integer) {
+                array.pushInt((Integer) value);
+            } else if (value instanceof Double) {
+                array.pushDouble((Double) value);
+            } else if (value instanceof String) {
+                array.pushString((String) value);
+            } else {
+                array.pushString(value.toString());
+            }
+        }
+        return array;
+    }
+
+    /** SlamtecUtilsModule.navigate request body. */
+    public static RequestBody navigateBody(double x, double y, double yaw) {
+        JSONObject actionOptions = new JSONObject()
+            .put("action_name", "slamtec.agent.actions.MoveToAction")
+            .put("options", new JSONObject()
+                .put("target", new JSONObject()
+                    .put("x", x)
+                    .put("y", y)
+                    .put("z", 0))
+                .put("move_options", new JSONObject()
+                    .put("mode", 0)
+                    .put("flags", new JSONArray().put("with_yaw"))
+                    .put("yaw", yaw)
+                    .put("acceptable_precision", 0)
+                    .put("fail_retry_count", 0)));
+        return RequestBody.create(actionOptions.toString(), SlamtecHttpClient.JSON);
+    }
+
+    /**
+     * DomainUtilsModule.getStcmMap multipart handling: the whole body as a String, split on
+     * the boundary, whitespace stripped by regex, then base64 decoded in one piece.
+     */
+    public static byte[] extractStcm(String contentType, String responseBody) {
+        Pattern boundaryPattern = Pattern.compile("boundary=([^;\\s]+)");
+        Matcher boundaryMatcher = boundaryPattern.matcher(contentType);
+        if (!boundaryMatcher.find()) {
+            throw new IllegalStateException("Could not find boundary in Content-Type header");
+        }
+        String boundary = "--" + boundaryMatcher.group(1);
+
+        // Kotlin's String.split(String) is a literal split, not a regex one
+        for (String part : responseBody.split(Pattern.quote(boundary))) {
+            if (part.contains("name=\"img\"")) {
+                int headerEnd = part.indexOf("\r\n\r\n");
+                if (headerEnd > 0) {
+                    String base64Data = part.substring(headerEnd + 4).trim();
+                    String cleanBase64 = base64Data.replaceAll("\\s+", "");
+                    return Base64.getDecoder().decode(cleanBase64);
+                }
+            }
+        }
+        throw new IllegalStateException("Failed to extract STCM data from response");
+    }
+
+    /** DomainUtilsModule.logToFile: a formatter, an exists check and a writer per line. */
+    public static void logToFile(File appDir, String message) throws IOException {
+        if (!appDir.exists()) {
+            appDir.mkdirs();
+        }
+        File logFile = new File(appDir, "debug_log.txt");
+        String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new java.util.Date());
+        String logMessage = "[" + timestamp + "] " + message + "\n";
+
+        if (!logFile.exists()) {
+            logFile.createNewFile();
+        }
+
+        try (FileWriter writer = new FileWriter(logFile, true)) {
+            writer.append(logMessage);
+        }
+    }
+
+    /** FileUtilsModule.appendToFile, minus the permission check. */
+    public static void appendToFile(File file, String content) throws IOException {
+        FileWriter writer = new FileWriter(file, true);
+        writer.write(content + "\n");
+        writer.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.robotgui.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+/** Deterministic response bodies shaped like the ones the robot and the domain server send. */
+public final class Payloads {
+
+    public static final String STCM_BOUNDARY = "----posemesh7MA4YWxkTrZu0gW";
+    public static final String STCM_CONTENT_TYPE = "multipart/form-data; boundary=" + STCM_BOUNDARY;
+
+    private Payloads() {
+    }
+
+    public static byte[] pose() {
+        return utf8("{\"x\":1.2345678901234,\"y\":-0.9876543210987,\"z\":0,"
+            + "\"yaw\":1.5707963267949,\"pitch\":0,\"roll\":0}");
+    }
+
+    public static byte[] powerStatus() {
+        return utf8("{\"batteryPercentage\":87,\"dockingStatus\":\"not_on_dock\",\"isCharging\":false,"
+            + "\"isDCConnected\":false,\"powerStage\":\"running\",\"sleepMode\":\"awake\"}");
+    }
+
+    /** A /api/core/artifact/v1/pois list as the app creates them from product placements. */
+    public static byte[] pois(int count) {
+        Random random = new Random(count);
+        StringBuilder json = new StringBuilder(count * 220).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(new java.util.UUID(random.nextLong(), random.nextLong()))
+                .append("\",\"metadata\":{\"display_name\":\"Product ").append(i)
+                .append("\",\"type\":\"\",\"group\":\"\"},\"pose\":{\"x\":")
+                .append(random.nextDouble() * 40 - 20).append(",\"y\":")
+                .append(random.nextDouble() * 40 - 20).append(",\"yaw\":")
+                .append(random.nextDouble() * 6.28 - 3.14).append("},\"tags\":[")
+                .append(i % 7).append(',').append(i % 11).append("],\"visible\":true}");
+        }
+        return utf8(json.append(']').toString());
+    }
+
+    /**
+     * A domain map response: random STCM bytes, base64 encoded with MIME line breaks, in
+     * the "img" part of a multipart body after a small JSON metadata part.
+     */
+    public static byte[] stcmMultipart(int stcmBytes) {
+        byte[] stcm = new byte[stcmBytes];
+        new Random(stcmBytes).nextBytes(stcm);
+        String base64 = Base64.getMimeEncoder().encodeToString(stcm);
+        String body = "--" + STCM_BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"meta\"\r\n"
+            + "Content-Type: application/json\r\n\r\n"
+            + "{\"pixelsPerMeter\":20,\"height\":0.1,\"fileType\":\"stcm\"}\r\n"
+            + "--" + STCM_BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"img\"; filename=\"map.stcm\"\r\n"
+            + "Content-Type: application/octet-stream\r\n"
+            + "Content-Transfer-Encoding: base64\r\n\r\n"
+            + base64 + "\r\n"
+            + "--" + STCM_BOUNDARY + "--\r\n";
+        return utf8(body);
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+package com.robotgui;
+
+/**
+ * JVM stand-in for the app's ConfigManager so the shared Slamtec transport classes can
+ * run off-device. Values come from system properties named like the config.yaml keys
+ * (e.g. -Dslam_port=18448 or -Dslam_http.max_connections=8), else the caller's default.
+ */
+public final class ConfigManager {
+    public static final ConfigManager INSTANCE = new ConfigManager();
+
+    private ConfigManager() {
+    }
+
+    public String getString(String key, String defaultValue) {
+        return System.getProperty(key, defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return getNestedInt(key, defaultValue);
+    }
+
+    public int getNestedInt(String path, int defaultValue) {
+        try {
+            return Integer.parseInt(System.getProperty(path, ""));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public double getNestedDouble(String path, double defaultValue) {
+        try {
+            return Double.parseDouble(System.getProperty(path, ""));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.robotgui.mock;
+
+import java.util.Random;
+
+/**
+ * Network misbehaviour applied to every mock request: a base latency plus uniform
+ * jitter, a rate of injected 500 responses and a rate of connections dropped mid-response.
+ */
+final class FaultProfile {
+    final long latencyMs;
+    final long jitterMs;
+    final double errorRate;
+    final double dropRate;
+    private final Random random;
+
+    FaultProfile(long latencyMs, long jitterMs, double errorRate, double dropRate, long seed) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.dropRate = dropRate;
+        this.random = new Random(seed);
+    }
+
+    static FaultProfile none() {
+        return new FaultProfile(0, 0, 0, 0, 0);
+    }
+
+    synchronized long nextDelayMs() {
+        return latencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * jitterMs) : 0);
+    }
+
+    synchronized boolean shouldFail() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    synchronized boolean shouldDrop() {
+        return dropRate > 0 && random.nextDouble() < dropRate;
+    }
+
+    @Override
+    public String toString() {
+        return "latency=" + latencyMs + "ms jitter=" + jitterMs + "ms errorRate=" + errorRate
+            + " dropRate=" + dropRate;
+    }
+}
@@ -0,0 +1,316 @@
+package com.robotgui.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * In-memory state of a simulated Padbot W3: pose, home pose, POIs, map, parameters,
+ * battery and motion actions. Motion is simulated lazily: whenever state is read, the
+ * current action is advanced to the wall-clock time, moving the pose along a straight
+ * line to each target at {@code speed} m/s.
+ */
+final class MockRobot {
+
+    /** One motion action, from submission until it reaches its last target or is cancelled. */
+    private static final class Action {
+        final int id;
+        final String name;
+        final List<double[]> targets;
+        final double targetYaw;
+        final boolean goHome;
+        int targetIndex;
+        boolean finished;
+
+        Action(int id, String name, List<double[]> targets, double targetYaw, boolean goHome) {
+            this.id = id;
+            this.name = name;
+            this.targets = targets;
+            this.targetYaw = targetYaw;
+            this.goHome = goHome;
+        }
+    }
+
+    private final double speed;
+    private final Map<Integer, Action> actions = new LinkedHashMap<>();
+    private final List<JSONObject> pois = new ArrayList<>();
+    private final Map<String, String> parameters = new LinkedHashMap<>();
+    private int nextActionId = 1;
+    private Action current;
+    private long lastAdvanceNanos = System.nanoTime();
+
+    private double x, y, z, yaw, pitch, roll;
+    private double[] homePose = new double[6];
+    private byte[] map = new byte[0];
+    private double battery = 87.0;
+    private boolean onDock = true;
+
+    MockRobot(double speed, int poiCount) {
+        this.speed = speed;
+        for (int i = 0; i < poiCount; i++) {
+            double angle = 2 * Math.PI * i / Math.max(1, poiCount);
+            pois.add(poi("poi-" + i, "Shelf " + i, 5 * Math.cos(angle), 5 * Math.sin(angle), angle));
+        }
+    }
+
+    synchronized JSONObject pose() {
+        advance();
+        return new JSONObject()
+            .put("x", x).put("y", y).put("z", z)
+            .put("yaw", yaw).put("pitch", pitch).put("roll", roll);
+    }
+
+    synchronized void setPose(JSONObject body) {
+        advance();
+        x = body.optDouble("x", x);
+        y = body.optDouble("y", y);
+        z = body.optDouble("z", z);
+        yaw = body.optDouble("yaw", yaw);
+        pitch = body.optDouble("pitch", pitch);
+        roll = body.optDouble("roll", roll);
+    }
+
+    synchronized JSONObject homePose() {
+        return new JSONObject()
+            .put("x", homePose[0]).put("y", homePose[1]).put("z", homePose[2])
+            .put("yaw", homePose[3]).put("pitch", homePose[4]).put("roll", homePose[5]);
+    }
+
+    synchronized void setHomePose(JSONObject body) {
+        homePose = new double[] {
+            body.optDouble("x", 0), body.optDouble("y", 0), body.optDouble("z", 0),
+            body.optDouble("yaw", 0), body.optDouble("pitch", 0), body.optDouble("roll", 0)
+        };
+    }
+
+    synchronized JSONObject powerStatus() {
+        advance();
+        return new JSONObject()
+            .put("batteryPercentage", (int) battery)
+            .put("dockingStatus", onDock ? "on_dock" : "not_on_dock")
+            .put("isCharging", onDock && battery < 100)
+            .put("isDCConnected", onDock)
+            .put("powerStage", "running")
+            .put("sleepMode", "awake");
+    }
+
+    /** Starts a MoveToAction, SeriesMoveToAction or GoHomeAction and returns its summary. */
+    synchronized JSONObject startAction(JSONObject body) {
+        advance();
+        String name = body.optString("action_name", "slamtec.agent.actions.MoveToAction");
+        List<double[]> targets = new ArrayList<>();
+        double targetYaw = yaw;
+        boolean goHome = name.endsWith("GoHomeAction");
+        JSONObject options = body.optJSONObject("options");
+        if (goHome) {
+            targets.add(new double[] {homePose[0], homePose[1]});
+            targetYaw = homePose[3];
+        } else if (options != null && options.has("targets")) {
+            JSONArray list = options.getJSONArray("targets");
+            for (int i = 0; i < list.length(); i++) {
+                JSONObject target = list.getJSONObject(i);
+                targets.add(new double[] {target.optDouble("x", 0), target.optDouble("y", 0)});
+            }
+        } else if (options != null && options.has("target")) {
+            JSONObject target = options.getJSONObject("target");
+            targets.add(new double[] {target.optDouble("x", 0), target.optDouble("y", 0)});
+            JSONObject moveOptions = options.optJSONObject("move_options");
+            if (moveOptions != null && moveOptions.has("yaw")) {
+                targetYaw = moveOptions.getDouble("yaw");
+            }
+        }
+
+        // Like the robot, a new action replaces the running one
+        if (current != null) {
+            current.finished = true;
+        }
+        Action action = new Action(nextActionId++, name, targets, targetYaw, goHome);
+        actions.put(action.id, action);
+        current = action;
+        onDock = false;
+        return describe(action);
+    }
+
+    /**
+     * The action as the module polls it: running actions carry action_name, finished
+     * ones come back as an empty object, which is what monitorAction treats as done.
+     */
+    synchronized JSONObject action(int id) {
+        advance();
+        Action action = actions.get(id);
+        if (action == null || action.finished) {
+            return new JSONObject();
+        }
+        return describe(action);
+    }
+
+    synchronized JSONObject currentAction() {
+        advance();
+        return current == null || current.finished ? new JSONObject() : describe(current);
+    }
+
+    synchronized void cancelCurrentAction() {
+        advance();
+        if (current != null) {
+            current.finished = true;
+            current = null;
+        }
+    }
+
+    synchronized String poisJson() {
+        return new JSONArray(pois).toString();
+    }
+
+    synchronized void addPoi(JSONObject body) {
+        if (!body.has("id")) {
+            body.put("id", "poi-" + System.nanoTime());
+        }
+        pois.add(body);
+    }
+
+    synchronized void clearPois() {
+        pois.clear();
+    }
+
+    synchronized byte[] map() {
+        return map;
+    }
+
+    synchronized void setMap(byte[] bytes) {
+        map = bytes;
+    }
+
+    synchronized void clearMap() {
+        map = new byte[0];
+    }
+
+    synchronized void setParameter(JSONObject body) {
+        parameters.put(body.optString("param", ""), body.optString("value", ""));
+    }
+
+    synchronized String mapYaml() {
+        return String.format(Locale.US,
+            "image: map.bmp\nresolution: 0.05\norigin: [-10.0, -10.0, 0.0]\nnegate: 0\n"
+                + "occupied_thresh: 0.65\nfree_thresh: 0.196\n");
+    }
+
+    /** Bounds of mapBitmap in meters, at the 0.05 m resolution and origin of mapYaml. */
+    synchronized JSONObject knownArea() {
+        return new JSONObject()
+            .put("min_x", -10.0)
+            .put("min_y", -10.0)
+            .put("max_x", 10.0)
+            .put("max_y", 10.0);
+    }
+
+    /** A 400x400 8-bit grayscale BMP with a border wall, standing in for the occupancy map. */
+    static byte[] mapBitmap() {
+        int width = 400;
+        int height = 400;
+        int rowSize = (width + 3) & ~3;
+        int paletteSize = 256 * 4;
+        int dataOffset = 14 + 40 + paletteSize;
+        int fileSize = dataOffset + rowSize * height;
+        byte[] bmp = new byte[fileSize];
+        bmp[0] = 'B';
+        bmp[1] = 'M';
+        putInt(bmp, 2, fileSize);
+        putInt(bmp, 10, dataOffset);
+        putInt(bmp, 14, 40);
+        putInt(bmp, 18, width);
+        putInt(bmp, 22, height);
+        bmp[26] = 1;
+        bmp[28] = 8;
+        putInt(bmp, 34, rowSize * height);
+        putInt(bmp, 46, 256);
+        for (int i = 0; i < 256; i++) {
+            int p = 54 + i * 4;
+            bmp[p] = bmp[p + 1] = bmp[p + 2] = (byte) i;
+        }
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                boolean wall = row < 4 || col < 4 || row >= height - 4 || col >= width - 4;
+                bmp[dataOffset + row * rowSize + col] = (byte) (wall ? 0 : 255);
+            }
+        }
+        return bmp;
+    }
+
+    static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private JSONObject describe(Action action) {
+        // Within half a metre of the final target the stage flips, like the robot's approach
+        boolean near = action.targets.isEmpty() || (action.targetIndex >= action.targets.size() - 1
+            && Math.hypot(action.targets.get(action.targets.size() - 1)[0] - x,
+                action.targets.get(action.targets.size() - 1)[1] - y) < 0.5);
+        return new JSONObject()
+            .put("action_id", action.id)
+            .put("action_name", action.name)
+            .put("stage", near ? "NEAR_TARGET" : "GOING_TO_TARGET")
+            .put("state", new JSONObject()
+                .put("status", 1)
+                .put("result", 0)
+                .put("reason", ""));
+    }
+
+    private void advance() {
+        long now = System.nanoTime();
+        double seconds = (now - lastAdvanceNanos) / 1e9;
+        lastAdvanceNanos = now;
+
+        battery = onDock ? Math.min(100, battery + seconds * 0.05) : Math.max(5, battery - seconds * 0.01);
+        if (current == null || current.finished) {
+            return;
+        }
+
+        double budget = seconds * speed;
+        while (budget > 0 && current.targetIndex < current.targets.size()) {
+            double[] target = current.targets.get(current.targetIndex);
+            double dx = target[0] - x;
+            double dy = target[1] - y;
+            double distance = Math.hypot(dx, dy);
+            if (distance <= budget) {
+                x = target[0];
+                y = target[1];
+                budget -= distance;
+                current.targetIndex++;
+            } else {
+                x += dx / distance * budget;
+                y += dy / distance * budget;
+                yaw = Math.atan2(dy, dx);
+                budget = 0;
+            }
+        }
+        if (current.targetIndex >= current.targets.size()) {
+            yaw = current.targetYaw;
+            current.finished = true;
+            onDock = current.goHome;
+            current = null;
+        }
+    }
+
+    private static JSONObject poi(String id, String name, double px, double py, double pyaw) {
+        return new JSONObject()
+            .put("id", id)
+            .put("pose", new JSONObject().put("x", px).put("y", py).put("yaw", pyaw))
+            .put("metadata", new JSONObject()
+                .put("display_name", name)
+                .put("type", "")
+                .put("group", ""));
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >> 8);
+        target[offset + 2] = (byte) (value >> 16);
+        target[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -0,0 +1,303 @@
+package com.robotgui.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for the Slamtec REST API on port 1448, implementing the endpoints the app's
+ * native modules call. Run it with {@code ./gradlew :slamtec-mock:run --args="..."} and
+ * point slam_ip/slam_port at it, or start it in-process from a load test or benchmark.
+ *
+ * <pre>
+ *   --port=1448        listen port (0 picks a free one)
+ *   --latency=0        base latency per request, ms
+ *   --jitter=0         extra uniform random latency, ms
+ *   --error-rate=0     fraction of requests answered with a 500
+ *   --drop-rate=0      fraction of connections closed mid-response
+ *   --speed=0.5        simulated travel speed, m/s
+ *   --pois=8           number of POIs the robot starts with
+ *   --seed=1           random seed for the fault injection
+ * </pre>
+ *
+ * GET /mock/stats returns per-endpoint request counts and is never faulted.
+ */
+public final class MockSlamtecServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MockRobot robot;
+    private final FaultProfile faults;
+    private final byte[] mapBitmap = MockRobot.mapBitmap();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    public MockSlamtecServer(int port, FaultProfile faults, double speed, int poiCount) throws IOException {
+        this.faults = faults;
+        this.robot = new MockRobot(speed, poiCount);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 64);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    /** A fault-free server on a free port, for tests and benchmarks. */
+    public static MockSlamtecServer startDefault() throws IOException {
+        MockSlamtecServer mock = new MockSlamtecServer(0, FaultProfile.none(), 0.5, 8);
+        mock.start();
+        return mock;
+    }
+
+    public static MockSlamtecServer start(int port, long latencyMs, long jitterMs, double errorRate,
+                                          double dropRate, long seed) throws IOException {
+        MockSlamtecServer mock = new MockSlamtecServer(port,
+            new FaultProfile(latencyMs, jitterMs, errorRate, dropRate, seed), 0.5, 8);
+        mock.start();
+        return mock;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        byte[] body = readBody(exchange.getRequestBody());
+
+        if (path.startsWith("/mock/")) {
+            route(exchange, method, path, query, body);
+            return;
+        }
+        requestCounts.computeIfAbsent(method + " " + normalize(path), key -> new AtomicLong()).incrementAndGet();
+
+        long delay = faults.nextDelayMs();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (faults.shouldDrop()) {
+            // Promise a body and close without sending it: the client sees an unexpected EOF
+            exchange.sendResponseHeaders(200, 1024);
+            exchange.getResponseBody().write('{');
+            exchange.getResponseBody().flush();
+            exchange.close();
+            return;
+        }
+        if (faults.shouldFail()) {
+            send(exchange, 500, "{\"error\":\"injected failure\"}");
+            return;
+        }
+
+        try {
+            route(exchange, method, path, query, body);
+        } catch (Exception e) {
+            send(exchange, 400, new JSONObject().put("error", String.valueOf(e.getMessage())).toString());
+        }
+    }
+
+    private void route(HttpExchange exchange, String method, String path, String query, byte[] body)
+            throws IOException {
+        switch (path) {
+            case "/api/core/system/v1/robot/health":
+                send(exchange, 200, "{\"hasError\":false,\"hasFatal\":false,"
+                    + "\"hasSystemEmergencyStop\":false,\"baseError\":[]}");
+                return;
+            case "/api/core/system/v1/robot/info":
+                send(exchange, 200, "{\"device_id\":\"MOCK-W3-0001\",\"mac_address\":\"02:00:00:00:14:48\","
+                    + "\"model_name\":\"Padbot W3 (mock)\",\"software_version\":\"mock\"}");
+                return;
+            case "/api/core/system/v1/power/status":
+                send(exchange, 200, robot.powerStatus().toString());
+                return;
+            case "/api/core/system/v1/parameter":
+                robot.setParameter(json(body));
+                send(exchange, 200, "");
+                return;
+            case "/api/core/slam/v1/localization/pose":
+                if ("PUT".equals(method)) {
+                    robot.setPose(json(body));
+                    send(exchange, 200, "");
+                } else {
+                    send(exchange, 200, robot.pose().toString());
+                }
+                return;
+            case "/api/core/slam/v1/homepose":
+                if ("PUT".equals(method)) {
+                    robot.setHomePose(json(body));
+                    send(exchange, 200, "");
+                } else {
+                    send(exchange, 200, robot.homePose().toString());
+                }
+                return;
+            case "/api/core/slam/v1/homedocks":
+                send(exchange, 200, "DELETE".equals(method) || "POST".equals(method) ? "" : "[]");
+                return;
+            case "/api/core/artifact/v1/pois":
+            case "/api/core/slam/v1/pois":
+                if ("DELETE".equals(method)) {
+                    robot.clearPois();
+                    send(exchange, 200, "");
+                } else if ("POST".equals(method)) {
+                    robot.addPoi(json(body));
+                    send(exchange, 200, "");
+                } else {
+                    send(exchange, 200, robot.poisJson());
+                }
+                return;
+            case "/api/core/slam/v1/maps":
+                if ("DELETE".equals(method)) {
+                    robot.clearMap();
+                    send(exchange, 200, "");
+                } else if (query != null && query.contains("format=bmp")) {
+                    send(exchange, 200, "image/bmp", mapBitmap);
+                } else {
+                    send(exchange, 404, "");
+                }
+                return;
+            case "/api/core/slam/v1/maps/stcm":
+            case "/api/multi-floor/map/v1/stcm":
+                if ("PUT".equals(method) || "POST".equals(method)) {
+                    robot.setMap(body);
+                    send(exchange, 200, "");
+                } else {
+                    send(exchange, 200, "application/octet-stream", robot.map());
+                }
+                return;
+            case "/api/core/slam/v1/knownarea":
+                send(exchange, 200, robot.knownArea().toString());
+                return;
+            case "/api/core/slam/v1/maps/yaml":
+                send(exchange, 200, "text/plain", MockRobot.utf8(robot.mapYaml()));
+                return;
+            case "/api/multi-floor/map/v1/stcm/:save":
+                send(exchange, 200, "");
+                return;
+            case "/api/core/motion/v1/actions":
+                if ("POST".equals(method)) {
+                    send(exchange, 200, robot.startAction(json(body)).toString());
+                } else {
+                    send(exchange, 404, "");
+                }
+                return;
+            case "/api/core/motion/v1/actions/:current":
+                if ("DELETE".equals(method)) {
+                    robot.cancelCurrentAction();
+                    send(exchange, 200, "");
+                } else {
+                    send(exchange, 200, robot.currentAction().toString());
+                }
+                return;
+            case "/mock/stats":
+                send(exchange, 200, new JSONObject(new TreeMap<>(requestCounts)).toString());
+                return;
+            default:
+                if (path.startsWith("/api/core/motion/v1/actions/")) {
+                    String id = path.substring("/api/core/motion/v1/actions/".length());
+                    send(exchange, 200, robot.action(Integer.parseInt(id)).toString());
+                    return;
+                }
+                send(exchange, 404, "{\"error\":\"unknown endpoint\"}");
+        }
+    }
+
+    private static String normalize(String path) {
+        if (path.startsWith("/api/core/motion/v1/actions/") && !path.endsWith(":current")) {
+            return "/api/core/motion/v1/actions/{id}";
+        }
+        return path;
+    }
+
+    private static JSONObject json(byte[] body) {
+        return body.length == 0 ? new JSONObject() : new JSONObject(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void send(HttpExchange exchange, int code, String json) throws IOException {
+        send(exchange, code, "application/json", MockRobot.utf8(json));
+    }
+
+    private static void send(HttpExchange exchange, int code, String contentType, byte[] bytes)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseArgs(args);
+        FaultProfile faults = new FaultProfile(
+            Long.parseLong(options.getOrDefault("latency", "0")),
+            Long.parseLong(options.getOrDefault("jitter", "0")),
+            Double.parseDouble(options.getOrDefault("error-rate", "0")),
+            Double.parseDouble(options.getOrDefault("drop-rate", "0")),
+            Long.parseLong(options.getOrDefault("seed", "1")));
+        MockSlamtecServer mock = new MockSlamtecServer(
+            Integer.parseInt(options.getOrDefault("port", "1448")),
+            faults,
+            Double.parseDouble(options.getOrDefault("speed", "0.5")),
+            Integer.parseInt(options.getOrDefault("pois", "8")));
+        mock.start();
+        System.out.println("Mock Slamtec API listening on " + mock.getBaseUrl() + " (" + faults + ")");
+    }
+
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new TreeMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,171 @@
+package com.robotgui.mock;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.robotgui.SlamtecActionEncoder;
+import com.robotgui.SlamtecActionMonitor;
+import com.robotgui.SlamtecCommandScheduler;
+import com.robotgui.SlamtecCommandScheduler.Priority;
+import com.robotgui.SlamtecHttpClient;
+import com.robotgui.SlamtecHttpClient.SlamtecResponse;
+import com.robotgui.SlamtecReadCache;
+
+/**
+ * Drives the app's Slamtec transport stack (connection pool, command scheduler, read
+ * cache, action monitor and action encoder, wired as SlamtecUtilsModule wires them)
+ * against a mock or real robot and prints latency percentiles per operation.
+ *
+ * <pre>
+ *   --url=http://host:1448   target robot; omitted starts an in-process mock using the
+ *                            MockSlamtecServer fault options (--latency, --jitter, ...)
+ *   --duration=30            seconds to run
+ *   --pollers=4              telemetry pollers, each reading pose/power/health in turn
+ *   --poll-hz=5              rate of each poller
+ *   --navigate-ms=3000       interval between navigate commands (0 disables)
+ * </pre>
+ */
+public final class SlamtecLoadTest {
+
+    /** Latency samples for one operation, in microseconds. */
+    private static final class Recorder {
+        private long[] samples = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void record(long micros) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = micros;
+        }
+
+        synchronized void error() {
+            errors++;
+        }
+
+        synchronized String summary(double seconds) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return String.format("n=%d err=%d rate=%.1f/s p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                count, errors, count / seconds, pct(sorted, 0.50), pct(sorted, 0.95), pct(sorted, 0.99),
+                count > 0 ? sorted[count - 1] / 1000.0 : 0.0);
+        }
+
+        private static double pct(long[] sorted, double p) {
+            return sorted.length == 0 ? 0.0 : sorted[(int) Math.min(sorted.length - 1, p * sorted.length)] / 1000.0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = MockSlamtecServer.parseArgs(args);
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int pollers = Integer.parseInt(options.getOrDefault("pollers", "4"));
+        double pollHz = Double.parseDouble(options.getOrDefault("poll-hz", "5"));
+        long navigateMs = Long.parseLong(options.getOrDefault("navigate-ms", "3000"));
+
+        MockSlamtecServer mock = null;
+        String baseUrl = options.get("url");
+        if (baseUrl == null) {
+            mock = MockSlamtecServer.start(0,
+                Long.parseLong(options.getOrDefault("latency", "5")),
+                Long.parseLong(options.getOrDefault("jitter", "5")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Double.parseDouble(options.getOrDefault("drop-rate", "0")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+            baseUrl = mock.getBaseUrl();
+        }
+
+        SlamtecHttpClient client = new SlamtecHttpClient(baseUrl, 4, 300000, 1000, 5000, 60000);
+        Map<String, Long> ttls = new LinkedHashMap<>();
+        ttls.put(SlamtecReadCache.POSE, 200L);
+        ttls.put(SlamtecReadCache.POWER_STATUS, 5000L);
+        ttls.put(SlamtecReadCache.HEALTH, 2000L);
+        SlamtecReadCache cache = new SlamtecReadCache(client, ttls);
+        SlamtecCommandScheduler scheduler = new SlamtecCommandScheduler(4, 1);
+        SlamtecActionMonitor monitor = new SlamtecActionMonitor(client, 200, 2000, 3000, 300000);
+
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        for (String name : new String[] {"pose", "power", "health", "navigate.submit", "navigate.complete"}) {
+            recorders.put(name, new Recorder());
+        }
+        String[] telemetryPaths = {SlamtecReadCache.POSE, SlamtecReadCache.POWER_STATUS, SlamtecReadCache.HEALTH};
+        String[] telemetryNames = {"pose", "power", "health"};
+
+        ScheduledExecutorService drivers = Executors.newScheduledThreadPool(2);
+        AtomicInteger tick = new AtomicInteger();
+        long periodMicros = (long) (1_000_000 / pollHz);
+        for (int i = 0; i < pollers; i++) {
+            drivers.scheduleAtFixedRate(() -> {
+                int which = Math.floorMod(tick.getAndIncrement(), telemetryPaths.length);
+                Recorder recorder = recorders.get(telemetryNames[which]);
+                long submitted = System.nanoTime();
+                scheduler.execute(Priority.TELEMETRY, () -> {
+                    try {
+                        cache.get(telemetryPaths[which], SlamtecResponse::bodyString);
+                        recorder.record((System.nanoTime() - submitted) / 1000);
+                    } catch (Exception e) {
+                        recorder.error();
+                    }
+                });
+            }, i * periodMicros / Math.max(1, pollers), periodMicros, TimeUnit.MICROSECONDS);
+        }
+
+        Random random = new Random(7);
+        if (navigateMs > 0) {
+            drivers.scheduleAtFixedRate(() -> {
+                double x = random.nextDouble() * 4 - 2;
+                double y = random.nextDouble() * 4 - 2;
+                long submitted = System.nanoTime();
+                scheduler.execute(Priority.MOTION, () -> {
+                    try (SlamtecResponse response = client.post("/api/core/motion/v1/actions",
+                            SlamtecActionEncoder.moveTo(SlamtecActionEncoder.NAVIGATE, x, y, 0))) {
+                        String body = response.bodyString();
+                        recorders.get("navigate.submit").record((System.nanoTime() - submitted) / 1000);
+                        String actionId = new org.json.JSONObject(body).get("action_id").toString();
+                        monitor.track(actionId, new SlamtecActionMonitor.Listener() {
+                            @Override
+                            public void onProgress(String id, String actionName, String stage, int status, long elapsedMs) {
+                            }
+
+                            @Override
+                            public void onComplete(String id, long elapsedMs) {
+                                recorders.get("navigate.complete").record(elapsedMs * 1000);
+                            }
+
+                            @Override
+                            public void onFailed(String id, String message) {
+                                recorders.get("navigate.complete").error();
+                            }
+                        });
+                    } catch (Exception e) {
+                        recorders.get("navigate.submit").error();
+                    }
+                });
+            }, 0, navigateMs, TimeUnit.MILLISECONDS);
+        }
+
+        System.out.println("Load test against " + baseUrl + " for " + durationSeconds + " s");
+        new CountDownLatch(1).await(durationSeconds, TimeUnit.SECONDS);
+        drivers.shutdownNow();
+
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            System.out.printf("%-18s %s%n", entry.getKey(), entry.getValue().summary(durationSeconds));
+        }
+        System.out.println("cache     " + cache.snapshot());
+        System.out.println("scheduler " + scheduler.snapshot());
+        if (mock != null) {
+            mock.stop();
+        }
+        scheduler.shutdown();
+        monitor.shutdown();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,175 @@
+package com.robotgui;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * The local restrict-to-navmesh answer against what the endpoint path produces on the same
+ * map. The map is asymmetric about y = 0 (everything below is occupied), so solving in the
+ * wrong frame, mirrored across the X axis, cannot pass.
+ */
+public class NavmeshSolverFrameTest {
+
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+    private static final double RESOLUTION = 0.1;
+    private static final double ORIGIN_X = -2.0;
+    private static final double ORIGIN_Y = -1.5;
+    private static final double RADIUS = 0.2;
+
+    private static boolean[] blocked;
+    private static NavmeshSolver solver;
+
+    @BeforeClass
+    public static void buildMap() throws IOException {
+        blocked = new boolean[WIDTH * HEIGHT];
+        for (int cy = 0; cy < HEIGHT; cy++) {
+            for (int cx = 0; cx < WIDTH; cx++) {
+                double y = ORIGIN_Y + (cy + 0.5) * RESOLUTION;
+                // Occupied below y = 0, plus a box in the free half
+                boolean box = cx >= 20 && cx < 26 && cy >= 20 && cy < 25;
+                blocked[cy * WIDTH + cx] = y < 0 || box;
+            }
+        }
+        File bmp = File.createTempFile("navmesh", ".bmp");
+        bmp.deleteOnExit();
+        writeBmp(bmp);
+        OccupancyGrid grid = OccupancyGrid.fromBmp(bmp, RESOLUTION, ORIGIN_X, ORIGIN_Y, false, 0.65, 0.196, "test");
+        solver = NavmeshSolver.build(grid, RADIUS);
+    }
+
+    @Test
+    public void walkableTargetIsAnsweredUnchanged() {
+        // Product (-1.0, 1.0) is robot (-1.0, 1.0): free and clear; its mirror (-1.0, -1.0) is not
+        double[] out = new double[2];
+        assertTrue(solver.restrictTarget(-1.0, 1.0, out));
+        assertArrayEquals(new double[] {-1.0, NavmeshMath.flipZ(1.0)}, out, 1e-9);
+    }
+
+    @Test
+    public void matchesEndpointPath() {
+        Random random = new Random(7);
+        double[] local = new double[2];
+        for (int i = 0; i < 500; i++) {
+            double x = ORIGIN_X + random.nextDouble() * WIDTH * RESOLUTION;
+            double z = ORIGIN_Y + random.nextDouble() * HEIGHT * RESOLUTION;
+            assertTrue(solver.restrictTarget(x, z, local));
+
+            // The endpoint path: the target sent with z flipped, answered in the domain frame
+            double targetZ = NavmeshMath.flipZ(z);
+            double[] remote = endpoint(x, targetZ);
+
+            // Equidistant cells may break ties differently; the distance and walkability may not
+            assertEquals("distance for target (" + x + ", " + z + ")",
+                cellDistance(x, targetZ, remote), cellDistance(x, targetZ, local), 1e-9);
+            assertTrue("walkable answer for target (" + x + ", " + z + ")",
+                local[0] == x && local[1] == targetZ || walkable(cellX(local[0]), cellY(-local[1])));
+        }
+    }
+
+    // A stand-in for the domain navmesh: the nearest walkable cell center in its frame, where z is -y
+    private static double[] endpoint(double x, double z) {
+        int targetX = Math.max(0, Math.min(WIDTH - 1, cellX(x)));
+        int targetY = Math.max(0, Math.min(HEIGHT - 1, cellY(-z)));
+        if (walkable(targetX, targetY) && targetX == cellX(x) && targetY == cellY(-z)) {
+            return new double[] {x, z};
+        }
+        double best = Double.POSITIVE_INFINITY;
+        double[] answer = null;
+        for (int cy = 0; cy < HEIGHT; cy++) {
+            for (int cx = 0; cx < WIDTH; cx++) {
+                if (!walkable(cx, cy)) {
+                    continue;
+                }
+                double d = (double) (cx - targetX) * (cx - targetX) + (double) (cy - targetY) * (cy - targetY);
+                if (d < best) {
+                    best = d;
+                    answer = new double[] {
+                        ORIGIN_X + (cx + 0.5) * RESOLUTION,
+                        -(ORIGIN_Y + (cy + 0.5) * RESOLUTION)
+                    };
+                }
+            }
+        }
+        return answer;
+    }
+
+    // Free, and radius clear of every blocked cell and of the map edge
+    private static boolean walkable(int cx, int cy) {
+        if (blocked[cy * WIDTH + cx]) {
+            return false;
+        }
+        double minDistance = RADIUS / RESOLUTION + 0.5;
+        double edge = Math.min(Math.min(cx + 0.5, WIDTH - cx - 0.5), Math.min(cy + 0.5, HEIGHT - cy - 0.5));
+        if (edge < minDistance - 0.5) {
+            return false;
+        }
+        for (int by = 0; by < HEIGHT; by++) {
+            for (int bx = 0; bx < WIDTH; bx++) {
+                if (blocked[by * WIDTH + bx] && Math.hypot(bx - cx, by - cy) < minDistance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Distance in cells from the (clamped) target cell to the answer's cell, both in the domain frame
+    private static double cellDistance(double x, double z, double[] answer) {
+        int targetX = Math.max(0, Math.min(WIDTH - 1, cellX(x)));
+        int targetY = Math.max(0, Math.min(HEIGHT - 1, cellY(-z)));
+        return Math.hypot(cellX(answer[0]) - targetX, cellY(-answer[1]) - targetY);
+    }
+
+    private static int cellX(double x) {
+        return (int) Math.floor((x - ORIGIN_X) / RESOLUTION);
+    }
+
+    private static int cellY(double y) {
+        return (int) Math.floor((y - ORIGIN_Y) / RESOLUTION);
+    }
+
+    // 24-bit bottom-up BMP: white free, black occupied
+    private static void writeBmp(File file) throws IOException {
+        int stride = (WIDTH * 3 + 3) & ~3;
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeShort(0x424D);
+            out.writeInt(Integer.reverseBytes(54 + stride * HEIGHT));
+            out.writeInt(0);
+            out.writeInt(Integer.reverseBytes(54));
+            out.writeInt(Integer.reverseBytes(40));
+            out.writeInt(Integer.reverseBytes(WIDTH));
+            out.writeInt(Integer.reverseBytes(HEIGHT));
+            out.writeShort(Short.reverseBytes((short) 1));
+            out.writeShort(Short.reverseBytes((short) 24));
+            out.writeInt(0);
+            out.writeInt(Integer.reverseBytes(stride * HEIGHT));
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            // Bottom-up rows: the first is cell row 0
+            for (int cy = 0; cy < HEIGHT; cy++) {
+                for (int cx = 0; cx < WIDTH; cx++) {
+                    int gray = blocked[cy * WIDTH + cx] ? 0 : 255;
+                    out.writeByte(gray);
+                    out.writeByte(gray);
+                    out.writeByte(gray);
+                }
+                for (int pad = WIDTH * 3; pad < stride; pad++) {
+                    out.writeByte(0);
+                }
+            }
+        }
+    }
+}
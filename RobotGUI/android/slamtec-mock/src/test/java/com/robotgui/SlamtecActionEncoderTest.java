@@ -0,0 +1,187 @@
+package com.robotgui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import org.json.JSONObject;
+
+import org.junit.Test;
+
+/**
+ * The precompiled action bodies against the org.json ones they replaced (see
+ * benchmarks' LegacyPaths.navigateBody and the other actions it was copied next to).
+ *
+ * The device's org.json keeps keys in insertion order and formats numbers differently
+ * from the JVM one, so the legacy bodies are built as ordered maps here and rendered with
+ * org.json's quoting and the device's number formatting: byte for byte what
+ * JSONObject.toString gives on the device.
+ */
+public class SlamtecActionEncoderTest {
+
+    private final Random random = new Random(11);
+
+    @Test
+    public void navigateMatchesLegacyBody() throws IOException {
+        for (double[] pose : poses()) {
+            assertBody(legacyMoveTo(pose, Arrays.asList("with_yaw"), 0, 0),
+                SlamtecActionEncoder.moveTo(SlamtecActionEncoder.NAVIGATE, pose[0], pose[1], pose[2]));
+        }
+    }
+
+    @Test
+    public void preciseNavigateMatchesLegacyBody() throws IOException {
+        for (double[] pose : poses()) {
+            assertBody(legacyMoveTo(pose, Arrays.asList("with_yaw", "precise"), 0.5, 3),
+                SlamtecActionEncoder.moveTo(SlamtecActionEncoder.NAVIGATE_PRECISE, pose[0], pose[1], pose[2]));
+        }
+    }
+
+    @Test
+    public void seriesMatchesLegacyBody() throws IOException {
+        for (int count = 1; count <= 8; count++) {
+            double[] targets = new double[count * 2];
+            List<Object> legacyTargets = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                targets[i * 2] = number();
+                targets[i * 2 + 1] = number();
+                legacyTargets.add(object("x", targets[i * 2], "y", targets[i * 2 + 1], "z", 0));
+            }
+            Map<String, Object> legacy = object(
+                "action_name", "slamtec.agent.actions.SeriesMoveToAction",
+                "options", object(
+                    "targets", legacyTargets,
+                    "move_options", object(
+                        "mode", 0,
+                        "acceptable_precision", 10,
+                        "fail_retry_count", 0)));
+            assertBody(legacy, SlamtecActionEncoder.seriesMoveTo(targets));
+        }
+    }
+
+    @Test
+    public void goHomeMatchesLegacyBody() throws IOException {
+        Map<String, Object> legacy = object(
+            "action_name", "slamtec.agent.actions.GoHomeAction",
+            "gohome_options", object(
+                "flags", "dock",
+                "back_to_landing", true,
+                "charging_retry_count", 3));
+        assertBody(legacy, SlamtecActionEncoder.goHome());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNaNLikeJsonObject() {
+        SlamtecActionEncoder.moveTo(SlamtecActionEncoder.NAVIGATE, Double.NaN, 0, 0);
+    }
+
+    private static Map<String, Object> legacyMoveTo(double[] pose, List<Object> flags,
+                                                    Object acceptablePrecision, int failRetryCount) {
+        return object(
+            "action_name", "slamtec.agent.actions.MoveToAction",
+            "options", object(
+                "target", object("x", pose[0], "y", pose[1], "z", 0),
+                "move_options", object(
+                    "mode", 0,
+                    "flags", flags,
+                    "yaw", pose[2],
+                    "acceptable_precision", acceptablePrecision,
+                    "fail_retry_count", failRetryCount)));
+    }
+
+    private void assertBody(Map<String, Object> legacy, RequestBody body) throws IOException {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        assertEquals(sink.size(), body.contentLength());
+        String encoded = sink.readUtf8();
+        assertEquals(render(legacy), encoded);
+        // And the same document to a parser, whatever the key order
+        assertTrue(new JSONObject(encoded).similar(new JSONObject(render(legacy))));
+    }
+
+    // Whole, fractional, negative, tiny and large coordinates
+    private List<double[]> poses() {
+        List<double[]> poses = new ArrayList<>();
+        poses.add(new double[] {0, 0, 0});
+        poses.add(new double[] {1, -3.5, 1.5707963267949});
+        poses.add(new double[] {-12.25, 7, -Math.PI});
+        poses.add(new double[] {1e-7, -2.5e-9, 3e12});
+        poses.add(new double[] {-0.0, 1e18, -1e19});
+        poses.add(new double[] {Long.MIN_VALUE, 0x1p63, 123456789.125});
+        for (int i = 0; i < 200; i++) {
+            poses.add(new double[] {number(), number(), number()});
+        }
+        return poses;
+    }
+
+    private double number() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return random.nextInt(201) - 100;
+            case 1:
+                return Math.round((random.nextDouble() - 0.5) * 2000) / 100.0;
+            case 2:
+                return (random.nextDouble() - 0.5) * 100;
+            default:
+                return (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 15);
+        }
+    }
+
+    private static Map<String, Object> object(Object... keysAndValues) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            object.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return object;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String render(Object value) {
+        if (value instanceof Map) {
+            StringBuilder json = new StringBuilder("{");
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(JSONObject.quote(entry.getKey())).append(':').append(render(entry.getValue()));
+            }
+            return json.append('}').toString();
+        }
+        if (value instanceof List) {
+            StringBuilder json = new StringBuilder("[");
+            for (Object item : (List<Object>) value) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(render(item));
+            }
+            return json.append(']').toString();
+        }
+        if (value instanceof Number) {
+            return deviceNumber((Number) value);
+        }
+        return JSONObject.valueToString(value);
+    }
+
+    // The device's JSONObject.numberToString
+    private static String deviceNumber(Number number) {
+        if (number.equals(-0d)) {
+            return "-0";
+        }
+        long longValue = number.longValue();
+        if (number.doubleValue() == (double) longValue) {
+            return Long.toString(longValue);
+        }
+        return number.toString();
+    }
+}
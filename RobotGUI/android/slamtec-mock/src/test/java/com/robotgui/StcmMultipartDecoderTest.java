@@ -0,0 +1,132 @@
+package com.robotgui;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round trips through the streaming img-part decoder: random payloads encoded with
+ * java.util.Base64, plain and MIME-wrapped, under boundaries that are mostly dashes, read
+ * back in random chunk sizes so tokens and delimiters straddle the read buffer.
+ */
+public class StcmMultipartDecoderTest {
+
+    private static final String[] BOUNDARIES = {
+        "simpleBoundary",
+        "------------------------3f2a9c",
+        "--",
+        "-a-a-a--a",
+        "----------------------------------------------------------------x",
+    };
+
+    // Payload sizes around the base64 quantum and the 64 KiB read and decode buffers
+    private static final int[] SIZES = {0, 1, 2, 3, 4, 5, 57, 76, 1000, 65535, 65536, 65537, 200001};
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void decodesUnwrappedBase64() throws IOException {
+        roundTrip(Base64.getEncoder());
+    }
+
+    @Test
+    public void decodesMimeWrappedBase64() throws IOException {
+        roundTrip(Base64.getMimeEncoder());
+    }
+
+    @Test
+    public void readsQuotedBoundary() throws IOException {
+        assertEquals("--abc--", StcmMultipartDecoder.boundary("multipart/form-data; boundary=\"--abc--\""));
+        assertEquals("--abc", StcmMultipartDecoder.boundary("multipart/form-data; boundary=--abc; charset=utf-8"));
+    }
+
+    @Test
+    public void rejectsBodyWithoutImgPart() {
+        String body = "--b\r\nContent-Disposition: form-data; name=\"meta\"\r\n\r\n{}\r\n--b--\r\n";
+        try {
+            decode(body.getBytes(StandardCharsets.US_ASCII), "b");
+            fail("Expected no img part to be found");
+        } catch (IOException expected) {
+            // The body has no "img" part
+        }
+    }
+
+    @Test
+    public void rejectsInvalidBase64() {
+        String body = "--b\r\nContent-Disposition: form-data; name=\"img\"\r\n\r\nQUJD*\r\n--b--\r\n";
+        try {
+            decode(body.getBytes(StandardCharsets.US_ASCII), "b");
+            fail("Expected invalid base64 to be rejected");
+        } catch (IOException expected) {
+            // '*' is not in the base64 alphabet
+        }
+    }
+
+    private void roundTrip(Base64.Encoder encoder) throws IOException {
+        for (String boundary : BOUNDARIES) {
+            for (int size : SIZES) {
+                byte[] payload = new byte[size];
+                random.nextBytes(payload);
+                byte[] body = multipart(boundary, encoder.encodeToString(payload));
+                assertArrayEquals("boundary " + boundary + ", " + size + " bytes", payload, decode(body, boundary));
+            }
+        }
+    }
+
+    // A part before img whose content holds near-misses of the delimiter, then img, then the close
+    private byte[] multipart(String boundary, String base64) {
+        String delimiter = "--" + boundary;
+        String nearMiss = delimiter.substring(0, delimiter.length() - 1) + "#" + delimiter.substring(1);
+        String body = "preamble " + nearMiss + "\r\n"
+            + delimiter + "\r\n"
+            + "Content-Disposition: form-data; name=\"meta\"\r\n"
+            + "Content-Type: application/json\r\n\r\n"
+            + "{\"note\":\"" + nearMiss + "\"}\r\n"
+            + delimiter + "\r\n"
+            + "Content-Disposition: form-data; name=\"img\"; filename=\"map.stcm\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n"
+            + base64 + "\r\n"
+            + delimiter + "--\r\n";
+        return body.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] decode(byte[] body, String boundary) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = StcmMultipartDecoder.decodeImgPart(new ChunkedInputStream(body, random), boundary,
+            body.length, Channels.newChannel(out), null);
+        assertEquals(out.size(), written);
+        return out.toByteArray();
+    }
+
+    /** Hands out the body in random short reads, as a socket would. */
+    private static final class ChunkedInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final Random random;
+
+        ChunkedInputStream(byte[] body, Random random) {
+            this.in = new ByteArrayInputStream(body);
+            this.random = random;
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return in.read(buffer, offset, Math.min(length, 1 + random.nextInt(8192)));
+        }
+    }
+}